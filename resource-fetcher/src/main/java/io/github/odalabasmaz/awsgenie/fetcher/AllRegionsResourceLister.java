@@ -0,0 +1,140 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.regions.Region;
+import com.amazonaws.regions.RegionUtils;
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Lists the resources of a {@link Service} in every region of the account's partition.
+ * <p>
+ * Regions come from the SDK's region metadata for the service. Regions the account has not opted in to reject
+ * the credentials and are skipped. Up to {@link #setMaxConcurrentRegions(int)} regions are listed at the same
+ * time, each with its own region-scoped clients, and batches reach the consumer as soon as they are listed,
+ * tagged with their region. The consumer is called by one thread at a time.
+ */
+public class AllRegionsResourceLister<R extends Resource> {
+    public static final int DEFAULT_MAX_CONCURRENT_REGIONS = 4;
+
+    private static final Logger LOGGER = LogManager.getLogger(AllRegionsResourceLister.class);
+    private static final String DEFAULT_PARTITION = "aws";
+    private static final Set<String> REGION_NOT_ENABLED_ERROR_CODES = new HashSet<>(Arrays.asList(
+            "UnrecognizedClientException", "InvalidClientTokenId", "AuthFailure", "OptInRequired"));
+
+    private final Service service;
+    private final ResourceFetcherConfiguration configuration;
+    private ResourceFetcherFactory<R> resourceFetcherFactory = new ResourceFetcherFactory<>();
+    private int maxConcurrentRegions = DEFAULT_MAX_CONCURRENT_REGIONS;
+
+    /**
+     * @param configuration role and settings to list with, its region selects the partition
+     */
+    public AllRegionsResourceLister(Service service, ResourceFetcherConfiguration configuration) {
+        this.service = service;
+        this.configuration = configuration;
+    }
+
+    /**
+     * @return regions of the configured region's partition that offer the service, or the configured region
+     * alone for global services
+     */
+    public List<String> discoverRegions() {
+        if (service.isGlobal() || service.getPrimaryClientType() == null) {
+            return Collections.singletonList(configuration.getRegion());
+        }
+        Region configuredRegion = configuration.getRegion() == null ? null : RegionUtils.getRegion(configuration.getRegion());
+        String partition = configuredRegion == null ? DEFAULT_PARTITION : configuredRegion.getPartition();
+        return RegionUtils.getRegionsForService(service.getPrimaryClientType().getEndpointPrefix()).stream()
+                .filter(region -> partition.equals(region.getPartition()))
+                .map(Region::getName)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    public List<ScanResult<Integer>> listResources(BiConsumer<String, List<String>> consumer) {
+        return listResources(discoverRegions(), consumer);
+    }
+
+    /**
+     * @param consumer receives the region and a batch of resource names
+     * @return number of resources listed per region; regions that are not enabled are left out
+     */
+    public List<ScanResult<Integer>> listResources(List<String> regions, BiConsumer<String, List<String>> consumer) {
+        if (regions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Object consumerLock = new Object();
+        ExecutorService executor = BoundedExecutors.newBoundedExecutor("awsgenie-all-regions",
+                Math.max(1, Math.min(maxConcurrentRegions, regions.size())), regions.size());
+        try {
+            List<Future<ScanResult<Integer>>> futures = new ArrayList<>();
+            for (String region : regions) {
+                futures.add(executor.submit(() -> listRegion(region, batch -> {
+                    synchronized (consumerLock) {
+                        consumer.accept(region, batch);
+                    }
+                })));
+            }
+            List<ScanResult<Integer>> results = new ArrayList<>();
+            for (Future<ScanResult<Integer>> future : futures) {
+                ScanResult<Integer> result = future.get();
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing " + service, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not list " + service, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public AllRegionsResourceLister<R> setMaxConcurrentRegions(int maxConcurrentRegions) {
+        this.maxConcurrentRegions = maxConcurrentRegions;
+        return this;
+    }
+
+    AllRegionsResourceLister<R> setResourceFetcherFactory(ResourceFetcherFactory<R> resourceFetcherFactory) {
+        this.resourceFetcherFactory = resourceFetcherFactory;
+        return this;
+    }
+
+    private ScanResult<Integer> listRegion(String region, Consumer<List<String>> consumer) {
+        ScanTarget target = new ScanTarget(configuration.getAssumeRoleArn(), region);
+        AtomicInteger count = new AtomicInteger();
+        try {
+            ResourceFetcher<R> fetcher = resourceFetcherFactory.getFetcher(service,
+                    configuration.forTarget(configuration.getAssumeRoleArn(), region));
+            fetcher.listResources(region, batch -> {
+                count.addAndGet(batch.size());
+                consumer.accept(batch);
+            });
+            return ScanResult.success(target, count.get(), Collections.emptyList());
+        } catch (AmazonServiceException e) {
+            if (REGION_NOT_ENABLED_ERROR_CODES.contains(e.getErrorCode())) {
+                LOGGER.info("Skipping region: " + region + ", it is not enabled for the account: " + e.getErrorCode());
+                return null;
+            }
+            LOGGER.warn("Listing " + service + " failed in region: " + region + ", reason: " + e);
+            return ScanResult.failure(target, e, Collections.emptyList());
+        } catch (Exception e) {
+            LOGGER.warn("Listing " + service + " failed in region: " + region + ", reason: " + e);
+            return ScanResult.failure(target, e, Collections.emptyList());
+        }
+    }
+}
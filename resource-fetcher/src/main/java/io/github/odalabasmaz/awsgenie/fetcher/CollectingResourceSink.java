@@ -0,0 +1,45 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Gathers streamed results back into the shape of {@link ResourceFetcher#fetchResources(String, List, List)}.
+ */
+public class CollectingResourceSink<R extends Resource> implements ResourceSink<R> {
+    private final Set<R> resources = new LinkedHashSet<>();
+    private final List<String> details;
+
+    /**
+     * @param details receives the detail and missing-resource messages, may be null to drop them
+     */
+    public CollectingResourceSink(List<String> details) {
+        this.details = details;
+    }
+
+    @Override
+    public void onResource(R resource) {
+        resources.add(resource);
+    }
+
+    @Override
+    public void onDetail(String resource, String detail) {
+        addDetail(detail);
+    }
+
+    @Override
+    public void onMissing(String resource, String detail) {
+        addDetail(detail);
+    }
+
+    public Set<R> getResources() {
+        return resources;
+    }
+
+    private void addDetail(String detail) {
+        if (details != null) {
+            details.add(detail);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs a {@link Service} fetcher over many accounts and regions at once.
+ * <p>
+ * Each role ARN and region pair is a {@link ScanTarget} scanned with its own clients. At most
+ * {@link #setMaxParallelism(int)} targets run at the same time, and at most
+ * {@link #setMaxParallelismPerAccount(int)} of them in the same account, so one account's API limits are not
+ * exhausted. Results come back in target order, tagged with account and region; a failing target does not
+ * affect the others. Global services are scanned in the first region only.
+ * <p>
+ * At least one region is required. Role ARNs may be null to scan the account of the current credentials, but not
+ * empty or blank.
+ */
+public class MultiAccountResourceFetcher<R extends Resource> {
+    public static final int DEFAULT_MAX_PARALLELISM = 16;
+    public static final int DEFAULT_MAX_PARALLELISM_PER_ACCOUNT = 2;
+
+    private static final Logger LOGGER = LogManager.getLogger(MultiAccountResourceFetcher.class);
+
+    private final Service service;
+    private final ResourceFetcherConfiguration configuration;
+    private ResourceFetcherFactory<R> resourceFetcherFactory = new ResourceFetcherFactory<>();
+    private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+    private int maxParallelismPerAccount = DEFAULT_MAX_PARALLELISM_PER_ACCOUNT;
+
+    /**
+     * @param configuration shared settings of all targets, its role and region are replaced per target
+     */
+    public MultiAccountResourceFetcher(Service service, ResourceFetcherConfiguration configuration) {
+        this.service = service;
+        this.configuration = configuration;
+    }
+
+    public List<ScanResult<List<String>>> listResources(List<String> roleArns, List<String> regions) {
+        return scan(getTargets(roleArns, regions), (fetcher, target, details) -> listResources(fetcher, target));
+    }
+
+    public List<ScanResult<Set<R>>> fetchResources(List<String> roleArns, List<String> regions, List<String> resources) {
+        return scan(getTargets(roleArns, regions),
+                (fetcher, target, details) -> fetcher.fetchResources(target.getRegion(), resources, details));
+    }
+
+    /**
+     * Lists every resource of each target and fetches them, i.e. a full inventory.
+     */
+    public List<ScanResult<Set<R>>> fetchAllResources(List<String> roleArns, List<String> regions) {
+        return scan(getTargets(roleArns, regions),
+                (fetcher, target, details) -> fetcher.fetchResources(target.getRegion(), listResources(fetcher, target), details));
+    }
+
+    public MultiAccountResourceFetcher<R> setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+        return this;
+    }
+
+    public MultiAccountResourceFetcher<R> setMaxParallelismPerAccount(int maxParallelismPerAccount) {
+        this.maxParallelismPerAccount = maxParallelismPerAccount;
+        return this;
+    }
+
+    MultiAccountResourceFetcher<R> setResourceFetcherFactory(ResourceFetcherFactory<R> resourceFetcherFactory) {
+        this.resourceFetcherFactory = resourceFetcherFactory;
+        return this;
+    }
+
+    /**
+     * Targets ordered region by region, so consecutive targets belong to different accounts.
+     */
+    List<ScanTarget> getTargets(List<String> roleArns, List<String> regions) {
+        if (regions == null || regions.isEmpty() || regions.stream().anyMatch(StringUtils::isBlank)) {
+            throw new IllegalArgumentException("At least one region is required and none can be blank: " + regions);
+        }
+        if (roleArns != null && (roleArns.isEmpty() || roleArns.stream().anyMatch(StringUtils::isBlank))) {
+            throw new IllegalArgumentException("Role ARNs cannot be empty or blank, pass null to scan with the current credentials: " + roleArns);
+        }
+        List<String> targetRoles = roleArns == null ? Collections.singletonList(null) : roleArns;
+        List<String> targetRegions = service.isGlobal() ? regions.subList(0, 1) : regions;
+        List<ScanTarget> targets = new ArrayList<>();
+        for (String region : targetRegions) {
+            for (String roleArn : targetRoles) {
+                targets.add(new ScanTarget(roleArn, region));
+            }
+        }
+        return targets;
+    }
+
+    private <T> List<ScanResult<T>> scan(List<ScanTarget> targets, TargetTask<R, T> task) {
+        if (targets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Semaphore> accountPermits = new HashMap<>();
+        for (ScanTarget target : targets) {
+            accountPermits.computeIfAbsent(target.getAccountId(), a -> new Semaphore(Math.max(1, maxParallelismPerAccount)));
+        }
+
+        ExecutorService executor = BoundedExecutors.newBoundedExecutor("awsgenie-multi-account",
+                Math.max(1, Math.min(maxParallelism, targets.size())), targets.size());
+        try {
+            List<Future<ScanResult<T>>> futures = new ArrayList<>();
+            for (ScanTarget target : targets) {
+                futures.add(executor.submit(() -> scan(target, accountPermits.get(target.getAccountId()), task)));
+            }
+            List<ScanResult<T>> results = new ArrayList<>();
+            for (Future<ScanResult<T>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning " + service, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not scan " + service, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> ScanResult<T> scan(ScanTarget target, Semaphore permits, TargetTask<R, T> task) throws InterruptedException {
+        List<String> details = Collections.synchronizedList(new ArrayList<>());
+        permits.acquire();
+        try {
+            ResourceFetcher<R> fetcher = resourceFetcherFactory.getFetcher(service,
+                    configuration.forTarget(target.getRoleArn(), target.getRegion()));
+            return ScanResult.success(target, task.run(fetcher, target, details), details);
+        } catch (Exception e) {
+            LOGGER.warn("Scanning " + service + " failed for account: " + target.getAccountId()
+                    + ", region: " + target.getRegion() + ", reason: " + e);
+            return ScanResult.failure(target, e, details);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static List<String> listResources(ResourceFetcher<?> fetcher, ScanTarget target) throws Exception {
+        List<String> resources = new ArrayList<>();
+        fetcher.listResources(target.getRegion(), resources::addAll);
+        return resources;
+    }
+
+    @FunctionalInterface
+    private interface TargetTask<R extends Resource, T> {
+        T run(ResourceFetcher<R> fetcher, ScanTarget target, List<String> details) throws Exception;
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spliterator over a paginated listing that requests a page only when the stream needs its first resource.
+ * <p>
+ * A short-circuiting stream ({@code findFirst}, {@code anyMatch}, {@code limit}) stops requesting pages as soon
+ * as it is satisfied. Splits hand off whole pages, so a parallel stream processes one page per task while this
+ * spliterator moves on to the next page.
+ */
+final class PagedSpliterator implements Spliterator<String> {
+    private final Function<String, ResourcePage> pageFetcher;
+    private Iterator<String> current = Collections.emptyIterator();
+    private String nextMarker;
+    private boolean lastPageFetched;
+
+    /**
+     * @param pageFetcher returns the page of the given marker, the first page for a null marker
+     */
+    PagedSpliterator(Function<String, ResourcePage> pageFetcher) {
+        this.pageFetcher = pageFetcher;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        while (!current.hasNext()) {
+            if (!fetchNextPage()) {
+                return false;
+            }
+        }
+        action.accept(current.next());
+        return true;
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        if (!current.hasNext() && !fetchNextPage()) {
+            return null;
+        }
+        Iterator<String> page = current;
+        current = Collections.emptyIterator();
+        return Spliterators.spliteratorUnknownSize(page, characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private boolean fetchNextPage() {
+        if (lastPageFetched) {
+            return false;
+        }
+        ResourcePage page = pageFetcher.apply(nextMarker);
+        List<String> resources = page.getResources();
+        current = resources == null ? Collections.emptyIterator() : resources.iterator();
+        nextMarker = page.getNextMarker();
+        lastPageFetched = page.isLast();
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Walks a paginated listing with the next pages requested while the consumer handles the current one.
+ * <p>
+ * Pages are fetched on a thread of their own, at most {@link #PREFETCHED_PAGES} ahead of the consumer, and are
+ * consumed on the calling thread in listing order. An exception thrown while fetching a page is rethrown to the
+ * caller once the pages before it are consumed. When the consumer throws, no further page is requested.
+ */
+final class PrefetchingPaginator {
+    static final int PREFETCHED_PAGES = 2;
+
+    private static final ThreadFactory THREAD_FACTORY = BoundedExecutors.daemonThreadFactory("awsgenie-paginator");
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final Object END_OF_PAGES = new Object();
+
+    private final Function<String, ResourcePage> pageFetcher;
+    private final BlockingQueue<Object> pages = new ArrayBlockingQueue<>(PREFETCHED_PAGES);
+    private volatile boolean cancelled;
+
+    private PrefetchingPaginator(Function<String, ResourcePage> pageFetcher) {
+        this.pageFetcher = pageFetcher;
+    }
+
+    /**
+     * @param pageFetcher returns the page of the given marker, the first page for a null marker
+     */
+    static void forEachPage(Function<String, ResourcePage> pageFetcher, Consumer<List<String>> consumer) {
+        new PrefetchingPaginator(pageFetcher).run(consumer);
+    }
+
+    private void run(Consumer<List<String>> consumer) {
+        THREAD_FACTORY.newThread(this::fetchPages).start();
+        try {
+            while (true) {
+                Object item = pages.take();
+                if (item == END_OF_PAGES) {
+                    return;
+                }
+                if (item instanceof FetchFailure) {
+                    throw ((FetchFailure) item).rethrow();
+                }
+                consumer.accept(((ResourcePage) item).getResources());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing resources", e);
+        } finally {
+            cancelled = true;
+        }
+    }
+
+    private void fetchPages() {
+        try {
+            ResourcePage page = null;
+            do {
+                page = pageFetcher.apply(page == null ? null : page.getNextMarker());
+            } while (publish(page) && !page.isLast());
+            publish(END_OF_PAGES);
+        } catch (RuntimeException | Error e) {
+            publish(new FetchFailure(e));
+        }
+    }
+
+    /**
+     * @return false once the consumer is gone, so the fetching stops
+     */
+    private boolean publish(Object item) {
+        try {
+            while (!cancelled) {
+                if (pages.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static class FetchFailure {
+        private final Throwable cause;
+
+        private FetchFailure(Throwable cause) {
+            this.cause = cause;
+        }
+
+        private RuntimeException rethrow() {
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return (RuntimeException) cause;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thrown once every resource of a fetch has been resolved and at least one of them could not be. The sink has seen
+ * the other resources, but the fetch is incomplete, so nothing should act on it as a whole.
+ */
+public class ResourceFetchException extends RuntimeException {
+    private final Map<String, Exception> failures;
+
+    /**
+     * @param failures the error of each resource that could not be resolved, in the requested order
+     */
+    public ResourceFetchException(Map<String, Exception> failures) {
+        super("Could not fetch " + failures.size() + " resource(s): " + failures.keySet(), failures.values().iterator().next());
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        failures.values().stream().skip(1).forEach(this::addSuppressed);
+    }
+
+    public Map<String, Exception> getFailures() {
+        return failures;
+    }
+}
@@ -1,9 +1,15 @@
 package io.github.odalabasmaz.awsgenie.fetcher;
 
-import java.util.List;
-import java.util.Set;
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Orhun Dalabasmaz
@@ -14,12 +20,117 @@ public interface ResourceFetcher<R extends Resource> {
 
     Set<R> fetchResources(String region, List<String> resources, List<String> details) throws Exception;
 
+    /**
+     * Streams each resource to the sink as soon as it is resolved, together with its detail or a missing-resource
+     * event, instead of returning them all at the end. Built-in fetchers resolve resources in the given order;
+     * this default falls back to {@link #fetchResources(String, List, List)} and replays its result.
+     */
+    default void fetchResourcesTo(String region, List<String> resources, ResourceSink<R> sink) throws Exception {
+        List<String> details = new ArrayList<>();
+        Set<R> fetched = fetchResources(region, resources, details);
+        fetched.forEach(sink::onResource);
+        details.forEach(detail -> sink.onDetail(null, detail));
+        sink.onComplete();
+    }
+
     void listResources(String region, Consumer<List<String>> consumer) throws Exception;
 
+    /**
+     * Lists one page of resources. Built-in fetchers request exactly one page from AWS; this default lists
+     * everything through {@link #listResources(String, Consumer)} and returns it as a single page.
+     *
+     * @param marker marker of the page, null for the first page
+     */
+    default ResourcePage listResourcePage(String region, String marker) {
+        List<String> resources = new ArrayList<>();
+        try {
+            listResources(region, resources::addAll);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not list resources in region: " + region, e);
+        }
+        return new ResourcePage(resources, null);
+    }
+
+    /**
+     * Lazy view of {@link #listResources(String, Consumer)}: pages are requested only as the stream reaches them,
+     * so short-circuiting operations stop the listing early. A parallel stream processes whole pages in parallel.
+     */
+    default Stream<String> streamResources(String region) {
+        return StreamSupport.stream(new PagedSpliterator(marker -> listResourcePage(region, marker)), false);
+    }
+
     default Object getUsage(String region, String resource, int lastDays) {
         return null;
     }
 
+    /**
+     * Usage of many resources at once, keyed by resource in the given order. Fetchers backed by CloudWatch pack
+     * all resources into as few requests as possible and report 0 for a resource without datapoints; this default
+     * asks {@link #getUsage(String, String, int)} for each resource.
+     */
+    default Map<String, Object> getUsage(String region, List<String> resources, int lastDays) {
+        Map<String, Object> usages = new LinkedHashMap<>();
+        for (String resource : resources) {
+            usages.put(resource, getUsage(region, resource, lastDays));
+        }
+        return usages;
+    }
+
+    /**
+     * Runs {@link #fetchResources(String, List, List)} on the shared fetcher executor. Fetchers with a
+     * concurrent implementation can override it.
+     */
+    default CompletableFuture<Set<R>> fetchResourcesAsync(String region, List<String> resources) {
+        return fetchResourcesAsync(region, resources, Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    default CompletableFuture<Set<R>> fetchResourcesAsync(String region, List<String> resources, List<String> details) {
+        return fetchResourcesAsync(region, resources, details, BoundedExecutors.fetcherExecutor());
+    }
+
+    default CompletableFuture<Set<R>> fetchResourcesAsync(String region, List<String> resources, List<String> details,
+                                                          Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchResources(region, resources, details);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Fetches every resource on its own, so callers can act on each one as soon as it is ready. A future
+     * completes empty when its resource does not exist.
+     *
+     * @param details shared by all resources, must be thread-safe
+     */
+    default Map<String, CompletableFuture<Optional<R>>> fetchEachResourceAsync(String region, List<String> resources,
+                                                                               List<String> details) {
+        Map<String, CompletableFuture<Optional<R>>> futures = new LinkedHashMap<>();
+        for (String resource : resources) {
+            futures.put(resource, fetchResourcesAsync(region, Collections.singletonList(resource), details)
+                    .thenApply(fetched -> fetched.stream().findFirst()));
+        }
+        return futures;
+    }
+
+    default CompletableFuture<Object> getUsageAsync(String region, String resource, int lastDays) {
+        return CompletableFuture.supplyAsync(() -> getUsage(region, resource, lastDays), BoundedExecutors.fetcherExecutor());
+    }
+
+    /**
+     * Hands every page of a listing to the consumer, requesting the next page while the consumer handles the
+     * current one. Errors of the page fetcher are rethrown as they are.
+     *
+     * @param pageFetcher returns the page of the given marker, the first page for a null marker
+     */
+    default void consumePages(Function<String, ResourcePage> pageFetcher, Consumer<List<String>> consumer) {
+        PrefetchingPaginator.forEachPage(pageFetcher, consumer);
+    }
+
     default void consume(Function<String, String> function) {
         String nextMarker = null;
         do {
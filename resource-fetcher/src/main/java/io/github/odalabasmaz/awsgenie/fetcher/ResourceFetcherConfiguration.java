@@ -1,20 +1,50 @@
 package io.github.odalabasmaz.awsgenie.fetcher;
 
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientConfiguration;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.ClientConfigurationProfile;
 
 public class ResourceFetcherConfiguration implements AWSClientConfiguration {
+    public static final int DEFAULT_BULK_LOOKUP_THRESHOLD = 20;
 
     private final String assumeRoleArn;
     private final String region;
+    private final String endpoint;
+    private ClientConfigurationProfile clientConfigurationProfile = ClientConfigurationProfile.defaultProfile();
+    private String sessionCacheDirectory;
+    private int parallelism;
+    private int bulkLookupThreshold = DEFAULT_BULK_LOOKUP_THRESHOLD;
 
     public ResourceFetcherConfiguration(String assumeRoleArn, String region) {
+        this(assumeRoleArn, region, null);
+    }
+
+    public ResourceFetcherConfiguration(String assumeRoleArn, String region, String endpoint) {
         this.assumeRoleArn = assumeRoleArn;
         this.region = region;
+        this.endpoint = endpoint;
     }
 
     public ResourceFetcherConfiguration(AWSClientConfiguration awsClientConfiguration) {
         this.assumeRoleArn = awsClientConfiguration.getAssumeRoleArn();
         this.region = awsClientConfiguration.getRegion();
+        this.endpoint = awsClientConfiguration.getEndpoint();
+        this.clientConfigurationProfile = awsClientConfiguration.getClientConfigurationProfile();
+        this.sessionCacheDirectory = awsClientConfiguration.getSessionCacheDirectory();
+        if (awsClientConfiguration instanceof ResourceFetcherConfiguration) {
+            this.parallelism = ((ResourceFetcherConfiguration) awsClientConfiguration).getParallelism();
+            this.bulkLookupThreshold = ((ResourceFetcherConfiguration) awsClientConfiguration).getBulkLookupThreshold();
+        }
+    }
+
+    /**
+     * @return a copy of this configuration for another role and region, i.e. one target of a multi-account scan
+     */
+    public ResourceFetcherConfiguration forTarget(String assumeRoleArn, String region) {
+        return new ResourceFetcherConfiguration(assumeRoleArn, region, endpoint)
+                .setClientConfigurationProfile(clientConfigurationProfile)
+                .setSessionCacheDirectory(sessionCacheDirectory)
+                .setParallelism(parallelism)
+                .setBulkLookupThreshold(bulkLookupThreshold);
     }
 
     @Override
@@ -26,4 +56,54 @@ public class ResourceFetcherConfiguration implements AWSClientConfiguration {
     public String getRegion() {
         return region;
     }
+
+    @Override
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public ClientConfigurationProfile getClientConfigurationProfile() {
+        return clientConfigurationProfile;
+    }
+
+    public ResourceFetcherConfiguration setClientConfigurationProfile(ClientConfigurationProfile clientConfigurationProfile) {
+        this.clientConfigurationProfile = clientConfigurationProfile;
+        return this;
+    }
+
+    @Override
+    public String getSessionCacheDirectory() {
+        return sessionCacheDirectory;
+    }
+
+    public ResourceFetcherConfiguration setSessionCacheDirectory(String sessionCacheDirectory) {
+        this.sessionCacheDirectory = sessionCacheDirectory;
+        return this;
+    }
+
+    /**
+     * @return number of resources a fetcher resolves at the same time, 1 or less resolves them one by one
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public ResourceFetcherConfiguration setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @return number of resources from which fetchers list related resources of the whole region once, instead of
+     * looking them up per resource, 0 or less always looks them up per resource
+     */
+    public int getBulkLookupThreshold() {
+        return bulkLookupThreshold;
+    }
+
+    public ResourceFetcherConfiguration setBulkLookupThreshold(int bulkLookupThreshold) {
+        this.bulkLookupThreshold = bulkLookupThreshold;
+        return this;
+    }
 }
@@ -1,5 +1,7 @@
 package io.github.odalabasmaz.awsgenie.fetcher;
 
+import io.github.odalabasmaz.awsgenie.fetcher.cache.CachingResourceFetcher;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.UsageCache;
 import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.CloudWatchResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.dynamodb.DynamoDBResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.iam.IAMPolicyResourceFetcher;
@@ -17,9 +19,31 @@ import javax.naming.OperationNotSupportedException;
  */
 
 public class ResourceFetcherFactory<R extends Resource> {
+    private UsageCache usageCache;
+    private boolean revalidateUnusedUsage;
+
+    /**
+     * Makes the created fetchers answer usage lookups from the given cache.
+     *
+     * @param revalidateUnused fetch cached usages that would allow deleting a resource again
+     */
+    public ResourceFetcherFactory<R> setUsageCache(UsageCache usageCache, boolean revalidateUnused) {
+        this.usageCache = usageCache;
+        this.revalidateUnusedUsage = revalidateUnused;
+        return this;
+    }
 
     public ResourceFetcher<R> getFetcher(Service service, ResourceFetcherConfiguration configuration)
             throws OperationNotSupportedException {
+        ResourceFetcher<R> fetcher = createFetcher(service, configuration);
+        if (usageCache != null) {
+            return new CachingResourceFetcher<>(fetcher, service, configuration, usageCache, revalidateUnusedUsage);
+        }
+        return fetcher;
+    }
+
+    private ResourceFetcher<R> createFetcher(Service service, ResourceFetcherConfiguration configuration)
+            throws OperationNotSupportedException {
 
         if (Service.LAMBDA.equals(service)) {
             return (ResourceFetcher<R>) new LambdaResourceFetcher(configuration);
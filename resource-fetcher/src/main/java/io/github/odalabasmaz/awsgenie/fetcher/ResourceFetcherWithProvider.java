@@ -1,8 +1,21 @@
 package io.github.odalabasmaz.awsgenie.fetcher;
 
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
-public abstract class ResourceFetcherWithProvider {
 
+public abstract class ResourceFetcherWithProvider {
     private ResourceFetcherConfiguration configuration;
 
 
@@ -13,4 +26,146 @@ public abstract class ResourceFetcherWithProvider {
     public ResourceFetcherConfiguration getConfiguration() {
         return configuration;
     }
+
+    /**
+     * Resolves every resource with the resolver, up to {@link ResourceFetcherConfiguration#getParallelism()} at
+     * the same time on the shared {@link BoundedExecutors#fetcherExecutor()}. The sink sees the events of each
+     * resource in the order of the given list, whatever the parallelism, and is only called from this thread.
+     * <p>
+     * A resource whose resolver throws does not stop the others. Once all of them are resolved, the failures are
+     * thrown together as a {@link ResourceFetchException}, so callers never mistake a partial fetch for a full one.
+     */
+    protected <R extends Resource> void resolveEach(List<String> resources, ResourceSink<R> sink,
+                                                    ResourceResolver<R> resolver) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        int parallelism = Math.min(configuration.getParallelism(), resources.size());
+        if (parallelism <= 1) {
+            for (String resource : resources) {
+                resolve(resource, resolver, new AtomicBoolean()).replay(sink, failures);
+            }
+        } else {
+            resolveInParallel(resources, sink, resolver, parallelism, failures);
+        }
+        if (!failures.isEmpty()) {
+            throw new ResourceFetchException(failures);
+        }
+    }
+
+    private <R extends Resource> void resolveInParallel(List<String> resources, ResourceSink<R> sink,
+                                                        ResourceResolver<R> resolver, int parallelism,
+                                                        Map<String, Exception> failures) {
+        // at most parallelism resources in flight bounds both the calls and the buffered events
+        ExecutorService executor = BoundedExecutors.fetcherExecutor();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Deque<FutureTask<BufferingResourceSink<R>>> inFlight = new ArrayDeque<>();
+        try {
+            for (String resource : resources) {
+                if (inFlight.size() == parallelism) {
+                    replayNext(inFlight, sink, failures);
+                }
+                FutureTask<BufferingResourceSink<R>> task = new FutureTask<>(() -> resolve(resource, resolver, stopped));
+                inFlight.add(task);
+                executor.execute(task);
+            }
+            while (!inFlight.isEmpty()) {
+                replayNext(inFlight, sink, failures);
+            }
+        } catch (RuntimeException e) {
+            // the sink failed or the thread was interrupted, the fetch stops
+            stopped.set(true);
+            drain(inFlight);
+            throw e;
+        }
+    }
+
+    private <R extends Resource> void replayNext(Deque<FutureTask<BufferingResourceSink<R>>> inFlight, ResourceSink<R> sink,
+                                                 Map<String, Exception> failures) {
+        FutureTask<BufferingResourceSink<R>> task = inFlight.poll();
+        // resolves the resource on this thread when no executor thread took it yet, so a fetch running on the
+        // shared executor never waits for a task queued behind it
+        task.run();
+        BufferingResourceSink<R> buffer;
+        try {
+            buffer = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching resources", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not fetch resources", e.getCause());
+        }
+        buffer.replay(sink, failures);
+    }
+
+    /**
+     * Waits for the resolvers still running, the ones not started yet skip their resource.
+     */
+    private static void drain(Deque<? extends FutureTask<?>> inFlight) {
+        for (FutureTask<?> task : inFlight) {
+            task.run();
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // the fetch already failed
+            }
+        }
+    }
+
+    private <R extends Resource> BufferingResourceSink<R> resolve(String resource, ResourceResolver<R> resolver,
+                                                                  AtomicBoolean stopped) {
+        BufferingResourceSink<R> buffer = new BufferingResourceSink<>(resource);
+        if (stopped.get()) {
+            return buffer;
+        }
+        try {
+            resolver.resolve(resource, buffer);
+        } catch (Exception e) {
+            buffer.failure = e;
+        }
+        return buffer;
+    }
+
+    /**
+     * Resolves one resource and reports it to the sink.
+     */
+    @FunctionalInterface
+    protected interface ResourceResolver<R extends Resource> {
+        void resolve(String resource, ResourceSink<R> sink) throws Exception;
+    }
+
+    private static class BufferingResourceSink<R extends Resource> implements ResourceSink<R> {
+        private final String resource;
+        private final List<Consumer<ResourceSink<R>>> events = new ArrayList<>();
+        private Exception failure;
+
+        private BufferingResourceSink(String resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public void onResource(R resource) {
+            events.add(sink -> sink.onResource(resource));
+        }
+
+        @Override
+        public void onDetail(String resource, String detail) {
+            events.add(sink -> sink.onDetail(resource, detail));
+        }
+
+        @Override
+        public void onMissing(String resource, String detail) {
+            events.add(sink -> sink.onMissing(resource, detail));
+        }
+
+        private void replay(ResourceSink<R> sink, Map<String, Exception> failures) {
+            if (failure != null) {
+                // events of a resource that failed halfway are dropped
+                failures.put(resource, failure);
+                return;
+            }
+            events.forEach(event -> event.accept(sink));
+        }
+    }
 }
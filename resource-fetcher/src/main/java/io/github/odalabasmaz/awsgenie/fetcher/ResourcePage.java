@@ -0,0 +1,31 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import java.util.List;
+
+/**
+ * One page of a resource listing.
+ */
+public class ResourcePage {
+    private final List<String> resources;
+    private final String nextMarker;
+
+    /**
+     * @param nextMarker marker of the next page, null on the last page
+     */
+    public ResourcePage(List<String> resources, String nextMarker) {
+        this.resources = resources;
+        this.nextMarker = nextMarker;
+    }
+
+    public List<String> getResources() {
+        return resources;
+    }
+
+    public String getNextMarker() {
+        return nextMarker;
+    }
+
+    public boolean isLast() {
+        return nextMarker == null;
+    }
+}
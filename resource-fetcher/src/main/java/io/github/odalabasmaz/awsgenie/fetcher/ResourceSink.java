@@ -0,0 +1,33 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+/**
+ * Receives the results of {@link ResourceFetcher#fetchResourcesTo(String, java.util.List, ResourceSink)} one by one.
+ * <p>
+ * Callbacks are made on the fetching thread, one at a time; the fetcher does not resolve the next resource
+ * until the sink returns, so a slow sink slows the fetcher down instead of piling up results. An exception
+ * thrown by the sink stops the fetch.
+ */
+public interface ResourceSink<R extends Resource> {
+
+    void onResource(R resource);
+
+    /**
+     * @param resource name of the requested resource, or null when the fetcher did not tell
+     * @param detail   human-readable summary of the resource and what depends on it
+     */
+    default void onDetail(String resource, String detail) {
+    }
+
+    /**
+     * @param resource name of the requested resource that does not exist
+     * @param detail   human-readable message for reports
+     */
+    default void onMissing(String resource, String detail) {
+    }
+
+    /**
+     * Called once after the last resource.
+     */
+    default void onComplete() {
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * Result of one {@link ScanTarget}. A target that failed carries the error instead of a result, the other
+ * targets are not affected.
+ */
+public class ScanResult<T> {
+    private final ScanTarget target;
+    private final T result;
+    private final List<String> details;
+    private final Exception error;
+
+    public static <T> ScanResult<T> success(ScanTarget target, T result, List<String> details) {
+        return new ScanResult<>(target, result, details, null);
+    }
+
+    public static <T> ScanResult<T> failure(ScanTarget target, Exception error, List<String> details) {
+        return new ScanResult<>(target, null, details, error);
+    }
+
+    private ScanResult(ScanTarget target, T result, List<String> details, Exception error) {
+        this.target = target;
+        this.result = result;
+        this.details = details;
+        this.error = error;
+    }
+
+    public ScanTarget getTarget() {
+        return target;
+    }
+
+    public String getAccountId() {
+        return target.getAccountId();
+    }
+
+    public String getRegion() {
+        return target.getRegion();
+    }
+
+    public T getResult() {
+        return result;
+    }
+
+    public List<String> getDetails() {
+        return details;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("target", target)
+                .append("result", result)
+                .append("details", details)
+                .append("error", error)
+                .toString();
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import com.amazonaws.arn.Arn;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Objects;
+
+/**
+ * One account and region to scan. The account is taken from the role ARN; without a role the default
+ * credentials are used and the account is {@value #DEFAULT_ACCOUNT}.
+ */
+public class ScanTarget {
+    public static final String DEFAULT_ACCOUNT = "default";
+
+    private final String roleArn;
+    private final String region;
+    private final String accountId;
+
+    public ScanTarget(String roleArn, String region) {
+        this.roleArn = StringUtils.trimToNull(roleArn);
+        this.region = region;
+        this.accountId = this.roleArn == null ? DEFAULT_ACCOUNT : Arn.fromString(this.roleArn).getAccountId();
+    }
+
+    public String getRoleArn() {
+        return roleArn;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScanTarget that = (ScanTarget) o;
+        return Objects.equals(roleArn, that.roleArn) && Objects.equals(region, that.region);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(roleArn, region);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("accountId", accountId)
+                .append("region", region)
+                .append("roleArn", roleArn)
+                .toString();
+    }
+}
@@ -1,26 +1,60 @@
 package io.github.odalabasmaz.awsgenie.fetcher;
 
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum Service {
     CLOUDFRONT("cloudfront"),
-    CLOUDWATCH("cloudwatch"),
-    DYNAMODB("dynamodb"),
-    IAM_ROLE("iam-role"),
-    IAM_POLICY("iam-policy"),
-    KINESIS("kinesis"),
-    LAMBDA("lambda"),
-    SNS("sns"),
-    SQS("sqs");
+    CLOUDWATCH("cloudwatch", AWSClientType.CLOUDWATCH),
+    DYNAMODB("dynamodb", AWSClientType.DYNAMODB, AWSClientType.CLOUDWATCH, AWSClientType.LAMBDA),
+    IAM_ROLE("iam-role", AWSClientType.IAM),
+    IAM_POLICY("iam-policy", AWSClientType.IAM),
+    KINESIS("kinesis", AWSClientType.KINESIS, AWSClientType.CLOUDWATCH, AWSClientType.LAMBDA),
+    LAMBDA("lambda", AWSClientType.LAMBDA, AWSClientType.CLOUDWATCH, AWSClientType.CLOUDWATCH_EVENTS, AWSClientType.SNS),
+    SNS("sns", AWSClientType.SNS, AWSClientType.CLOUDWATCH),
+    SQS("sqs", AWSClientType.SQS, AWSClientType.CLOUDWATCH, AWSClientType.LAMBDA, AWSClientType.SNS);
 
     private String value;
+    private Set<AWSClientType> clientTypes;
+    private AWSClientType primaryClientType;
 
-    Service(String value) {
+    Service(String value, AWSClientType... clientTypes) {
         this.value = value;
+        this.primaryClientType = clientTypes.length == 0 ? null : clientTypes[0];
+        this.clientTypes = clientTypes.length == 0
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(clientTypes)));
     }
 
     public String getValue() {
         return value;
     }
 
+    /**
+     * SDK clients the fetcher and terminator of this service work with.
+     */
+    public Set<AWSClientType> getClientTypes() {
+        return clientTypes;
+    }
+
+    /**
+     * Client of the service's own API, the others are used to find its dependencies and usage.
+     */
+    public AWSClientType getPrimaryClientType() {
+        return primaryClientType;
+    }
+
+    /**
+     * Global services have the same resources in every region, so they are scanned in one region only.
+     */
+    public boolean isGlobal() {
+        return this == CLOUDFRONT || this == IAM_ROLE || this == IAM_POLICY;
+    }
+
     public static Service fromValue(String value) {
         for (Service s : Service.values()) {
             if (s.getValue().equals(value)) {
@@ -0,0 +1,124 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cache;
+
+import io.github.odalabasmaz.awsgenie.fetcher.*;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Answers usage lookups from a {@link UsageCache} and delegates everything else to the wrapped fetcher.
+ * <p>
+ * When {@code revalidateUnused} is set, a cached usage that would let a resource be deleted is fetched again,
+ * so a destructive run never acts on a stale "not in use". Cached usages that keep a resource are trusted.
+ * <p>
+ * Usages are cached per account of the credentials in use, so runs with other default credentials or profiles
+ * never share entries.
+ */
+public class CachingResourceFetcher<R extends Resource> implements ResourceFetcher<R> {
+    private final ResourceFetcher<R> delegate;
+    private final Service service;
+    private final Supplier<String> accountIdSupplier;
+    private final UsageCache usageCache;
+    private final boolean revalidateUnused;
+    private volatile String accountId;
+
+    public CachingResourceFetcher(ResourceFetcher<R> delegate, Service service, ResourceFetcherConfiguration configuration,
+                                  UsageCache usageCache, boolean revalidateUnused) {
+        this(delegate, service, () -> AWSClientProvider.getInstance(configuration).getAccountId(), usageCache, revalidateUnused);
+    }
+
+    CachingResourceFetcher(ResourceFetcher<R> delegate, Service service, Supplier<String> accountIdSupplier,
+                           UsageCache usageCache, boolean revalidateUnused) {
+        this.delegate = delegate;
+        this.service = service;
+        this.accountIdSupplier = accountIdSupplier;
+        this.usageCache = usageCache;
+        this.revalidateUnused = revalidateUnused;
+    }
+
+    @Override
+    public Set<R> fetchResources(String region, List<String> resources, List<String> details) throws Exception {
+        return delegate.fetchResources(region, resources, details);
+    }
+
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<R> sink) throws Exception {
+        delegate.fetchResourcesTo(region, resources, sink);
+    }
+
+    @Override
+    public void listResources(String region, Consumer<List<String>> consumer) throws Exception {
+        delegate.listResources(region, consumer);
+    }
+
+    @Override
+    public ResourcePage listResourcePage(String region, String marker) {
+        return delegate.listResourcePage(region, marker);
+    }
+
+    @Override
+    public Object getUsage(String region, String resource, int lastDays) {
+        String key = UsageCache.key(getAccountId(), region, service, resource, lastDays);
+        UsageCache.CachedUsage cached = usageCache.get(key, usage -> isTrusted(usage, lastDays));
+        if (cached != null) {
+            return cached.getUsage();
+        }
+        Object usage = delegate.getUsage(region, resource, lastDays);
+        usageCache.put(key, usage);
+        return usage;
+    }
+
+    @Override
+    public Map<String, Object> getUsage(String region, List<String> resources, int lastDays) {
+        Map<String, Object> usages = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String resource : resources) {
+            UsageCache.CachedUsage cached = usageCache.get(UsageCache.key(getAccountId(), region, service, resource, lastDays),
+                    usage -> isTrusted(usage, lastDays));
+            if (cached != null) {
+                usages.put(resource, cached.getUsage());
+            } else {
+                missing.add(resource);
+            }
+        }
+        if (!missing.isEmpty()) {
+            delegate.getUsage(region, missing, lastDays).forEach((resource, usage) -> {
+                usageCache.put(UsageCache.key(getAccountId(), region, service, resource, lastDays), usage);
+                usages.put(resource, usage);
+            });
+        }
+
+        Map<String, Object> orderedUsages = new LinkedHashMap<>();
+        resources.forEach(resource -> orderedUsages.put(resource, usages.get(resource)));
+        return orderedUsages;
+    }
+
+    /**
+     * Resolved on first use, a caller identity lookup when no role is assumed.
+     */
+    private String getAccountId() {
+        if (accountId == null) {
+            accountId = accountIdSupplier.get();
+        }
+        return accountId;
+    }
+
+    private boolean isTrusted(Object usage, int lastDays) {
+        return !revalidateUnused || !isUnused(usage, lastDays);
+    }
+
+    /**
+     * Usage is a sum of metric values for CloudWatch backed fetchers and the last used date for IAM ones.
+     */
+    static boolean isUnused(Object usage, int lastDays) {
+        if (usage instanceof Number) {
+            return ((Number) usage).doubleValue() <= 0;
+        } else if (usage instanceof Date) {
+            return ((Date) usage).getTime() < System.currentTimeMillis() - TimeUnit.DAYS.toMillis(lastDays);
+        }
+        return true;
+    }
+}
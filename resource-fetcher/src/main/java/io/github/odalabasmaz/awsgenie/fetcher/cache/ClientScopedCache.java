@@ -0,0 +1,66 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cache;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * One value per SDK client, loaded by the first caller and loaded again once it is older than {@code ttlMillis}.
+ * <p>
+ * A client is bound to one role and region, so the value is scoped to them as well. Clients are weakly referenced
+ * and their values are dropped with them. Callers of the same client wait for a running load instead of starting
+ * their own, callers of other clients do not.
+ *
+ * @param <C> the client type
+ * @param <V> the cached value
+ */
+public final class ClientScopedCache<C, V> {
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final long ttlMillis;
+    private final Function<C, V> loader;
+    private final Map<C, Entry> entries = new WeakHashMap<>();
+
+    public ClientScopedCache(Function<C, V> loader) {
+        this(DEFAULT_TTL_MILLIS, loader);
+    }
+
+    public ClientScopedCache(long ttlMillis, Function<C, V> loader) {
+        this.ttlMillis = ttlMillis;
+        this.loader = loader;
+    }
+
+    /**
+     * @param resourceCount       number of resources the fetcher is about to resolve
+     * @param bulkLookupThreshold resource count from which values are loaded in bulk, 0 or less never loads them
+     * @return whether a run of that many resources should use the cached value instead of per-resource lookups
+     */
+    public static boolean isBulkLookup(int resourceCount, int bulkLookupThreshold) {
+        return bulkLookupThreshold > 0 && resourceCount >= bulkLookupThreshold;
+    }
+
+    /**
+     * @return the value of the client, loaded when there is none or it has expired
+     */
+    public V get(C client) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(client, c -> new Entry());
+        }
+        return entry.get(client);
+    }
+
+    private final class Entry {
+        private V value;
+        private long loadedAt;
+
+        synchronized V get(C client) {
+            if (value == null || loadedAt + ttlMillis <= System.currentTimeMillis()) {
+                value = loader.apply(client);
+                loadedAt = System.currentTimeMillis();
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cache;
+
+import io.github.odalabasmaz.awsgenie.fetcher.Service;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Usage lookups of resources, kept for a limited time so a dry run and the following apply run do not repeat
+ * the same CloudWatch and IAM calls.
+ * <p>
+ * Entries are keyed by account, region, service, resource and usage window, and evicted least recently used
+ * first once {@code maxEntries} is reached. When a file is given, entries are loaded from it on creation and
+ * written back by {@link #save()}, so a following CLI process can reuse them.
+ */
+public class UsageCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final Logger LOGGER = LogManager.getLogger(UsageCache.class);
+    private static final String KEY_SEPARATOR = "\u001F";
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte NO_USAGE = 0;
+    private static final byte NUMBER_USAGE = 1;
+    private static final byte DATE_USAGE = 2;
+
+    private final long ttlMillis;
+    private final Path file;
+    private final Map<String, CachedUsage> entries;
+    private long hits;
+    private long misses;
+    private long revalidations;
+
+    public UsageCache(long ttlMillis) {
+        this(ttlMillis, DEFAULT_MAX_ENTRIES, null);
+    }
+
+    /**
+     * @param file to load entries from and save them to, null to keep them in memory only
+     */
+    public UsageCache(long ttlMillis, int maxEntries, String file) {
+        this.ttlMillis = ttlMillis;
+        this.file = file == null ? null : Paths.get(file);
+        this.entries = new LinkedHashMap<String, CachedUsage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUsage> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        load();
+    }
+
+    public static String key(String accountId, String region, Service service, String resource, int lastDays) {
+        return String.join(KEY_SEPARATOR, accountId, region, service.name(), resource, String.valueOf(lastDays));
+    }
+
+    /**
+     * @return cached usage, or null when there is none or it has expired
+     */
+    public CachedUsage get(String key) {
+        return get(key, usage -> true);
+    }
+
+    /**
+     * @param stillValid tells whether a cached usage can be trusted, the ones it rejects are counted as revalidations
+     * @return cached usage, or null when there is none, it has expired or it is rejected
+     */
+    public synchronized CachedUsage get(String key, Predicate<Object> stillValid) {
+        CachedUsage cached = entries.get(key);
+        if (cached != null && cached.getFetchedAt() + ttlMillis <= System.currentTimeMillis()) {
+            entries.remove(key);
+            cached = null;
+        }
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        if (!stillValid.test(cached.getUsage())) {
+            revalidations++;
+            return null;
+        }
+        hits++;
+        return cached;
+    }
+
+    public synchronized void put(String key, Object usage) {
+        entries.put(key, new CachedUsage(usage, System.currentTimeMillis()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * @return share of the lookups answered from the cache, 0 when there were none
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses + revalidations;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized String getStatistics() {
+        return String.format("hits: %d, misses: %d, revalidated: %d, hit rate: %.1f%%",
+                hits, misses, revalidations, getHitRate() * 100);
+    }
+
+    /**
+     * Writes the entries that are still valid to the cache file, if there is one.
+     */
+    public synchronized void save() {
+        if (file == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(FORMAT_VERSION);
+                List<Map.Entry<String, CachedUsage>> valid = new ArrayList<>();
+                for (Map.Entry<String, CachedUsage> entry : entries.entrySet()) {
+                    if (entry.getValue().getFetchedAt() + ttlMillis > now) {
+                        valid.add(entry);
+                    }
+                }
+                out.writeInt(valid.size());
+                for (Map.Entry<String, CachedUsage> entry : valid) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().getFetchedAt());
+                    writeUsage(out, entry.getValue().getUsage());
+                }
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "usage", null);
+            try {
+                Files.write(temp, bytes.toByteArray());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not write usage cache: " + file + ", reason: " + e);
+        }
+    }
+
+    private void load() {
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                return;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String key = in.readUTF();
+                long fetchedAt = in.readLong();
+                Object usage = readUsage(in);
+                if (fetchedAt + ttlMillis > now) {
+                    entries.put(key, new CachedUsage(usage, fetchedAt));
+                }
+            }
+            LOGGER.info("Loaded " + entries.size() + " usage(s) from cache: " + file);
+        } catch (IOException e) {
+            entries.clear();
+            LOGGER.warn("Ignoring unreadable usage cache: " + file + ", reason: " + e);
+        }
+    }
+
+    private static void writeUsage(DataOutputStream out, Object usage) throws IOException {
+        if (usage instanceof Number) {
+            out.writeByte(NUMBER_USAGE);
+            out.writeDouble(((Number) usage).doubleValue());
+        } else if (usage instanceof Date) {
+            out.writeByte(DATE_USAGE);
+            out.writeLong(((Date) usage).getTime());
+        } else {
+            out.writeByte(NO_USAGE);
+        }
+    }
+
+    private static Object readUsage(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == NUMBER_USAGE) {
+            return in.readDouble();
+        } else if (type == DATE_USAGE) {
+            return new Date(in.readLong());
+        } else if (type == NO_USAGE) {
+            return null;
+        }
+        throw new IOException("Unknown usage type: " + type);
+    }
+
+    public static final class CachedUsage {
+        private final Object usage;
+        private final long fetchedAt;
+
+        CachedUsage(Object usage, long fetchedAt) {
+            this.usage = usage;
+            this.fetchedAt = fetchedAt;
+        }
+
+        /**
+         * @return usage as returned by the fetcher: a Double for CloudWatch metrics, a Date or null for IAM
+         */
+        public Object getUsage() {
+            return usage;
+        }
+
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+    }
+}
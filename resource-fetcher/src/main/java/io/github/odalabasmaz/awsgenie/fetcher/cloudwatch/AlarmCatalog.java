@@ -0,0 +1,84 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cloudwatch;
+
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.DescribeAlarmsRequest;
+import com.amazonaws.services.cloudwatch.model.DescribeAlarmsResult;
+import com.amazonaws.services.cloudwatch.model.MetricAlarm;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.ClientScopedCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Finds the CloudWatch alarms whose names start with a prefix, the way fetchers find the alarms of a resource.
+ * <p>
+ * Large runs share the sorted alarm names of each CloudWatch client, so a prefix is a binary search instead of a
+ * {@code DescribeAlarms} call. Small runs describe the alarms of each prefix.
+ */
+public final class AlarmCatalog {
+    private static final Logger LOGGER = LogManager.getLogger(AlarmCatalog.class);
+    private static final ClientScopedCache<AmazonCloudWatch, AlarmCatalog> CATALOGS = new ClientScopedCache<>(AlarmCatalog::load);
+
+    private final AmazonCloudWatch cloudWatchClient;
+    private final String[] sortedAlarmNames;
+
+    private AlarmCatalog(AmazonCloudWatch cloudWatchClient, String[] sortedAlarmNames) {
+        this.cloudWatchClient = cloudWatchClient;
+        this.sortedAlarmNames = sortedAlarmNames;
+    }
+
+    /**
+     * @param resourceCount       number of resources the fetcher is about to resolve
+     * @param bulkLookupThreshold resource count from which all alarms are loaded, 0 or less never loads them
+     * @return the loaded catalog of the client for large runs, a catalog describing each prefix otherwise
+     */
+    public static AlarmCatalog of(AmazonCloudWatch cloudWatchClient, int resourceCount, int bulkLookupThreshold) {
+        if (!ClientScopedCache.isBulkLookup(resourceCount, bulkLookupThreshold)) {
+            return new AlarmCatalog(cloudWatchClient, null);
+        }
+        return CATALOGS.get(cloudWatchClient);
+    }
+
+    /**
+     * @return names of the alarms starting with the prefix, in name order
+     */
+    public List<String> findAlarms(String prefix) {
+        if (sortedAlarmNames == null) {
+            return describeAlarms(cloudWatchClient, prefix);
+        }
+        int from = Arrays.binarySearch(sortedAlarmNames, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        List<String> alarmNames = new ArrayList<>();
+        for (int i = from; i < sortedAlarmNames.length && sortedAlarmNames[i].startsWith(prefix); i++) {
+            alarmNames.add(sortedAlarmNames[i]);
+        }
+        return alarmNames;
+    }
+
+    public boolean isLoaded() {
+        return sortedAlarmNames != null;
+    }
+
+    static AlarmCatalog load(AmazonCloudWatch cloudWatchClient) {
+        long start = System.currentTimeMillis();
+        String[] alarmNames = describeAlarms(cloudWatchClient, null).toArray(new String[0]);
+        Arrays.sort(alarmNames);
+        LOGGER.info("Loaded " + alarmNames.length + " cw alarm(s) in " + (System.currentTimeMillis() - start) + " ms");
+        return new AlarmCatalog(cloudWatchClient, alarmNames);
+    }
+
+    private static List<String> describeAlarms(AmazonCloudWatch cloudWatchClient, String prefix) {
+        List<String> alarmNames = new ArrayList<>();
+        String nextToken = null;
+        do {
+            DescribeAlarmsResult result = cloudWatchClient.describeAlarms(
+                    new DescribeAlarmsRequest().withAlarmNamePrefix(prefix).withNextToken(nextToken));
+            result.getMetricAlarms().stream().map(MetricAlarm::getAlarmName).forEach(alarmNames::add);
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return alarmNames;
+    }
+}
@@ -4,11 +4,15 @@ import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
 import com.amazonaws.services.cloudwatch.model.DescribeAlarmsRequest;
 import com.amazonaws.services.cloudwatch.model.DescribeAlarmsResult;
 import com.amazonaws.services.cloudwatch.model.MetricAlarm;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -30,39 +34,47 @@ public class CloudWatchResourceFetcher extends ResourceFetcherWithProvider imple
 
     @Override
     public Set<CloudWatchResource> fetchResources(String region, List<String> resources, List<String> details) {
-        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        CollectingResourceSink<CloudWatchResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
 
-        // Resources to be removed
-        LinkedHashSet<String> cloudwatchAlarmsToDelete = new LinkedHashSet<>();
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<CloudWatchResource> sink) {
+        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
 
-        // gather each alarm
+        // gather each alarm, once however often it is requested
+        List<String> alarmNames = resources != null ? new ArrayList<>(new LinkedHashSet<>(resources)) : null;
+        LinkedHashSet<String> fetchedAlarmNames = new LinkedHashSet<>();
         String nextToken = null;
         do {
             DescribeAlarmsResult result = cloudWatchClient.describeAlarms(
-                    new DescribeAlarmsRequest().withAlarmNames(resources).withNextToken(nextToken));
+                    new DescribeAlarmsRequest().withAlarmNames(alarmNames).withNextToken(nextToken));
             result.getMetricAlarms()
                     .stream()
                     .map(MetricAlarm::getAlarmName)
-                    .forEach(cloudwatchAlarmsToDelete::add);
+                    .filter(fetchedAlarmNames::add)
+                    .forEach(alarmName -> sink.onResource(new CloudWatchResource().setResourceName(alarmName)));
             nextToken = result.getNextToken();
         } while (nextToken != null);
-
-        Set<CloudWatchResource> cloudWatchResourceList = new LinkedHashSet<>();
-        for (String cloudwatchAlarmToDelete : cloudwatchAlarmsToDelete) {
-            cloudWatchResourceList.add(new CloudWatchResource().setResourceName(cloudwatchAlarmToDelete));
-        }
-        return cloudWatchResourceList;
+        sink.onComplete();
     }
 
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
         AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
-        consume((nextMarker) -> {
-            DescribeAlarmsResult describeAlarmsResult = cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withNextToken(nextMarker));
-            List<String> alarmList = describeAlarmsResult.getMetricAlarms().stream().map(MetricAlarm::getAlarmName).collect(Collectors.toList());
-            consumer.accept(alarmList);
-            return describeAlarmsResult.getNextToken();
-        });
+        consumePages(nextMarker -> listPage(cloudWatchClient, nextMarker), consumer);
+    }
+
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch(), nextMarker);
+    }
+
+    private ResourcePage listPage(AmazonCloudWatch cloudWatchClient, String nextMarker) {
+        DescribeAlarmsResult describeAlarmsResult = cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withNextToken(nextMarker));
+        List<String> alarmList = describeAlarmsResult.getMetricAlarms().stream().map(MetricAlarm::getAlarmName).collect(Collectors.toList());
+        return new ResourcePage(alarmList, describeAlarmsResult.getNextToken());
     }
 }
@@ -0,0 +1,113 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cloudwatch;
+
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the usage of resources, as declared by {@link UsageMetrics}, with as few {@code GetMetricData} requests
+ * as possible.
+ * <p>
+ * The period of every query is the whole window, so each metric collapses to a single data point. Resources are
+ * packed into requests of up to {@link #MAX_QUERIES_PER_REQUEST} queries, the result pages of a request are
+ * followed through {@code NextToken}, and the values of all metrics of a resource are summed.
+ */
+public class MetricQueryEngine {
+    public static final int MAX_QUERIES_PER_REQUEST = 500;
+
+    private static final Logger LOGGER = LogManager.getLogger(MetricQueryEngine.class);
+
+    private final AmazonCloudWatch cloudWatchClient;
+
+    public MetricQueryEngine(AmazonCloudWatch cloudWatchClient) {
+        this.cloudWatchClient = cloudWatchClient;
+    }
+
+    /**
+     * @return usage of each resource in the given order, 0 for resources CloudWatch has no data point for
+     */
+    public Map<String, Double> getUsage(List<String> resources, UsageMetrics usageMetrics, int lastDays) {
+        Date endDate = new Date();
+        Date startDate = new Date(endDate.getTime() - TimeUnit.DAYS.toMillis(lastDays));
+        Integer period = ((Long) TimeUnit.DAYS.toSeconds(lastDays)).intValue();
+
+        int resourcesPerRequest = Math.max(1, MAX_QUERIES_PER_REQUEST / usageMetrics.getMetricNames().size());
+        Map<String, Double> usages = new HashMap<>();
+        for (int from = 0; from < resources.size(); from += resourcesPerRequest) {
+            List<MetricDataQuery> queries = new ArrayList<>();
+            Map<String, String> resourcesByQueryId = new HashMap<>();
+            for (int i = from; i < Math.min(from + resourcesPerRequest, resources.size()); i++) {
+                String resource = resources.get(i);
+                String dimensionValue = usageMetrics.getDimensionValue(resource);
+                for (int m = 0; m < usageMetrics.getMetricNames().size(); m++) {
+                    String id = "r" + i + "m" + (m + 1);
+                    queries.add(sumOf(id, usageMetrics, usageMetrics.getMetricNames().get(m), dimensionValue, period));
+                    resourcesByQueryId.put(id, resource);
+                }
+            }
+            request(queries, resourcesByQueryId, startDate, endDate, usages);
+        }
+
+        Map<String, Double> orderedUsages = new LinkedHashMap<>();
+        for (String resource : resources) {
+            Double usage = usages.get(resource);
+            if (usage == null) {
+                LOGGER.warn("Usage metric is not present for resource: " + resource);
+                usage = 0d;
+            }
+            orderedUsages.put(resource, usage);
+        }
+        return orderedUsages;
+    }
+
+    private void request(List<MetricDataQuery> queries, Map<String, String> resourcesByQueryId,
+                         Date startDate, Date endDate, Map<String, Double> usages) {
+        String nextToken = null;
+        do {
+            GetMetricDataResult result = cloudWatchClient.getMetricData(new GetMetricDataRequest()
+                    .withStartTime(startDate)
+                    .withEndTime(endDate)
+                    .withMetricDataQueries(queries)
+                    .withNextToken(nextToken));
+            for (MetricDataResult metricDataResult : result.getMetricDataResults()) {
+                String resource = resourcesByQueryId.get(metricDataResult.getId());
+                if (resource == null) {
+                    continue;
+                }
+                // PartialData only means the rest follows on the next page
+                if (metricDataResult.getStatusCode() != null
+                        && !StatusCode.Complete.toString().equals(metricDataResult.getStatusCode())
+                        && !StatusCode.PartialData.toString().equals(metricDataResult.getStatusCode())) {
+                    LOGGER.warn("Usage metric of resource: " + resource + " is " + metricDataResult.getStatusCode()
+                            + ", messages: " + metricDataResult.getMessages());
+                }
+                for (Double value : metricDataResult.getValues()) {
+                    usages.merge(resource, value, Double::sum);
+                }
+            }
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+    }
+
+    private static MetricDataQuery sumOf(String id, UsageMetrics usageMetrics, String metricName, String dimensionValue,
+                                         int period) {
+        return new MetricDataQuery()
+                .withId(id)
+                .withMetricStat(new MetricStat()
+                        .withStat("Sum")
+                        .withMetric(new Metric()
+                                .withMetricName(metricName)
+                                .withDimensions(new Dimension()
+                                        .withName(usageMetrics.getDimensionName())
+                                        .withValue(dimensionValue)
+                                )
+                                .withNamespace(usageMetrics.getNamespace())
+                        )
+                        .withPeriod(period)
+                );
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cloudwatch;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Declares the CloudWatch metrics that make up the usage of a resource: the sum of the given metrics of the
+ * namespace, for the dimension that names the resource.
+ */
+public final class UsageMetrics {
+    private final String namespace;
+    private final String dimensionName;
+    private final Function<String, String> dimensionValue;
+    private final List<String> metricNames;
+
+    public UsageMetrics(String namespace, String dimensionName, String... metricNames) {
+        this(namespace, dimensionName, Function.identity(), metricNames);
+    }
+
+    /**
+     * @param dimensionValue maps a resource to its dimension value, e.g. a topic ARN to the topic name
+     */
+    public UsageMetrics(String namespace, String dimensionName, Function<String, String> dimensionValue,
+                        String... metricNames) {
+        this.namespace = namespace;
+        this.dimensionName = dimensionName;
+        this.dimensionValue = dimensionValue;
+        this.metricNames = Collections.unmodifiableList(Arrays.asList(metricNames));
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getDimensionName() {
+        return dimensionName;
+    }
+
+    public String getDimensionValue(String resource) {
+        return dimensionValue.apply(resource);
+    }
+
+    public List<String> getMetricNames() {
+        return metricNames;
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.odalabasmaz.awsgenie.fetcher.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of fixed-size executors with a bounded work queue.
+ * <p>
+ * When the queue is full the submitting thread runs the task itself, which slows producers down instead of
+ * buffering an unbounded amount of work. Threads are daemons so an idle pool never keeps the JVM alive.
+ */
+public final class BoundedExecutors {
+    public static final int FETCHER_THREADS = 32;
+    public static final int FETCHER_QUEUE_CAPACITY = 1024;
+
+    private BoundedExecutors() {
+    }
+
+    /**
+     * Executor shared by the asynchronous {@link io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher} methods.
+     */
+    public static ExecutorService fetcherExecutor() {
+        return FetcherExecutorHolder.EXECUTOR;
+    }
+
+    public static ThreadPoolExecutor newBoundedExecutor(String threadNamePrefix, int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new DaemonThreadFactory(threadNamePrefix),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static ThreadFactory daemonThreadFactory(String threadNamePrefix) {
+        return new DaemonThreadFactory(threadNamePrefix);
+    }
+
+    private static final class FetcherExecutorHolder {
+        private static final ExecutorService EXECUTOR =
+                newBoundedExecutor("awsgenie-fetcher", FETCHER_THREADS, FETCHER_QUEUE_CAPACITY);
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String threadNamePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private DaemonThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
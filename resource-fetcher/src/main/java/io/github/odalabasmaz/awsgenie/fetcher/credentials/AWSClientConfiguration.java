@@ -5,4 +5,25 @@ public interface AWSClientConfiguration {
     String getAssumeRoleArn();
 
     String getRegion();
+
+    /**
+     * Optional service endpoint override, i.e. a local stub. Clients are bound to the region otherwise.
+     */
+    default String getEndpoint() {
+        return null;
+    }
+
+    /**
+     * HTTP connection pool and timeout settings of the SDK clients.
+     */
+    default ClientConfigurationProfile getClientConfigurationProfile() {
+        return ClientConfigurationProfile.defaultProfile();
+    }
+
+    /**
+     * Directory of the encrypted on-disk cache of assumed role sessions, disabled when null.
+     */
+    default String getSessionCacheDirectory() {
+        return null;
+    }
 }
@@ -1,181 +1,459 @@
 package io.github.odalabasmaz.awsgenie.fetcher.credentials;
 
+import com.amazonaws.arn.Arn;
 import com.amazonaws.auth.AWSCredentialsProvider;
-import com.amazonaws.auth.STSAssumeRoleSessionCredentialsProvider;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.client.builder.AwsAsyncClientBuilder;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.AmazonCloudWatchAsync;
+import com.amazonaws.services.cloudwatch.AmazonCloudWatchAsyncClient;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatchClient;
 import com.amazonaws.services.cloudwatchevents.AmazonCloudWatchEvents;
+import com.amazonaws.services.cloudwatchevents.AmazonCloudWatchEventsAsync;
+import com.amazonaws.services.cloudwatchevents.AmazonCloudWatchEventsAsyncClient;
 import com.amazonaws.services.cloudwatchevents.AmazonCloudWatchEventsClient;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClient;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
+import com.amazonaws.services.identitymanagement.AmazonIdentityManagementAsync;
+import com.amazonaws.services.identitymanagement.AmazonIdentityManagementAsyncClient;
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagementClient;
 import com.amazonaws.services.kinesis.AmazonKinesis;
+import com.amazonaws.services.kinesis.AmazonKinesisAsync;
+import com.amazonaws.services.kinesis.AmazonKinesisAsyncClient;
 import com.amazonaws.services.kinesis.AmazonKinesisClient;
 import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.AWSLambdaAsync;
+import com.amazonaws.services.lambda.AWSLambdaAsyncClient;
 import com.amazonaws.services.lambda.AWSLambdaClient;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
+import com.amazonaws.services.securitytoken.model.GetCallerIdentityRequest;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.AmazonSNSAsyncClient;
 import com.amazonaws.services.sns.AmazonSNSClient;
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.AmazonSQSAsyncClient;
 import com.amazonaws.services.sqs.AmazonSQSClient;
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+import io.github.odalabasmaz.awsgenie.fetcher.throttling.AdaptiveThrottlingRequestHandler;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
+/**
+ * Registry of SDK clients, one provider per (region, assumed role, endpoint, client configuration profile,
+ * session cache directory).
+ * <p>
+ * Providers and the clients they hand out are created at most once, even when many threads ask for them at the
+ * same time, so a single JVM can scan several accounts and regions concurrently. HTTP settings come from the
+ * {@link ClientConfigurationProfile} of the configuration that created the provider. Assumed role credentials
+ * are shared by all providers of the same role, see {@link CachingAssumeRoleCredentialsProvider}.
+ * <p>
+ * Async clients of all providers with the same async thread and queue settings share one bounded executor, so many
+ * requests can be in flight without a thread per request; once its queue is full the calling thread runs the
+ * request itself.
+ * <p>
+ * Unless disabled in the profile, calls are paced per account, region and operation by an
+ * {@link AdaptiveThrottlingRequestHandler}.
+ */
 public class AWSClientProvider {
 
-    private static final Map<String, AWSClientProvider> clientProviderMap = new HashMap<>();
+    private static final ConcurrentMap<ClientProviderKey, AWSClientProvider> clientProviderMap = new ConcurrentHashMap<>();
     private static final Logger LOGGER = LogManager.getLogger(AWSClientProvider.class);
-    private static final String STS_SESSION_NAME_PREFIX = "aws_resource_terminator_";
+    private static final ConcurrentMap<AssumeRoleKey, CachingAssumeRoleCredentialsProvider> assumeRoleCredentialsProviders = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Arn> callerIdentities = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<List<Integer>, ExecutorService> asyncExecutors = new ConcurrentHashMap<>();
 
     private final AWSCredentialsProvider awsCredentialsProvider;
     private final String region;
+    private final String assumeRoleArn;
+    private final String endpoint;
+    private final ClientConfigurationProfile clientConfigurationProfile;
 
-    private AmazonCloudWatchEvents amazonCloudWatchEvents;
-    private AmazonCloudWatch amazonCloudWatch;
-    private AmazonDynamoDB amazonDynamoDB;
-    private AWSLambda amazonLambda;
-    private AmazonSNS amazonSNS;
-    private AmazonSQS amazonSqs;
-    private AmazonIdentityManagement amazonIAM;
-    private AmazonKinesis amazonKinesis;
-    private AWSSecurityTokenService amazonSts;
+    private final ConcurrentMap<AWSClientType, Object> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<AWSClientType, Object> asyncClients = new ConcurrentHashMap<>();
+    private volatile Arn identityArn;
 
     public static AWSClientProvider getInstance(AWSClientConfiguration configuration) {
-        String region = configuration.getRegion();
-        if (clientProviderMap.get(region) == null) {
-            clientProviderMap.put(region, new AWSClientProvider(createAwsCredentialsProvider(configuration.getAssumeRoleArn(), region), region));
-        }
-        return clientProviderMap.get(region);
+        ClientProviderKey key = new ClientProviderKey(configuration.getRegion(), configuration.getAssumeRoleArn(),
+                configuration.getEndpoint(), configuration.getClientConfigurationProfile(), configuration.getSessionCacheDirectory());
+        return clientProviderMap.computeIfAbsent(key, k -> new AWSClientProvider(k, configuration));
     }
 
-    private AWSClientProvider(AWSCredentialsProvider awsCredentialsProvider, String region) {
-        this.awsCredentialsProvider = awsCredentialsProvider;
-        this.region = region;
+    private AWSClientProvider(ClientProviderKey key, AWSClientConfiguration configuration) {
+        this.region = key.region;
+        this.assumeRoleArn = key.assumeRoleArn;
+        this.endpoint = key.endpoint;
+        this.clientConfigurationProfile = key.clientConfigurationProfile;
+        this.awsCredentialsProvider = getAssumeRoleCredentialsProvider(assumeRoleArn, endpoint,
+                clientConfigurationProfile, key.sessionCacheDirectory);
     }
 
-    private static AWSCredentialsProvider createAwsCredentialsProvider(String assumeRoleArn, String region) {
-        AWSSecurityTokenService stsClient = AWSSecurityTokenServiceClient.builder()
-                .withRegion(region)
-                .build();
-        if (StringUtils.isNotBlank(assumeRoleArn)) {
-            STSAssumeRoleSessionCredentialsProvider credentialsProvider = new STSAssumeRoleSessionCredentialsProvider
-                    .Builder(assumeRoleArn, getSTSSessionName())
-                    .withStsClient(stsClient)
-                    .build();
-            LOGGER.info("Using assumed role: " + assumeRoleArn);
-            return credentialsProvider;
+    /**
+     * Regions share the credentials of a role, but another endpoint, client configuration profile or session cache
+     * directory gets its own. The STS client is built against the region of the role's partition, not the region of
+     * whichever provider asked first.
+     */
+    private static AWSCredentialsProvider getAssumeRoleCredentialsProvider(String assumeRoleArn, String endpoint,
+                                                                           ClientConfigurationProfile clientConfigurationProfile,
+                                                                           String sessionCacheDirectory) {
+        if (StringUtils.isBlank(assumeRoleArn)) {
+            return null;
         }
-        return null;
+        AssumeRoleKey key = new AssumeRoleKey(assumeRoleArn, endpoint, clientConfigurationProfile, sessionCacheDirectory);
+        return assumeRoleCredentialsProviders.computeIfAbsent(key, k -> {
+            String roleArn = k.assumeRoleArn;
+            String stsRegion = getStsRegion(roleArn);
+            AWSSecurityTokenServiceClientBuilder stsClientBuilder = AWSSecurityTokenServiceClient.builder();
+            if (endpoint != null) {
+                stsClientBuilder.setEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, stsRegion));
+            } else {
+                stsClientBuilder.setRegion(stsRegion);
+            }
+            if (clientConfigurationProfile != null) {
+                stsClientBuilder.setClientConfiguration(clientConfigurationProfile.toClientConfiguration(AWSClientType.STS));
+            }
+            EncryptedSessionCache sessionCache = StringUtils.isNotBlank(sessionCacheDirectory)
+                    ? new EncryptedSessionCache(sessionCacheDirectory) : null;
+            LOGGER.info("Using assumed role: " + roleArn + (sessionCache != null ? " with session cache: " + sessionCacheDirectory : ""));
+            return new CachingAssumeRoleCredentialsProvider(roleArn, stsClientBuilder.build(), sessionCache);
+        });
     }
 
-    public AWSLambda getAmazonLambda() {
-        if (amazonLambda == null) {
-            amazonLambda = AWSLambdaClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
+    static String getStsRegion(String assumeRoleArn) {
+        String partition;
+        try {
+            partition = Arn.fromString(assumeRoleArn).getPartition();
+        } catch (IllegalArgumentException e) {
+            partition = "aws";
+        }
+        switch (partition) {
+            case "aws-cn":
+                return "cn-north-1";
+            case "aws-us-gov":
+                return "us-gov-west-1";
+            default:
+                return "us-east-1";
         }
-        return amazonLambda;
     }
 
-    public AmazonIdentityManagement getAmazonIAM() {
-        if (amazonIAM == null) {
-            amazonIAM = AmazonIdentityManagementClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
+    public String getRegion() {
+        return region;
+    }
+
+    public String getAssumeRoleArn() {
+        return assumeRoleArn;
+    }
+
+    /**
+     * @return account of the assumed role, or of the default credentials when no role is assumed
+     */
+    public String getAccountId() {
+        return getIdentityArn().getAccountId();
+    }
+
+    public String getPartition() {
+        return getIdentityArn().getPartition();
+    }
+
+    /**
+     * The assumed role already names its account, so no call is made for it. Without a role the default credentials
+     * are shared by the providers of all regions, and their caller identity is looked up once per endpoint.
+     */
+    private Arn getIdentityArn() {
+        if (identityArn == null) {
+            identityArn = StringUtils.isNotBlank(assumeRoleArn) ? Arn.fromString(assumeRoleArn)
+                    : callerIdentities.computeIfAbsent(StringUtils.defaultString(endpoint), e -> Arn.fromString(
+                    getAmazonSts().getCallerIdentity(new GetCallerIdentityRequest()).getArn()));
         }
-        return amazonIAM;
+        return identityArn;
     }
 
-    public AWSSecurityTokenService getAmazonSts() {
-        if (amazonSts == null) {
-            amazonSts = AWSSecurityTokenServiceClientBuilder.standard().build();
+    /**
+     * @return account of the assumed role or the already looked up caller identity, null if neither is known
+     */
+    private String getKnownAccountId() {
+        if (identityArn != null) {
+            return identityArn.getAccountId();
+        }
+        if (StringUtils.isBlank(assumeRoleArn)) {
+            return null;
         }
-        return amazonSts;
+        try {
+            return Arn.fromString(assumeRoleArn).getAccountId();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    AWSCredentialsProvider getAwsCredentialsProvider() {
+        return awsCredentialsProvider;
+    }
+
+    public AWSLambda getAmazonLambda() {
+        return getClient(AWSClientType.LAMBDA, () -> buildClient(AWSClientType.LAMBDA, AWSLambdaClient.builder()));
+    }
+
+    public AmazonIdentityManagement getAmazonIAM() {
+        return getClient(AWSClientType.IAM, () -> buildClient(AWSClientType.IAM, AmazonIdentityManagementClient.builder()));
     }
 
+    public AWSSecurityTokenService getAmazonSts() {
+        return getClient(AWSClientType.STS, () -> buildClient(AWSClientType.STS, AWSSecurityTokenServiceClient.builder()));
+    }
 
     public AmazonSNS getAmazonSNS() {
-        if (amazonSNS == null) {
-            amazonSNS = AmazonSNSClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
-        }
-        return amazonSNS;
+        return getClient(AWSClientType.SNS, () -> buildClient(AWSClientType.SNS, AmazonSNSClient.builder()));
     }
 
     public AmazonKinesis getAmazonKinesis() {
-        if (amazonKinesis == null) {
-            amazonKinesis = AmazonKinesisClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
-        }
-        return amazonKinesis;
+        return getClient(AWSClientType.KINESIS, () -> buildClient(AWSClientType.KINESIS, AmazonKinesisClient.builder()));
     }
 
     public AmazonSQS getAmazonSQS() {
-        if (amazonSqs == null) {
-            amazonSqs = AmazonSQSClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
-        }
-        return amazonSqs;
+        return getClient(AWSClientType.SQS, () -> buildClient(AWSClientType.SQS, AmazonSQSClient.builder()));
     }
 
     public AmazonDynamoDB getAmazonDynamoDB() {
-        if (amazonDynamoDB == null) {
-            amazonDynamoDB = AmazonDynamoDBClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
-        }
-        return amazonDynamoDB;
+        return getClient(AWSClientType.DYNAMODB, () -> buildClient(AWSClientType.DYNAMODB, AmazonDynamoDBClient.builder()));
     }
 
     public AmazonCloudWatch getAmazonCloudWatch() {
-        if (amazonCloudWatch == null) {
-            amazonCloudWatch = AmazonCloudWatchClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
-        }
-        return amazonCloudWatch;
+        return getClient(AWSClientType.CLOUDWATCH, () -> buildClient(AWSClientType.CLOUDWATCH, AmazonCloudWatchClient.builder()));
     }
 
     public AmazonCloudWatchEvents getAmazonCloudWatchEvents() {
-        if (amazonCloudWatchEvents == null) {
-            amazonCloudWatchEvents = AmazonCloudWatchEventsClient
-                    .builder()
-                    .withRegion(region)
-                    .withCredentials(this.awsCredentialsProvider)
-                    .build();
+        return getClient(AWSClientType.CLOUDWATCH_EVENTS, () -> buildClient(AWSClientType.CLOUDWATCH_EVENTS, AmazonCloudWatchEventsClient.builder()));
+    }
+
+    public AWSLambdaAsync getAmazonLambdaAsync() {
+        return getAsyncClient(AWSClientType.LAMBDA, () -> buildAsyncClient(AWSClientType.LAMBDA, AWSLambdaAsyncClient.asyncBuilder()));
+    }
+
+    public AmazonIdentityManagementAsync getAmazonIAMAsync() {
+        return getAsyncClient(AWSClientType.IAM, () -> buildAsyncClient(AWSClientType.IAM, AmazonIdentityManagementAsyncClient.asyncBuilder()));
+    }
+
+    public AmazonSNSAsync getAmazonSNSAsync() {
+        return getAsyncClient(AWSClientType.SNS, () -> buildAsyncClient(AWSClientType.SNS, AmazonSNSAsyncClient.asyncBuilder()));
+    }
+
+    public AmazonKinesisAsync getAmazonKinesisAsync() {
+        return getAsyncClient(AWSClientType.KINESIS, () -> buildAsyncClient(AWSClientType.KINESIS, AmazonKinesisAsyncClient.asyncBuilder()));
+    }
+
+    public AmazonSQSAsync getAmazonSQSAsync() {
+        return getAsyncClient(AWSClientType.SQS, () -> buildAsyncClient(AWSClientType.SQS, AmazonSQSAsyncClient.asyncBuilder()));
+    }
+
+    public AmazonDynamoDBAsync getAmazonDynamoDBAsync() {
+        return getAsyncClient(AWSClientType.DYNAMODB, () -> buildAsyncClient(AWSClientType.DYNAMODB, AmazonDynamoDBAsyncClient.asyncBuilder()));
+    }
+
+    public AmazonCloudWatchAsync getAmazonCloudWatchAsync() {
+        return getAsyncClient(AWSClientType.CLOUDWATCH, () -> buildAsyncClient(AWSClientType.CLOUDWATCH, AmazonCloudWatchAsyncClient.asyncBuilder()));
+    }
+
+    public AmazonCloudWatchEventsAsync getAmazonCloudWatchEventsAsync() {
+        return getAsyncClient(AWSClientType.CLOUDWATCH_EVENTS, () -> buildAsyncClient(AWSClientType.CLOUDWATCH_EVENTS, AmazonCloudWatchEventsAsyncClient.asyncBuilder()));
+    }
+
+    /**
+     * Builds the given clients and resolves the credentials in parallel, so the first fetch does not pay for SDK
+     * class loading, endpoint resolution and credential lookups one client at a time.
+     *
+     * @return cold (first, building) and warm (cached) lookup times per client
+     */
+    public List<ClientWarmUpResult> warmUp(Collection<AWSClientType> clientTypes) {
+        if (clientTypes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ExecutorService executor = BoundedExecutors.newBoundedExecutor("awsgenie-warm-up", clientTypes.size() + 1, 1);
+        try {
+            Future<Long> credentials = executor.submit(this::resolveCredentials);
+            Map<AWSClientType, Future<Long>> coldTimings = new EnumMap<>(AWSClientType.class);
+            for (AWSClientType clientType : clientTypes) {
+                coldTimings.put(clientType, executor.submit(() -> timeClientLookup(clientType)));
+            }
+
+            List<ClientWarmUpResult> results = new ArrayList<>();
+            for (Map.Entry<AWSClientType, Future<Long>> coldTiming : coldTimings.entrySet()) {
+                ClientWarmUpResult result = new ClientWarmUpResult(coldTiming.getKey(), coldTiming.getValue().get(),
+                        timeClientLookup(coldTiming.getKey()));
+                LOGGER.info("Warmed up client: " + result);
+                results.add(result);
+            }
+            LOGGER.info("Resolved credentials in " + TimeUnit.NANOSECONDS.toMillis(credentials.get()) + " ms");
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up clients", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not warm up clients: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdown();
         }
-        return amazonCloudWatchEvents;
     }
 
-    private static String getSTSSessionName() {
-        SimpleDateFormat dateFormatter = new SimpleDateFormat("HH_mm", Locale.ENGLISH);
-        dateFormatter.setTimeZone(TimeZone.getTimeZone("GMT"));
-        String datePrefix = dateFormatter.format(new Date());
+    private long timeClientLookup(AWSClientType clientType) {
+        long start = System.nanoTime();
+        getClient(clientType);
+        return System.nanoTime() - start;
+    }
+
+    private long resolveCredentials() {
+        long start = System.nanoTime();
+        try {
+            AWSCredentialsProvider credentialsProvider = awsCredentialsProvider != null
+                    ? awsCredentialsProvider : DefaultAWSCredentialsProviderChain.getInstance();
+            credentialsProvider.getCredentials();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not resolve credentials while warming up, reason: " + e.getMessage());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private Object getClient(AWSClientType clientType) {
+        switch (clientType) {
+            case CLOUDWATCH:
+                return getAmazonCloudWatch();
+            case CLOUDWATCH_EVENTS:
+                return getAmazonCloudWatchEvents();
+            case DYNAMODB:
+                return getAmazonDynamoDB();
+            case IAM:
+                return getAmazonIAM();
+            case KINESIS:
+                return getAmazonKinesis();
+            case LAMBDA:
+                return getAmazonLambda();
+            case SNS:
+                return getAmazonSNS();
+            case SQS:
+                return getAmazonSQS();
+            case STS:
+                return getAmazonSts();
+            default:
+                throw new IllegalArgumentException("Unsupported client type: " + clientType);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getClient(AWSClientType type, Supplier<T> factory) {
+        return (T) clients.computeIfAbsent(type, t -> factory.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getAsyncClient(AWSClientType type, Supplier<T> factory) {
+        return (T) asyncClients.computeIfAbsent(type, t -> factory.get());
+    }
+
+    private <T> T buildAsyncClient(AWSClientType type, AwsAsyncClientBuilder<?, T> builder) {
+        ExecutorService executor = getAsyncExecutor(clientConfigurationProfile);
+        builder.setExecutorFactory(() -> executor);
+        return buildClient(type, builder);
+    }
 
-        return STS_SESSION_NAME_PREFIX + datePrefix;
+    static ExecutorService getAsyncExecutor(ClientConfigurationProfile clientConfigurationProfile) {
+        ClientConfigurationProfile profile = clientConfigurationProfile != null
+                ? clientConfigurationProfile : ClientConfigurationProfile.defaultProfile();
+        List<Integer> key = Arrays.asList(profile.getAsyncThreads(), profile.getAsyncQueueCapacity());
+        return asyncExecutors.computeIfAbsent(key, k -> {
+            ExecutorService executor = BoundedExecutors.newBoundedExecutor("awsgenie-async-client",
+                    profile.getAsyncThreads(), profile.getAsyncQueueCapacity());
+            LOGGER.info("Created async client executor with " + profile.getAsyncThreads() + " threads and a queue of "
+                    + profile.getAsyncQueueCapacity());
+            return executor;
+        });
+    }
+
+    private <T> T buildClient(AWSClientType type, AwsClientBuilder<?, T> builder) {
+        if (clientConfigurationProfile != null) {
+            builder.setClientConfiguration(clientConfigurationProfile.toClientConfiguration(type));
+            if (clientConfigurationProfile.isAdaptiveThrottling()) {
+                builder.setRequestHandlers(new AdaptiveThrottlingRequestHandler(getKnownAccountId(), region, type, clientConfigurationProfile));
+            }
+        }
+        if (StringUtils.isNotBlank(endpoint)) {
+            builder.setEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region));
+        } else {
+            builder.setRegion(region);
+        }
+        builder.setCredentials(awsCredentialsProvider);
+        return builder.build();
+    }
+
+    private static final class ClientProviderKey {
+        private final String region;
+        private final String assumeRoleArn;
+        private final String endpoint;
+        private final ClientConfigurationProfile clientConfigurationProfile;
+        private final String sessionCacheDirectory;
+
+        private ClientProviderKey(String region, String assumeRoleArn, String endpoint,
+                                  ClientConfigurationProfile clientConfigurationProfile, String sessionCacheDirectory) {
+            this.region = region;
+            this.assumeRoleArn = StringUtils.trimToNull(assumeRoleArn);
+            this.endpoint = StringUtils.trimToNull(endpoint);
+            // a copy, so changing the profile afterwards neither alters the clients nor the key
+            this.clientConfigurationProfile = clientConfigurationProfile != null ? clientConfigurationProfile.copy() : null;
+            this.sessionCacheDirectory = StringUtils.trimToNull(sessionCacheDirectory);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ClientProviderKey that = (ClientProviderKey) o;
+            return Objects.equals(region, that.region) && Objects.equals(assumeRoleArn, that.assumeRoleArn) && Objects.equals(endpoint, that.endpoint)
+                    && Objects.equals(clientConfigurationProfile, that.clientConfigurationProfile)
+                    && Objects.equals(sessionCacheDirectory, that.sessionCacheDirectory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(region, assumeRoleArn, endpoint, clientConfigurationProfile, sessionCacheDirectory);
+        }
+    }
+
+    private static final class AssumeRoleKey {
+        private final String assumeRoleArn;
+        private final String endpoint;
+        private final ClientConfigurationProfile clientConfigurationProfile;
+        private final String sessionCacheDirectory;
+
+        private AssumeRoleKey(String assumeRoleArn, String endpoint, ClientConfigurationProfile clientConfigurationProfile,
+                              String sessionCacheDirectory) {
+            this.assumeRoleArn = assumeRoleArn;
+            this.endpoint = endpoint;
+            this.clientConfigurationProfile = clientConfigurationProfile;
+            this.sessionCacheDirectory = StringUtils.trimToNull(sessionCacheDirectory);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            AssumeRoleKey that = (AssumeRoleKey) o;
+            return Objects.equals(assumeRoleArn, that.assumeRoleArn) && Objects.equals(endpoint, that.endpoint)
+                    && Objects.equals(clientConfigurationProfile, that.clientConfigurationProfile)
+                    && Objects.equals(sessionCacheDirectory, that.sessionCacheDirectory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(assumeRoleArn, endpoint, clientConfigurationProfile, sessionCacheDirectory);
+        }
     }
 }
@@ -0,0 +1,29 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+/**
+ * SDK clients served by {@link AWSClientProvider}.
+ */
+public enum AWSClientType {
+    CLOUDWATCH("monitoring"),
+    CLOUDWATCH_EVENTS("events"),
+    DYNAMODB("dynamodb"),
+    IAM("iam"),
+    KINESIS("kinesis"),
+    LAMBDA("lambda"),
+    SNS("sns"),
+    SQS("sqs"),
+    STS("sts");
+
+    private final String endpointPrefix;
+
+    AWSClientType(String endpointPrefix) {
+        this.endpointPrefix = endpointPrefix;
+    }
+
+    /**
+     * Service name used in the SDK's region metadata, i.e. for {@code RegionUtils.getRegionsForService}.
+     */
+    public String getEndpointPrefix() {
+        return endpointPrefix;
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.BasicSessionCredentials;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+import com.amazonaws.services.securitytoken.model.AssumeRoleRequest;
+import com.amazonaws.services.securitytoken.model.Credentials;
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Assumed role credentials shared by every region of the same role.
+ * <p>
+ * A use within {@link #REFRESH_AHEAD_MILLIS} of the expiry refreshes the session in the background, so busy
+ * callers only block on STS when there is no usable session at all. Sessions nobody uses are not refreshed.
+ * With an {@link EncryptedSessionCache} a new process starts from the session a previous run stored instead of
+ * calling AssumeRole again.
+ */
+public class CachingAssumeRoleCredentialsProvider implements AWSCredentialsProvider {
+    static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    static final long EXPIRY_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    static final long REFRESH_RETRY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final Logger LOGGER = LogManager.getLogger(CachingAssumeRoleCredentialsProvider.class);
+    private static final String STS_SESSION_NAME_PREFIX = "aws_resource_terminator_";
+    private static final ExecutorService REFRESH_EXECUTOR =
+            Executors.newSingleThreadExecutor(BoundedExecutors.daemonThreadFactory("awsgenie-sts-refresh"));
+
+    private final String roleArn;
+    private final AWSSecurityTokenService stsClient;
+    private final EncryptedSessionCache sessionCache;
+    private final long refreshRetryMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Credentials session;
+    private volatile long nextRefreshAt;
+
+    public CachingAssumeRoleCredentialsProvider(String roleArn, AWSSecurityTokenService stsClient,
+                                                EncryptedSessionCache sessionCache) {
+        this(roleArn, stsClient, sessionCache, REFRESH_RETRY_MILLIS);
+    }
+
+    CachingAssumeRoleCredentialsProvider(String roleArn, AWSSecurityTokenService stsClient,
+                                         EncryptedSessionCache sessionCache, long refreshRetryMillis) {
+        this.roleArn = roleArn;
+        this.stsClient = stsClient;
+        this.sessionCache = sessionCache;
+        this.refreshRetryMillis = refreshRetryMillis;
+    }
+
+    @Override
+    public AWSCredentials getCredentials() {
+        Credentials current = session;
+        if (current == null || expiresWithin(current, EXPIRY_MARGIN_MILLIS)) {
+            current = loadSession(false);
+        } else if (expiresWithin(current, REFRESH_AHEAD_MILLIS)) {
+            refreshAhead(current);
+        }
+        return new BasicSessionCredentials(current.getAccessKeyId(), current.getSecretAccessKey(), current.getSessionToken());
+    }
+
+    @Override
+    public void refresh() {
+        loadSession(true);
+    }
+
+    public String getRoleArn() {
+        return roleArn;
+    }
+
+    private synchronized Credentials loadSession(boolean forceAssumeRole) {
+        if (!forceAssumeRole && session != null && !expiresWithin(session, EXPIRY_MARGIN_MILLIS)) {
+            return session;
+        }
+        Credentials credentials = null;
+        if (!forceAssumeRole && sessionCache != null) {
+            credentials = sessionCache.load(roleArn, EXPIRY_MARGIN_MILLIS);
+            if (credentials != null) {
+                LOGGER.info("Reusing cached session of role: " + roleArn + ", expires at: " + credentials.getExpiration());
+            }
+        }
+        if (credentials == null) {
+            credentials = assumeRole();
+            if (sessionCache != null) {
+                sessionCache.store(roleArn, credentials);
+            }
+        }
+        session = credentials;
+        return credentials;
+    }
+
+    private Credentials assumeRole() {
+        AssumeRoleRequest request = new AssumeRoleRequest()
+                .withRoleArn(roleArn)
+                .withRoleSessionName(getSTSSessionName());
+        Credentials credentials = stsClient.assumeRole(request).getCredentials();
+        LOGGER.info("Assumed role: " + roleArn + ", session expires at: " + credentials.getExpiration());
+        return credentials;
+    }
+
+    /**
+     * Assumes the role in the background while the session is still valid. A failed refresh is tried again by a use
+     * after {@link #REFRESH_RETRY_MILLIS}, and once the session is within {@link #EXPIRY_MARGIN_MILLIS} the next use
+     * assumes the role itself.
+     */
+    private void refreshAhead(Credentials credentials) {
+        if (System.currentTimeMillis() < nextRefreshAt || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        REFRESH_EXECUTOR.execute(() -> {
+            try {
+                if (session == credentials) {
+                    loadSession(true);
+                }
+            } catch (RuntimeException e) {
+                nextRefreshAt = System.currentTimeMillis() + refreshRetryMillis;
+                LOGGER.warn("Background refresh of role: " + roleArn + " failed, retrying after " + refreshRetryMillis
+                        + " ms, reason: " + e);
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    private static boolean expiresWithin(Credentials credentials, long millis) {
+        return credentials.getExpiration().getTime() - System.currentTimeMillis() <= millis;
+    }
+
+    private static String getSTSSessionName() {
+        SimpleDateFormat dateFormatter = new SimpleDateFormat("HH_mm", Locale.ENGLISH);
+        dateFormatter.setTimeZone(TimeZone.getTimeZone("GMT"));
+        String datePrefix = dateFormatter.format(new Date());
+
+        return STS_SESSION_NAME_PREFIX + datePrefix;
+    }
+}
@@ -0,0 +1,301 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import com.amazonaws.ClientConfiguration;
+import io.github.odalabasmaz.awsgenie.fetcher.throttling.RateLimits;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP settings applied to every SDK client built by {@link AWSClientProvider}.
+ * <p>
+ * Unset values fall back to the SDK defaults. Per-client overrides only need to carry the values that differ,
+ * i.e. a larger connection pool for CloudWatch or a smaller one for IAM.
+ */
+public class ClientConfigurationProfile {
+    public static final int DEFAULT_MAX_CONNECTIONS = 128;
+    public static final long DEFAULT_CONNECTION_TTL = TimeUnit.MINUTES.toMillis(1);
+    public static final int DEFAULT_CLIENT_EXECUTION_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(2);
+    public static final int DEFAULT_ASYNC_THREADS = 64;
+    public static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1024;
+
+    private Integer maxConnections;
+    private Long connectionTTL;
+    private Boolean tcpKeepAlive;
+    private Integer connectionTimeout;
+    private Integer socketTimeout;
+    private Integer requestTimeout;
+    private Integer clientExecutionTimeout;
+    private Boolean gzip;
+    private int asyncThreads = DEFAULT_ASYNC_THREADS;
+    private int asyncQueueCapacity = DEFAULT_ASYNC_QUEUE_CAPACITY;
+    private boolean adaptiveThrottling = true;
+    private final Map<AWSClientType, Map<String, Double>> rateLimits = new EnumMap<>(AWSClientType.class);
+    private final Map<AWSClientType, ClientConfigurationProfile> overrides = new EnumMap<>(AWSClientType.class);
+
+    public static ClientConfigurationProfile defaultProfile() {
+        return new ClientConfigurationProfile()
+                .setMaxConnections(DEFAULT_MAX_CONNECTIONS)
+                .setConnectionTTL(DEFAULT_CONNECTION_TTL)
+                .setTcpKeepAlive(true)
+                .setClientExecutionTimeout(DEFAULT_CLIENT_EXECUTION_TIMEOUT);
+    }
+
+    /**
+     * @return a profile with the same settings, unaffected by later changes of this one
+     */
+    ClientConfigurationProfile copy() {
+        ClientConfigurationProfile copy = new ClientConfigurationProfile()
+                .setMaxConnections(maxConnections)
+                .setConnectionTTL(connectionTTL)
+                .setTcpKeepAlive(tcpKeepAlive)
+                .setConnectionTimeout(connectionTimeout)
+                .setSocketTimeout(socketTimeout)
+                .setRequestTimeout(requestTimeout)
+                .setClientExecutionTimeout(clientExecutionTimeout)
+                .setGzip(gzip)
+                .setAsyncThreads(asyncThreads)
+                .setAsyncQueueCapacity(asyncQueueCapacity)
+                .setAdaptiveThrottling(adaptiveThrottling);
+        rateLimits.forEach((clientType, limits) -> copy.rateLimits.put(clientType, new HashMap<>(limits)));
+        overrides.forEach((clientType, override) -> copy.overrides.put(clientType, override != null ? override.copy() : null));
+        return copy;
+    }
+
+    public ClientConfiguration toClientConfiguration(AWSClientType clientType) {
+        ClientConfiguration clientConfiguration = new ClientConfiguration();
+        applyTo(clientConfiguration);
+        ClientConfigurationProfile override = overrides.get(clientType);
+        if (override != null) {
+            override.applyTo(clientConfiguration);
+        }
+        return clientConfiguration;
+    }
+
+    private void applyTo(ClientConfiguration clientConfiguration) {
+        if (maxConnections != null) {
+            clientConfiguration.setMaxConnections(maxConnections);
+        }
+        if (connectionTTL != null) {
+            clientConfiguration.setConnectionTTL(connectionTTL);
+        }
+        if (tcpKeepAlive != null) {
+            clientConfiguration.setUseTcpKeepAlive(tcpKeepAlive);
+        }
+        if (connectionTimeout != null) {
+            clientConfiguration.setConnectionTimeout(connectionTimeout);
+        }
+        if (socketTimeout != null) {
+            clientConfiguration.setSocketTimeout(socketTimeout);
+        }
+        if (requestTimeout != null) {
+            clientConfiguration.setRequestTimeout(requestTimeout);
+        }
+        if (clientExecutionTimeout != null) {
+            clientConfiguration.setClientExecutionTimeout(clientExecutionTimeout);
+        }
+        if (gzip != null) {
+            clientConfiguration.setUseGzip(gzip);
+        }
+    }
+
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    public ClientConfigurationProfile setMaxConnections(Integer maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public Long getConnectionTTL() {
+        return connectionTTL;
+    }
+
+    /**
+     * Connection time-to-live in milliseconds.
+     */
+    public ClientConfigurationProfile setConnectionTTL(Long connectionTTL) {
+        this.connectionTTL = connectionTTL;
+        return this;
+    }
+
+    public Boolean getTcpKeepAlive() {
+        return tcpKeepAlive;
+    }
+
+    public ClientConfigurationProfile setTcpKeepAlive(Boolean tcpKeepAlive) {
+        this.tcpKeepAlive = tcpKeepAlive;
+        return this;
+    }
+
+    public Integer getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * Connection timeout in milliseconds.
+     */
+    public ClientConfigurationProfile setConnectionTimeout(Integer connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        return this;
+    }
+
+    public Integer getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     * Socket timeout in milliseconds.
+     */
+    public ClientConfigurationProfile setSocketTimeout(Integer socketTimeout) {
+        this.socketTimeout = socketTimeout;
+        return this;
+    }
+
+    public Integer getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Timeout of a single HTTP attempt in milliseconds.
+     */
+    public ClientConfigurationProfile setRequestTimeout(Integer requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+
+    public Integer getClientExecutionTimeout() {
+        return clientExecutionTimeout;
+    }
+
+    /**
+     * Timeout of a whole API call, retries included, in milliseconds.
+     */
+    public ClientConfigurationProfile setClientExecutionTimeout(Integer clientExecutionTimeout) {
+        this.clientExecutionTimeout = clientExecutionTimeout;
+        return this;
+    }
+
+    public Boolean getGzip() {
+        return gzip;
+    }
+
+    public ClientConfigurationProfile setGzip(Boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    /**
+     * Threads of the executor shared by the async clients of all profiles with the same async settings.
+     */
+    public ClientConfigurationProfile setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+        return this;
+    }
+
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    /**
+     * Requests waiting for an async client thread; callers run requests themselves once the queue is full.
+     */
+    public ClientConfigurationProfile setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+        return this;
+    }
+
+    public boolean isAdaptiveThrottling() {
+        return adaptiveThrottling;
+    }
+
+    /**
+     * Paces calls per account, region and operation and slows down on throttling,
+     * see {@link io.github.odalabasmaz.awsgenie.fetcher.throttling.AdaptiveThrottlingRequestHandler}.
+     */
+    public ClientConfigurationProfile setAdaptiveThrottling(boolean adaptiveThrottling) {
+        this.adaptiveThrottling = adaptiveThrottling;
+        return this;
+    }
+
+    public Double getRateLimit(AWSClientType clientType, String operation) {
+        Map<String, Double> limits = rateLimits.get(clientType);
+        if (limits == null) {
+            return null;
+        }
+        Double limit = limits.get(operation);
+        return limit != null ? limit : limits.get(RateLimits.ALL_OPERATIONS);
+    }
+
+    /**
+     * Replaces the built-in maximum rate, in calls per second, of an operation, or of all operations of the client
+     * with {@link RateLimits#ALL_OPERATIONS}.
+     */
+    public ClientConfigurationProfile setRateLimit(AWSClientType clientType, String operation, double callsPerSecond) {
+        this.rateLimits.computeIfAbsent(clientType, t -> new HashMap<>()).put(operation, callsPerSecond);
+        return this;
+    }
+
+    public ClientConfigurationProfile getOverride(AWSClientType clientType) {
+        return overrides.get(clientType);
+    }
+
+    public ClientConfigurationProfile setOverride(AWSClientType clientType, ClientConfigurationProfile override) {
+        this.overrides.put(clientType, override);
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClientConfigurationProfile that = (ClientConfigurationProfile) o;
+        return asyncThreads == that.asyncThreads
+                && asyncQueueCapacity == that.asyncQueueCapacity
+                && adaptiveThrottling == that.adaptiveThrottling
+                && Objects.equals(maxConnections, that.maxConnections)
+                && Objects.equals(connectionTTL, that.connectionTTL)
+                && Objects.equals(tcpKeepAlive, that.tcpKeepAlive)
+                && Objects.equals(connectionTimeout, that.connectionTimeout)
+                && Objects.equals(socketTimeout, that.socketTimeout)
+                && Objects.equals(requestTimeout, that.requestTimeout)
+                && Objects.equals(clientExecutionTimeout, that.clientExecutionTimeout)
+                && Objects.equals(gzip, that.gzip)
+                && rateLimits.equals(that.rateLimits)
+                && overrides.equals(that.overrides);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxConnections, connectionTTL, tcpKeepAlive, connectionTimeout, socketTimeout, requestTimeout,
+                clientExecutionTimeout, gzip, asyncThreads, asyncQueueCapacity, adaptiveThrottling, rateLimits, overrides);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("maxConnections", maxConnections)
+                .append("connectionTTL", connectionTTL)
+                .append("tcpKeepAlive", tcpKeepAlive)
+                .append("connectionTimeout", connectionTimeout)
+                .append("socketTimeout", socketTimeout)
+                .append("requestTimeout", requestTimeout)
+                .append("clientExecutionTimeout", clientExecutionTimeout)
+                .append("gzip", gzip)
+                .append("asyncThreads", asyncThreads)
+                .append("asyncQueueCapacity", asyncQueueCapacity)
+                .append("adaptiveThrottling", adaptiveThrottling)
+                .append("rateLimits", rateLimits)
+                .append("overrides", overrides)
+                .toString();
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time it took to get a client the first time, while it was built, and once more after it was built.
+ */
+public class ClientWarmUpResult {
+    private final AWSClientType clientType;
+    private final long coldNanos;
+    private final long warmNanos;
+
+    public ClientWarmUpResult(AWSClientType clientType, long coldNanos, long warmNanos) {
+        this.clientType = clientType;
+        this.coldNanos = coldNanos;
+        this.warmNanos = warmNanos;
+    }
+
+    public AWSClientType getClientType() {
+        return clientType;
+    }
+
+    public long getColdNanos() {
+        return coldNanos;
+    }
+
+    public long getWarmNanos() {
+        return warmNanos;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("clientType", clientType)
+                .append("coldMillis", TimeUnit.NANOSECONDS.toMillis(coldNanos))
+                .append("warmMicros", TimeUnit.NANOSECONDS.toMicros(warmNanos))
+                .toString();
+    }
+}
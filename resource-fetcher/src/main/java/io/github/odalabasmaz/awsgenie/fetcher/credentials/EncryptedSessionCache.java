@@ -0,0 +1,221 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import com.amazonaws.services.securitytoken.model.Credentials;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * On-disk cache of assumed role sessions, so consecutive CLI runs can reuse still valid credentials.
+ * <p>
+ * Every entry is encrypted with AES-GCM and bound to its role ARN. The key is derived from the
+ * {@value #PASSPHRASE_ENV} environment variable when it is set, otherwise a random key is generated into
+ * the cache directory, readable by the owner only.
+ */
+public class EncryptedSessionCache {
+    public static final String PASSPHRASE_ENV = "AWSGENIE_SESSION_CACHE_PASSPHRASE";
+
+    private static final Logger LOGGER = LogManager.getLogger(EncryptedSessionCache.class);
+    private static final String KEY_FILE_NAME = "session-cache.key";
+    private static final String ENTRY_FILE_SUFFIX = ".session";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final byte FORMAT_VERSION = 1;
+    private static final int KEY_LENGTH_BYTES = 32;
+    private static final int SALT_LENGTH_BYTES = 16;
+    private static final int IV_LENGTH_BYTES = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final int PBKDF2_ITERATIONS = 100_000;
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private final Path directory;
+    private final char[] passphrase;
+    private final SecureRandom random = new SecureRandom();
+    private volatile byte[] generatedKey;
+
+    public EncryptedSessionCache(String directory) {
+        this(Paths.get(directory), System.getenv(PASSPHRASE_ENV));
+    }
+
+    EncryptedSessionCache(Path directory, String passphrase) {
+        this.directory = directory;
+        this.passphrase = StringUtils.isEmpty(passphrase) ? null : passphrase.toCharArray();
+    }
+
+    /**
+     * @return cached credentials of the role, or null if there are none, they are unreadable, or they expire
+     * within the given margin.
+     */
+    public Credentials load(String roleArn, long expiryMarginMillis) {
+        Path entry = entryPath(roleArn);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(entry)))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] salt = new byte[SALT_LENGTH_BYTES];
+            byte[] iv = new byte[IV_LENGTH_BYTES];
+            in.readFully(salt);
+            in.readFully(iv);
+            byte[] cipherText = new byte[in.available()];
+            in.readFully(cipherText);
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey(salt), new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(roleArn.getBytes(StandardCharsets.UTF_8));
+            Credentials credentials = deserialize(cipher.doFinal(cipherText));
+
+            if (credentials.getExpiration().getTime() - System.currentTimeMillis() <= expiryMarginMillis) {
+                return null;
+            }
+            return credentials;
+        } catch (IOException | GeneralSecurityException e) {
+            LOGGER.warn("Ignoring unreadable session cache entry for role: " + roleArn + ", reason: " + e);
+            return null;
+        }
+    }
+
+    public void store(String roleArn, Credentials credentials) {
+        try {
+            createDirectory();
+            byte[] salt = new byte[SALT_LENGTH_BYTES];
+            byte[] iv = new byte[IV_LENGTH_BYTES];
+            random.nextBytes(salt);
+            random.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey(salt), new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(roleArn.getBytes(StandardCharsets.UTF_8));
+            byte[] cipherText = cipher.doFinal(serialize(credentials));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(FORMAT_VERSION);
+                out.write(salt);
+                out.write(iv);
+                out.write(cipherText);
+            }
+            writeOwnerOnly(entryPath(roleArn), bytes.toByteArray(), true);
+        } catch (IOException | GeneralSecurityException e) {
+            LOGGER.warn("Could not write session cache entry for role: " + roleArn + ", reason: " + e);
+        }
+    }
+
+    private Path entryPath(String roleArn) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(roleArn.getBytes(StandardCharsets.UTF_8));
+            StringBuilder fileName = new StringBuilder();
+            for (byte b : digest) {
+                fileName.append(String.format("%02x", b));
+            }
+            return directory.resolve(fileName.append(ENTRY_FILE_SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SecretKey secretKey(byte[] salt) throws IOException, GeneralSecurityException {
+        if (passphrase != null) {
+            PBEKeySpec keySpec = new PBEKeySpec(passphrase, salt, PBKDF2_ITERATIONS, KEY_LENGTH_BYTES * 8);
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(keySpec).getEncoded();
+            return new SecretKeySpec(key, "AES");
+        }
+        return new SecretKeySpec(generatedKey(), "AES");
+    }
+
+    private synchronized byte[] generatedKey() throws IOException {
+        if (generatedKey == null) {
+            Path keyFile = directory.resolve(KEY_FILE_NAME);
+            if (Files.isRegularFile(keyFile)) {
+                generatedKey = Files.readAllBytes(keyFile);
+            } else {
+                createDirectory();
+                byte[] key = new byte[KEY_LENGTH_BYTES];
+                random.nextBytes(key);
+                try {
+                    writeOwnerOnly(keyFile, key, false);
+                    generatedKey = key;
+                } catch (FileAlreadyExistsException e) {
+                    // another process created the key first
+                    generatedKey = Files.readAllBytes(keyFile);
+                }
+            }
+        }
+        return generatedKey;
+    }
+
+    private void createDirectory() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            setPermissions(directory, OWNER_ONLY_DIRECTORY);
+        }
+    }
+
+    private void writeOwnerOnly(Path path, byte[] content, boolean replace) throws IOException {
+        Path temp = Files.createTempFile(directory, "tmp", null);
+        try {
+            setPermissions(temp, OWNER_ONLY_FILE);
+            Files.write(temp, content);
+            if (replace) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.move(temp, path);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void setPermissions(Path path, Set<PosixFilePermission> permissions) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, permissions);
+        } catch (UnsupportedOperationException e) {
+            File file = path.toFile();
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+    }
+
+    private static byte[] serialize(Credentials credentials) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(credentials.getAccessKeyId());
+            out.writeUTF(credentials.getSecretAccessKey());
+            out.writeUTF(credentials.getSessionToken());
+            out.writeLong(credentials.getExpiration().getTime());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Credentials deserialize(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return new Credentials()
+                    .withAccessKeyId(in.readUTF())
+                    .withSecretAccessKey(in.readUTF())
+                    .withSessionToken(in.readUTF())
+                    .withExpiration(new Date(in.readLong()));
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package io.github.odalabasmaz.awsgenie.fetcher.dynamodb;
 
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
-import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
 import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.model.EventSourceMappingConfiguration;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.AlarmCatalog;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.MetricQueryEngine;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.UsageMetrics;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.lambda.EventSourceMappingIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * @author Orhun Dalabasmaz
@@ -25,6 +33,8 @@ import java.util.function.Consumer;
 
 public class DynamoDBResourceFetcher extends ResourceFetcherWithProvider implements ResourceFetcher<DynamoDBResource> {
     private static final Logger LOGGER = LogManager.getLogger(DynamoDBResourceFetcher.class);
+    private static final UsageMetrics USAGE_METRICS = new UsageMetrics("AWS/DynamoDB", "TableName",
+            "ConsumedReadCapacityUnits", "ConsumedWriteCapacityUnits");
 
     public DynamoDBResourceFetcher(ResourceFetcherConfiguration configuration) {
         super(configuration);
@@ -32,84 +42,50 @@ public class DynamoDBResourceFetcher extends ResourceFetcherWithProvider impleme
 
     @Override
     public Object getUsage(String region, String resource, int lastDays) {
-        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        return getUsage(region, Collections.singletonList(resource), lastDays).get(resource);
+    }
 
-        Date endDate = new Date();
-        Date startDate = new Date(endDate.getTime() - TimeUnit.DAYS.toMillis(lastDays));
-        Integer period = ((Long) TimeUnit.DAYS.toSeconds(lastDays)).intValue();
-
-        // check RW usages for last week
-        GetMetricDataResult result = cloudWatchClient.getMetricData(new GetMetricDataRequest()
-                .withStartTime(startDate)
-                .withEndTime(endDate)
-                .withMaxDatapoints(100)
-                .withMetricDataQueries(
-                        new MetricDataQuery()
-                                .withId("m1")
-                                .withMetricStat(new MetricStat()
-                                        .withStat("Sum")
-                                        .withMetric(new Metric()
-                                                .withMetricName("ConsumedReadCapacityUnits")
-                                                .withDimensions(new Dimension()
-                                                        .withName("TableName")
-                                                        .withValue(resource)
-                                                )
-                                                .withNamespace("AWS/DynamoDB")
-                                        )
-                                        .withPeriod(period)
-                                ),
-                        new MetricDataQuery()
-                                .withId("m2")
-                                .withMetricStat(new MetricStat()
-                                        .withStat("Sum")
-                                        .withMetric(new Metric()
-                                                .withMetricName("ConsumedWriteCapacityUnits")
-                                                .withDimensions(new Dimension()
-                                                        .withName("TableName")
-                                                        .withValue(resource)
-                                                )
-                                                .withNamespace("AWS/DynamoDB")
-                                        )
-                                        .withPeriod(period)
-                                ),
-                        new MetricDataQuery()
-                                .withId("totalUsage")
-                                .withExpression("m1+m2")
-                )
-        );
-        //double totalUsage = result.getMetricDataResults().get(0).getValues().get(0);
-        Double totalUsage = 0d;
-
-        Optional<MetricDataResult> optionalMetricDataResult = result.getMetricDataResults().stream().filter(r -> r.getId().equals("totalUsage")).findFirst();
-        if (optionalMetricDataResult.isPresent() && optionalMetricDataResult.get().getValues().size() > 0) {
-            //Double totalUsage = result.getMetricDataResults().stream().filter(r -> r.getId().equals("totalUsage")).findFirst().map(u -> u.getValues().get(0)).orElse(0.0);
-            totalUsage = optionalMetricDataResult.get().getValues().get(0);
-        } else {
-            LOGGER.warn("totalUsage metric is not present for table: " + resource);
-        }
-
-        return totalUsage;
+    @Override
+    public Map<String, Object> getUsage(String region, List<String> resources, int lastDays) {
+        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        return new LinkedHashMap<>(new MetricQueryEngine(cloudWatchClient).getUsage(resources, USAGE_METRICS, lastDays));
     }
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
-        consume((nextMarker) -> {
-            ListTablesResult listTablesResult = AWSClientProvider.getInstance(getConfiguration()).getAmazonDynamoDB().listTables(new ListTablesRequest().withExclusiveStartTableName(nextMarker));
-            consumer.accept(listTablesResult.getTableNames());
-            return listTablesResult.getLastEvaluatedTableName();
-        });
+        AmazonDynamoDB dynamoDBClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonDynamoDB();
+        consumePages(nextMarker -> listPage(dynamoDBClient, nextMarker), consumer);
+    }
+
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonDynamoDB(), nextMarker);
+    }
+
+    private ResourcePage listPage(AmazonDynamoDB dynamoDBClient, String nextMarker) {
+        ListTablesResult listTablesResult = dynamoDBClient.listTables(new ListTablesRequest().withExclusiveStartTableName(nextMarker));
+        return new ResourcePage(listTablesResult.getTableNames(), listTablesResult.getLastEvaluatedTableName());
     }
 
     @Override
     public Set<DynamoDBResource> fetchResources(String region, List<String> resources, List<String> details) {
+        CollectingResourceSink<DynamoDBResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
+
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<DynamoDBResource> sink) {
         AmazonDynamoDB dynamoDBClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonDynamoDB();
 
         AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        AWSLambda lambdaClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonLambda();
 
-        Set<DynamoDBResource> dynamoDBResourceList = new LinkedHashSet<>();
+        AlarmCatalog alarmCatalog = AlarmCatalog.of(cloudWatchClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+        EventSourceMappingIndex eventSourceMappingIndex = EventSourceMappingIndex.of(lambdaClient, resources.size(), getConfiguration().getBulkLookupThreshold());
 
         // process each dynamodb tables
-        for (String tableName : resources) {
+        resolveEach(resources, sink, (tableName, resourceSink) -> {
             try {
                 LinkedHashSet<String> cloudwatchAlarms = new LinkedHashSet<>();
 
@@ -117,23 +93,27 @@ public class DynamoDBResourceFetcher extends ResourceFetcherWithProvider impleme
                 TableDescription table = dynamoDBClient.describeTable(tableName).getTable();
                 Long itemCount = table.getItemCount();
 
+                // Lambda triggers of the table stream
+                List<String> functions = table.getLatestStreamArn() == null ? Collections.emptyList()
+                        : eventSourceMappingIndex.getByEventSourceArn(table.getLatestStreamArn()).stream()
+                        .map(EventSourceMappingConfiguration::getFunctionArn).map(arn -> arn.split(":")[6])
+                        .collect(Collectors.toList());
+
                 // Cloudwatch alarms
-                cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("DynamoDB table " + tableName + " "))
-                        .getMetricAlarms().stream().map(MetricAlarm::getAlarmName)
-                        .forEach(cloudwatchAlarms::add);
+                alarmCatalog.findAlarms("DynamoDB table " + tableName + " ").forEach(cloudwatchAlarms::add);
 
                 DynamoDBResource dynamodbResource = new DynamoDBResource().setResourceName(tableName);
                 dynamodbResource.getCloudwatchAlarmList().addAll(cloudwatchAlarms);
-                dynamoDBResourceList.add(dynamodbResource);
+                resourceSink.onResource(dynamodbResource);
 
-                details.add(String.format("Resources info for: [%s], [%s] items on table, cw alarms: %s",
-                        tableName, itemCount, cloudwatchAlarms));
+                resourceSink.onDetail(tableName, String.format("Resources info for: [%s], [%s] items on table, lambda trigger(s): %s, cw alarms: %s",
+                        tableName, itemCount, functions, cloudwatchAlarms));
 
             } catch (ResourceNotFoundException ex) {
-                details.add("!!! DynamoDB table not exists: " + tableName);
+                resourceSink.onMissing(tableName, "!!! DynamoDB table not exists: " + tableName);
                 LOGGER.warn("DynamoDB table not exists: " + tableName);
             }
-        }
-        return dynamoDBResourceList;
+        });
+        sink.onComplete();
     }
 }
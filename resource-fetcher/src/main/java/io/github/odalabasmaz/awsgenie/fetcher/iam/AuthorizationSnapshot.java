@@ -0,0 +1,138 @@
+package io.github.odalabasmaz.awsgenie.fetcher.iam;
+
+import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
+import com.amazonaws.services.identitymanagement.model.*;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.ClientScopedCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Answers the roles, with their inline policies, attached policies and instance profiles, and the customer managed
+ * policies of the account.
+ * <p>
+ * Large runs share a snapshot per IAM client taken with GetAccountAuthorizationDetails, a few calls for the whole
+ * account instead of several per role. Small runs look up each role or policy.
+ */
+public final class AuthorizationSnapshot {
+    private static final Logger LOGGER = LogManager.getLogger(AuthorizationSnapshot.class);
+    private static final ClientScopedCache<AmazonIdentityManagement, AuthorizationSnapshot> SNAPSHOTS =
+            new ClientScopedCache<>(AuthorizationSnapshot::take);
+
+    private final AmazonIdentityManagement iamClient;
+    private final Map<String, RoleDetail> rolesByName;
+    private final Set<String> policyArns;
+
+    private AuthorizationSnapshot(AmazonIdentityManagement iamClient, Map<String, RoleDetail> rolesByName,
+                                  Set<String> policyArns) {
+        this.iamClient = iamClient;
+        this.rolesByName = rolesByName;
+        this.policyArns = policyArns;
+    }
+
+    /**
+     * @param resourceCount       number of resources the fetcher is about to resolve
+     * @param bulkLookupThreshold resource count from which the account is snapshotted, 0 or less never snapshots it
+     * @return the snapshot of the client for large runs, a snapshot looking up each role or policy otherwise
+     */
+    public static AuthorizationSnapshot of(AmazonIdentityManagement iamClient, int resourceCount, int bulkLookupThreshold) {
+        if (!ClientScopedCache.isBulkLookup(resourceCount, bulkLookupThreshold)) {
+            return new AuthorizationSnapshot(iamClient, null, null);
+        }
+        return SNAPSHOTS.get(iamClient);
+    }
+
+    /**
+     * @return the role with its inline policy names, attached policies and instance profiles, null if it does not exist
+     */
+    public RoleDetail findRole(String roleName) {
+        if (rolesByName == null) {
+            return describeRole(roleName);
+        }
+        return rolesByName.get(roleName);
+    }
+
+    public boolean hasPolicy(String policyArn) {
+        if (policyArns == null) {
+            try {
+                iamClient.getPolicy(new GetPolicyRequest().withPolicyArn(policyArn));
+                return true;
+            } catch (NoSuchEntityException ex) {
+                return false;
+            }
+        }
+        return policyArns.contains(policyArn);
+    }
+
+    public boolean isTaken() {
+        return rolesByName != null;
+    }
+
+    static AuthorizationSnapshot take(AmazonIdentityManagement iamClient) {
+        long start = System.currentTimeMillis();
+        Map<String, RoleDetail> rolesByName = new HashMap<>();
+        Set<String> policyArns = new HashSet<>();
+        String marker = null;
+        do {
+            GetAccountAuthorizationDetailsResult result = iamClient.getAccountAuthorizationDetails(
+                    new GetAccountAuthorizationDetailsRequest()
+                            .withFilter(EntityType.Role, EntityType.LocalManagedPolicy)
+                            .withMarker(marker));
+            result.getRoleDetailList().forEach(role -> rolesByName.put(role.getRoleName(), role));
+            result.getPolicies().forEach(policy -> policyArns.add(policy.getArn()));
+            marker = result.getMarker();
+        } while (marker != null);
+        LOGGER.info("Took authorization snapshot of " + rolesByName.size() + " role(s) and " + policyArns.size()
+                + " policy(s) in " + (System.currentTimeMillis() - start) + " ms");
+        return new AuthorizationSnapshot(iamClient, rolesByName, policyArns);
+    }
+
+    private RoleDetail describeRole(String roleName) {
+        Role role;
+        try {
+            role = iamClient.getRole(new GetRoleRequest().withRoleName(roleName)).getRole();
+        } catch (NoSuchEntityException ex) {
+            return null;
+        }
+
+        List<PolicyDetail> inlinePolicies = new ArrayList<>();
+        list(marker -> {
+            ListRolePoliciesResult result = iamClient.listRolePolicies(new ListRolePoliciesRequest().withRoleName(roleName).withMarker(marker));
+            result.getPolicyNames().forEach(policyName -> inlinePolicies.add(new PolicyDetail().withPolicyName(policyName)));
+            return result.getMarker();
+        });
+        List<InstanceProfile> instanceProfiles = new ArrayList<>();
+        list(marker -> {
+            ListInstanceProfilesForRoleResult result = iamClient.listInstanceProfilesForRole(
+                    new ListInstanceProfilesForRoleRequest().withRoleName(roleName).withMarker(marker));
+            instanceProfiles.addAll(result.getInstanceProfiles());
+            return result.getMarker();
+        });
+        List<AttachedPolicy> attachedPolicies = new ArrayList<>();
+        list(marker -> {
+            ListAttachedRolePoliciesResult result = iamClient.listAttachedRolePolicies(
+                    new ListAttachedRolePoliciesRequest().withRoleName(roleName).withMarker(marker));
+            attachedPolicies.addAll(result.getAttachedPolicies());
+            return result.getMarker();
+        });
+
+        return new RoleDetail()
+                .withRoleName(role.getRoleName())
+                .withArn(role.getArn())
+                .withRolePolicyList(inlinePolicies)
+                .withInstanceProfileList(instanceProfiles)
+                .withAttachedManagedPolicies(attachedPolicies);
+    }
+
+    /**
+     * Calls the page function with the marker it returned last, until there is no next page.
+     */
+    private static void list(Function<String, String> page) {
+        String marker = null;
+        do {
+            marker = page.apply(marker);
+        } while (marker != null);
+    }
+}
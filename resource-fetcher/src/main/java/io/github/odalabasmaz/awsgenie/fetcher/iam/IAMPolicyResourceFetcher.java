@@ -2,11 +2,12 @@ package io.github.odalabasmaz.awsgenie.fetcher.iam;
 
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
 import com.amazonaws.services.identitymanagement.model.*;
-import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
-import com.amazonaws.services.securitytoken.model.GetCallerIdentityRequest;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,37 +45,47 @@ public class IAMPolicyResourceFetcher extends ResourceFetcherWithProvider implem
 
     @Override
     public Set<IAMPolicyResource> fetchResources(String region, List<String> resources, List<String> details) {
+        CollectingResourceSink<IAMPolicyResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
 
-        AmazonIdentityManagement iamClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM();
-        String accountId = AWSSecurityTokenServiceClientBuilder.standard().build()
-                .getCallerIdentity(new GetCallerIdentityRequest()).getAccount();
-
-        Set<IAMPolicyResource> iamPolicyResourceList = new LinkedHashSet<>();
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<IAMPolicyResource> sink) {
+        AWSClientProvider clientProvider = AWSClientProvider.getInstance(getConfiguration());
+        AmazonIdentityManagement iamClient = clientProvider.getAmazonIAM();
+        String accountId = clientProvider.getAccountId();
 
-        for (String policyName : resources) {
-            try {
-                String policyArn = generatePolicyArn(policyName, accountId);
-                Policy policy = iamClient.getPolicy(new GetPolicyRequest().withPolicyArn(policyArn)).getPolicy();
+        AuthorizationSnapshot snapshot = AuthorizationSnapshot.of(iamClient, resources.size(), getConfiguration().getBulkLookupThreshold());
 
-                IAMPolicyResource iamPolicyResource = new IAMPolicyResource().setResourceName(policy.getArn());
-                iamPolicyResourceList.add(iamPolicyResource);
-            } catch (NoSuchEntityException ex) {
-                details.add("!!! IAM Policy not exists: [" + policyName + "]");
+        resolveEach(resources, sink, (policyName, resourceSink) -> {
+            String policyArn = generatePolicyArn(policyName, accountId);
+            if (!snapshot.hasPolicy(policyArn)) {
+                resourceSink.onMissing(policyName, "!!! IAM Policy not exists: [" + policyName + "]");
                 LOGGER.warn("!!! IAM Policy not exists: [" + policyName + "]");
+                return;
             }
-        }
+            resourceSink.onResource(new IAMPolicyResource().setResourceName(policyArn));
+        });
 
-        return iamPolicyResourceList;
+        sink.onComplete();
     }
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
-        consume((nextMarker) -> {
-            ListPoliciesResult listPoliciesResult = AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM().listPolicies(new ListPoliciesRequest().withMarker(nextMarker));
-            List<String> policyList = listPoliciesResult.getPolicies().stream().map(Policy::getPolicyName).collect(Collectors.toList());
-            consumer.accept(policyList);
-            return listPoliciesResult.getMarker();
-        });
+        AmazonIdentityManagement iamClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM();
+        consumePages(nextMarker -> listPage(iamClient, nextMarker), consumer);
+    }
+
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM(), nextMarker);
+    }
+
+    private ResourcePage listPage(AmazonIdentityManagement iamClient, String nextMarker) {
+        ListPoliciesResult listPoliciesResult = iamClient.listPolicies(new ListPoliciesRequest().withMarker(nextMarker));
+        List<String> policyList = listPoliciesResult.getPolicies().stream().map(Policy::getPolicyName).collect(Collectors.toList());
+        return new ResourcePage(policyList, listPoliciesResult.getMarker());
     }
 
     public static String generatePolicyArn(String policyName, String accountId) {
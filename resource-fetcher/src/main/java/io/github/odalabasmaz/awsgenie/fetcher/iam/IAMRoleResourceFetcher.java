@@ -2,14 +2,16 @@ package io.github.odalabasmaz.awsgenie.fetcher.iam;
 
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
 import com.amazonaws.services.identitymanagement.model.*;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -38,37 +40,51 @@ public class IAMRoleResourceFetcher extends ResourceFetcherWithProvider implemen
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
-        consume((nextMarker) -> {
-            ListRolesResult listRolesResult = AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM().listRoles(new ListRolesRequest().withMarker(nextMarker));
-            List<String> roleList = listRolesResult.getRoles().stream().map(Role::getRoleName).collect(Collectors.toList());
-            consumer.accept(roleList);
-            return listRolesResult.getMarker();
-        });
+        AmazonIdentityManagement iamClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM();
+        consumePages(nextMarker -> listPage(iamClient, nextMarker), consumer);
+    }
+
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM(), nextMarker);
+    }
+
+    private ResourcePage listPage(AmazonIdentityManagement iamClient, String nextMarker) {
+        ListRolesResult listRolesResult = iamClient.listRoles(new ListRolesRequest().withMarker(nextMarker));
+        List<String> roleList = listRolesResult.getRoles().stream().map(Role::getRoleName).collect(Collectors.toList());
+        return new ResourcePage(roleList, listRolesResult.getMarker());
     }
 
     @Override
     public Set<IAMRoleResource> fetchResources(String region, List<String> resources, List<String> details) {
+        CollectingResourceSink<IAMRoleResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
+
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<IAMRoleResource> sink) {
         AmazonIdentityManagement iamClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonIAM();
 
-        Set<IAMRoleResource> iamRoleResourceList = new LinkedHashSet<>();
+        AuthorizationSnapshot snapshot = AuthorizationSnapshot.of(iamClient, resources.size(), getConfiguration().getBulkLookupThreshold());
 
-        for (String roleName : resources) {
-            try {
-                Role role = iamClient.getRole(new GetRoleRequest().withRoleName(roleName)).getRole();
-                IAMRoleResource iamRoleResource = new IAMRoleResource();
-                iamRoleResource.setResourceName(role.getRoleName());
-                iamRoleResource.addInlinePolicies(iamClient.listRolePolicies(new ListRolePoliciesRequest().withRoleName(roleName))
-                        .getPolicyNames().stream().map(p -> new IAMEntity(roleName, p)).collect(Collectors.toSet()));
-                iamRoleResource.addInstanceProfiles(iamClient.listInstanceProfilesForRole(new ListInstanceProfilesForRoleRequest().withRoleName(roleName))
-                        .getInstanceProfiles().stream().map(p -> new IAMEntity(roleName, p.getInstanceProfileName())).collect(Collectors.toSet()));
-                iamRoleResource.addAttachedPolicies(iamClient.listAttachedRolePolicies(new ListAttachedRolePoliciesRequest().withRoleName(roleName))
-                        .getAttachedPolicies().stream().map(p -> new IAMEntity(roleName, p.getPolicyArn())).collect(Collectors.toSet()));
-                iamRoleResourceList.add(iamRoleResource);
-            } catch (NoSuchEntityException ex) {
-                details.add("!!! IAM Role not exists: [" + roleName + "]");
+        resolveEach(resources, sink, (roleName, resourceSink) -> {
+            RoleDetail role = snapshot.findRole(roleName);
+            if (role == null) {
+                resourceSink.onMissing(roleName, "!!! IAM Role not exists: [" + roleName + "]");
                 LOGGER.warn("!!! IAM Role not exists: [" + roleName + "]");
+                return;
             }
-        }
-        return iamRoleResourceList;
+            IAMRoleResource iamRoleResource = new IAMRoleResource();
+            iamRoleResource.setResourceName(role.getRoleName());
+            iamRoleResource.addInlinePolicies(role.getRolePolicyList()
+                    .stream().map(p -> new IAMEntity(roleName, p.getPolicyName())).collect(Collectors.toSet()));
+            iamRoleResource.addInstanceProfiles(role.getInstanceProfileList()
+                    .stream().map(p -> new IAMEntity(roleName, p.getInstanceProfileName())).collect(Collectors.toSet()));
+            iamRoleResource.addAttachedPolicies(role.getAttachedManagedPolicies()
+                    .stream().map(p -> new IAMEntity(roleName, p.getPolicyArn())).collect(Collectors.toSet()));
+            resourceSink.onResource(iamRoleResource);
+        });
+        sink.onComplete();
     }
 }
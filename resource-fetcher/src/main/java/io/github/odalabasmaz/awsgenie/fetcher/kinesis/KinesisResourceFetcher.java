@@ -2,25 +2,30 @@ package io.github.odalabasmaz.awsgenie.fetcher.kinesis;
 
 import com.amazonaws.arn.Arn;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
-import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.services.kinesis.AmazonKinesis;
-import com.amazonaws.services.kinesis.model.DescribeStreamResult;
+import com.amazonaws.services.kinesis.model.DescribeStreamSummaryRequest;
 import com.amazonaws.services.kinesis.model.ListStreamsRequest;
 import com.amazonaws.services.kinesis.model.ListStreamsResult;
 import com.amazonaws.services.kinesis.model.ResourceNotFoundException;
+import com.amazonaws.services.kinesis.model.StreamDescriptionSummary;
 import com.amazonaws.services.lambda.AWSLambda;
-import com.amazonaws.services.lambda.model.EventSourceMappingConfiguration;
-import com.amazonaws.services.lambda.model.ListEventSourceMappingsResult;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.AlarmCatalog;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.MetricQueryEngine;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.UsageMetrics;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.lambda.EventSourceMappingIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * @author Celal Emre CICEK
@@ -29,6 +34,8 @@ import java.util.function.Consumer;
 
 public class KinesisResourceFetcher extends ResourceFetcherWithProvider implements ResourceFetcher<KinesisResource> {
     private static final Logger LOGGER = LogManager.getLogger(KinesisResourceFetcher.class);
+    private static final UsageMetrics USAGE_METRICS = new UsageMetrics("AWS/Kinesis", "StreamName",
+            "GetRecords.Bytes", "IncomingBytes");
 
     public KinesisResourceFetcher(ResourceFetcherConfiguration configuration) {
         super(configuration);
@@ -36,136 +43,82 @@ public class KinesisResourceFetcher extends ResourceFetcherWithProvider implemen
 
     @Override
     public Object getUsage(String region, String resource, int lastDays) {
-        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
-
-        Date endDate = new Date();
-        Date startDate = new Date(endDate.getTime() - TimeUnit.DAYS.toMillis(lastDays));
-        Integer period = ((Long) TimeUnit.DAYS.toSeconds(lastDays)).intValue();
-
-        // check RW usages for last week
-        GetMetricDataResult result = cloudWatchClient.getMetricData(new GetMetricDataRequest()
-                .withStartTime(startDate)
-                .withEndTime(endDate)
-                .withMaxDatapoints(100)
-                .withMetricDataQueries(
-                        new MetricDataQuery()
-                                .withId("m1")
-                                .withMetricStat(new MetricStat()
-                                        .withStat("Sum")
-                                        .withMetric(new Metric()
-                                                .withMetricName("GetRecords.Bytes")
-                                                .withDimensions(new Dimension()
-                                                        .withName("StreamName")
-                                                        .withValue(resource)
-                                                )
-                                                .withNamespace("AWS/Kinesis")
-                                        )
-                                        .withPeriod(period)
-                                ),
-                        new MetricDataQuery()
-                                .withId("m2")
-                                .withMetricStat(new MetricStat()
-                                        .withStat("Sum")
-                                        .withMetric(new Metric()
-                                                .withMetricName("IncomingBytes")
-                                                .withDimensions(new Dimension()
-                                                        .withName("StreamName")
-                                                        .withValue(resource)
-                                                )
-                                                .withNamespace("AWS/Kinesis")
-                                        )
-                                        .withPeriod(period)
-                                ),
-                        new MetricDataQuery()
-                                .withId("totalUsage")
-                                .withExpression("m1+m2")
-                )
-        );
-
-        Double totalUsage = 0d;
-        Optional<MetricDataResult> optionalMetricDataResult = result.getMetricDataResults()
-                .stream()
-                .filter(r -> r.getId().equals("totalUsage"))
-                .findFirst();
-
-        if (optionalMetricDataResult.isPresent() && optionalMetricDataResult.get().getValues().size() > 0) {
-            totalUsage = optionalMetricDataResult.get().getValues().get(0);
-        } else {
-            LOGGER.warn("totalUsage metric is not present for stream: " + resource);
-        }
+        return getUsage(region, Collections.singletonList(resource), lastDays).get(resource);
+    }
 
-        return totalUsage;
+    @Override
+    public Map<String, Object> getUsage(String region, List<String> resources, int lastDays) {
+        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        return new LinkedHashMap<>(new MetricQueryEngine(cloudWatchClient).getUsage(resources, USAGE_METRICS, lastDays));
     }
 
     @Override
     public Set<KinesisResource> fetchResources(String region, List<String> resources, List<String> details) {
+        CollectingResourceSink<KinesisResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
+
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<KinesisResource> sink) {
         AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
         AWSLambda lambdaClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonLambda();
         AmazonKinesis kinesisClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonKinesis();
 
-        Map<String, List<String>> eventSourceMappings = new LinkedHashMap<>();
-        String marker;
-
-        do {
-            ListEventSourceMappingsResult listEventSourceMappingsResult = lambdaClient.listEventSourceMappings();
-            List<EventSourceMappingConfiguration> mappings = listEventSourceMappingsResult.getEventSourceMappings();
-            mappings
-                    .stream()
-                    .filter(m -> m.getEventSourceArn().startsWith("arn:aws:kinesis"))
-                    .forEach(m -> {
-                        String streamName = getResourceFromArn(m.getEventSourceArn());
-                        String lambdaName = getResourceFromArn(m.getFunctionArn());
-                        eventSourceMappings.computeIfAbsent(streamName, k -> new LinkedList<>());
-                        eventSourceMappings.get(streamName).add(lambdaName);
-                    });
-            marker = listEventSourceMappingsResult.getNextMarker();
-        } while (marker != null);
-
-        Set<KinesisResource> kinesisResourceList = new LinkedHashSet<>();
-
-        for (String stream : resources) {
+        AlarmCatalog alarmCatalog = AlarmCatalog.of(cloudWatchClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+        EventSourceMappingIndex eventSourceMappingIndex = EventSourceMappingIndex.of(lambdaClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+
+        resolveEach(resources, sink, (stream, resourceSink) -> {
             try {
-                DescribeStreamResult describeStreamResult = kinesisClient.describeStream(stream);
-                String streamName = describeStreamResult.getStreamDescription().getStreamName();
+                // the summary leaves out the shards, which describing the whole stream would page through
+                StreamDescriptionSummary streamSummary = kinesisClient.describeStreamSummary(
+                        new DescribeStreamSummaryRequest().withStreamName(stream)).getStreamDescriptionSummary();
+                String streamName = streamSummary.getStreamName();
                 LinkedHashSet<String> cloudwatchAlarms = new LinkedHashSet<>();
 
                 // Cloudwatch alarms
-                cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("Kinesis stream " + streamName + " is"))
-                        .getMetricAlarms().stream().map(MetricAlarm::getAlarmName)
-                        .forEach(cloudwatchAlarms::add);
+                alarmCatalog.findAlarms("Kinesis stream " + streamName + " is").forEach(cloudwatchAlarms::add);
 
                 KinesisResource kinesisResource = new KinesisResource().setResourceName(streamName);
                 kinesisResource.getCloudwatchAlarmList().addAll(cloudwatchAlarms);
-                kinesisResourceList.add(kinesisResource);
+                resourceSink.onResource(kinesisResource);
 
-                List<String> lambdas = eventSourceMappings.get(streamName);
+                List<String> lambdas = eventSourceMappingIndex.getByEventSourceArn(streamSummary.getStreamARN())
+                        .stream().map(m -> getResourceFromArn(m.getFunctionArn()))
+                        .collect(Collectors.toList());
 
-                details.add(String.format("Resources info for: [%s], lambdas this stream triggers: %s, cw alarms: %s",
+                resourceSink.onDetail(stream, String.format("Resources info for: [%s], lambdas this stream triggers: %s, cw alarms: %s",
                         streamName, lambdas, cloudwatchAlarms));
 
             } catch (ResourceNotFoundException ex) {
-                details.add("!!! Kinesis stream not exists: " + stream);
+                resourceSink.onMissing(stream, "!!! Kinesis stream not exists: " + stream);
                 LOGGER.warn("Kinesis strea not exists: " + stream);
             }
-        }
+        });
 
-        return kinesisResourceList;
+        sink.onComplete();
     }
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
-        consume((nextMarker) -> {
-            ListStreamsResult listStreamsResult = AWSClientProvider.getInstance(getConfiguration()).getAmazonKinesis().listStreams(new ListStreamsRequest().withExclusiveStartStreamName(nextMarker));
-            List<String> kinesisResourceNameList = listStreamsResult.getStreamNames();
+        AmazonKinesis kinesisClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonKinesis();
+        consumePages(nextMarker -> listPage(kinesisClient, nextMarker), consumer);
+    }
+
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonKinesis(), nextMarker);
+    }
 
-            consumer.accept(kinesisResourceNameList);
+    private ResourcePage listPage(AmazonKinesis kinesisClient, String nextMarker) {
+        ListStreamsResult listStreamsResult = kinesisClient.listStreams(new ListStreamsRequest().withExclusiveStartStreamName(nextMarker));
+        List<String> kinesisResourceNameList = listStreamsResult.getStreamNames();
 
-            if (listStreamsResult.isHasMoreStreams()) {
-                return kinesisResourceNameList.get(kinesisResourceNameList.size() - 1);
-            }
+        if (listStreamsResult.isHasMoreStreams()) {
+            return new ResourcePage(kinesisResourceNameList, kinesisResourceNameList.get(kinesisResourceNameList.size() - 1));
+        }
 
-            return null;
-        });
+        return new ResourcePage(kinesisResourceNameList, null);
     }
 
     private String getResourceFromArn(String arn) {
@@ -0,0 +1,110 @@
+package io.github.odalabasmaz.awsgenie.fetcher.lambda;
+
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.model.EventSourceMappingConfiguration;
+import com.amazonaws.services.lambda.model.ListEventSourceMappingsRequest;
+import com.amazonaws.services.lambda.model.ListEventSourceMappingsResult;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.ClientScopedCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Finds the Lambda event source mappings of an event source, e.g. a queue or a stream, or of a function.
+ * <p>
+ * Large runs share an index per Lambda client of all mappings of the region by event source ARN and by function
+ * ARN. Small runs list the mappings of each event source or function.
+ */
+public final class EventSourceMappingIndex {
+    private static final Logger LOGGER = LogManager.getLogger(EventSourceMappingIndex.class);
+    private static final ClientScopedCache<AWSLambda, EventSourceMappingIndex> INDEXES =
+            new ClientScopedCache<>(EventSourceMappingIndex::build);
+
+    private final AWSLambda lambdaClient;
+    private final Map<String, List<EventSourceMappingConfiguration>> mappingsByEventSource;
+    private final Map<String, List<EventSourceMappingConfiguration>> mappingsByFunction;
+
+    private EventSourceMappingIndex(AWSLambda lambdaClient,
+                                    Map<String, List<EventSourceMappingConfiguration>> mappingsByEventSource,
+                                    Map<String, List<EventSourceMappingConfiguration>> mappingsByFunction) {
+        this.lambdaClient = lambdaClient;
+        this.mappingsByEventSource = mappingsByEventSource;
+        this.mappingsByFunction = mappingsByFunction;
+    }
+
+    /**
+     * @param resourceCount       number of resources the fetcher is about to resolve
+     * @param bulkLookupThreshold resource count from which all mappings are listed, 0 or less never lists them
+     * @return the built index of the client for large runs, an index listing each lookup otherwise
+     */
+    public static EventSourceMappingIndex of(AWSLambda lambdaClient, int resourceCount, int bulkLookupThreshold) {
+        if (!ClientScopedCache.isBulkLookup(resourceCount, bulkLookupThreshold)) {
+            return new EventSourceMappingIndex(lambdaClient, null, null);
+        }
+        return INDEXES.get(lambdaClient);
+    }
+
+    /**
+     * @return mappings reading from the event source, empty if there are none
+     */
+    public List<EventSourceMappingConfiguration> getByEventSourceArn(String eventSourceArn) {
+        if (mappingsByEventSource == null) {
+            return list(lambdaClient, marker -> new ListEventSourceMappingsRequest().withEventSourceArn(eventSourceArn).withMarker(marker));
+        }
+        return mappingsByEventSource.getOrDefault(eventSourceArn, Collections.emptyList());
+    }
+
+    /**
+     * Matches the function ARN as ListEventSourceMappings does: an unqualified ARN finds the mappings of the
+     * unqualified function only, a version or alias ARN those of that version or alias.
+     *
+     * @return mappings invoking the function, empty if there are none
+     */
+    public List<EventSourceMappingConfiguration> getByFunctionArn(String functionArn) {
+        if (mappingsByFunction == null) {
+            return list(lambdaClient, marker -> new ListEventSourceMappingsRequest().withFunctionName(functionArn).withMarker(marker));
+        }
+        return mappingsByFunction.getOrDefault(functionArn, Collections.emptyList());
+    }
+
+    public boolean isBuilt() {
+        return mappingsByEventSource != null;
+    }
+
+    static EventSourceMappingIndex build(AWSLambda lambdaClient) {
+        long start = System.currentTimeMillis();
+        List<EventSourceMappingConfiguration> mappings = list(lambdaClient, marker -> new ListEventSourceMappingsRequest().withMarker(marker));
+        Map<String, List<EventSourceMappingConfiguration>> mappingsByEventSource =
+                group(mappings, EventSourceMappingConfiguration::getEventSourceArn);
+        Map<String, List<EventSourceMappingConfiguration>> mappingsByFunction =
+                group(mappings, EventSourceMappingConfiguration::getFunctionArn);
+        LOGGER.info("Indexed " + mappings.size() + " event source mapping(s) in " + (System.currentTimeMillis() - start) + " ms");
+        return new EventSourceMappingIndex(lambdaClient, mappingsByEventSource, mappingsByFunction);
+    }
+
+    private static List<EventSourceMappingConfiguration> list(AWSLambda lambdaClient,
+                                                              Function<String, ListEventSourceMappingsRequest> request) {
+        List<EventSourceMappingConfiguration> mappings = new ArrayList<>();
+        String marker = null;
+        do {
+            ListEventSourceMappingsResult result = lambdaClient.listEventSourceMappings(request.apply(marker));
+            mappings.addAll(result.getEventSourceMappings());
+            marker = result.getNextMarker();
+        } while (marker != null);
+        return mappings;
+    }
+
+    private static Map<String, List<EventSourceMappingConfiguration>> group(
+            List<EventSourceMappingConfiguration> mappings, Function<EventSourceMappingConfiguration, String> key) {
+        Map<String, List<EventSourceMappingConfiguration>> groups = new HashMap<>();
+        for (EventSourceMappingConfiguration mapping : mappings) {
+            String value = key.apply(mapping);
+            if (value != null) {
+                groups.computeIfAbsent(value, k -> new ArrayList<>()).add(mapping);
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.odalabasmaz.awsgenie.fetcher.lambda;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the source ARNs out of a Lambda resource policy, i.e. the services allowed to invoke the function, with a
+ * streaming parser instead of building the whole policy.
+ */
+public final class LambdaPolicyParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private LambdaPolicyParser() {
+    }
+
+    /**
+     * @return the first ARN in the conditions of each statement, statements without one are skipped
+     */
+    public static List<String> getSourceArns(String policy) throws IOException {
+        List<String> sourceArns = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(policy)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return sourceArns;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("Statement".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readStatement(parser, sourceArns);
+                    }
+                } else if ("Statement".equals(field) && value == JsonToken.START_OBJECT) {
+                    readStatement(parser, sourceArns);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return sourceArns;
+    }
+
+    private static void readStatement(JsonParser parser, List<String> sourceArns) throws IOException {
+        String sourceArn = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.START_OBJECT && "Condition".equals(field)) {
+                sourceArn = readConditions(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (sourceArn != null) {
+            sourceArns.add(sourceArn);
+        }
+    }
+
+    /**
+     * Reads e.g. {"StringEquals": {"AWS:SourceAccount": "1"}, "ArnLike": {"AWS:SourceArn": "arn:..."}}.
+     */
+    private static String readConditions(JsonParser parser) throws IOException {
+        String sourceArn = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        sourceArn = firstArn(sourceArn, parser);
+                    }
+                } else {
+                    sourceArn = firstArn(sourceArn, parser);
+                }
+            }
+        }
+        return sourceArn;
+    }
+
+    private static String firstArn(String sourceArn, JsonParser parser) throws IOException {
+        if (sourceArn == null && parser.getCurrentToken() == JsonToken.VALUE_STRING && parser.getText().startsWith("arn:")) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return sourceArn;
+    }
+}
@@ -1,26 +1,24 @@
 package io.github.odalabasmaz.awsgenie.fetcher.lambda;
 
-import com.amazonaws.auth.policy.Policy;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
-import com.amazonaws.services.cloudwatch.model.DescribeAlarmsRequest;
-import com.amazonaws.services.cloudwatch.model.MetricAlarm;
 import com.amazonaws.services.cloudwatchevents.AmazonCloudWatchEvents;
-import com.amazonaws.services.cloudwatchevents.model.ListTargetsByRuleRequest;
 import com.amazonaws.services.cloudwatchevents.model.Target;
 import com.amazonaws.services.lambda.AWSLambda;
 import com.amazonaws.services.lambda.model.*;
 import com.amazonaws.services.sns.AmazonSNS;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.AlarmCatalog;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.sns.SubscriptionIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Consumer;
 
 /**
@@ -38,17 +36,32 @@ public class LambdaResourceFetcher extends ResourceFetcherWithProvider implement
 
     @Override
     public Set<LambdaResource> fetchResources(String region, List<String> resources, List<String> details) {
+        CollectingResourceSink<LambdaResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
+
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<LambdaResource> sink) {
         // check triggers (sns, sqs, dynamodb stream)
         AmazonSNS snsClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonSNS();
         AWSLambda lambdaClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonLambda();
         AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
         AmazonCloudWatchEvents cloudWatchEventsClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatchEvents();
 
-        // Resources to be removed
-        Set<LambdaResource> lambdaResourceList = new LinkedHashSet<>();
+        AlarmCatalog alarmCatalog = AlarmCatalog.of(cloudWatchClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+        RuleTargetCache ruleTargetCache = RuleTargetCache.of(cloudWatchEventsClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+        EventSourceMappingIndex eventSourceMappingIndex = EventSourceMappingIndex.of(lambdaClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+        SubscriptionIndex subscriptionIndex = SubscriptionIndex.of(snsClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+
+        // one listing of the region tells which functions exist for large runs
+        int bulkLookupThreshold = getConfiguration().getBulkLookupThreshold();
+        Map<String, String> functionArns = bulkLookupThreshold > 0 && resources.size() >= bulkLookupThreshold
+                ? listFunctionArns(lambdaClient)
+                : null;
 
         // process each lambda
-        for (String lambdaName : resources) {
+        resolveEach(resources, sink, (lambdaName, resourceSink) -> {
             LOGGER.info("Processing for lambda: [" + lambdaName + "]");
             try {
                 LinkedHashSet<String> cloudwatchAlarmsToDelete = new LinkedHashSet<>();
@@ -57,47 +70,52 @@ public class LambdaResourceFetcher extends ResourceFetcherWithProvider implement
                 LinkedHashSet<String> cloudwatchRuleTargetsToDelete = new LinkedHashSet<>();
                 LinkedHashSet<String> eventSourceMappingsToDelete = new LinkedHashSet<>();
 
-                GetFunctionResult function = lambdaClient.getFunction(new GetFunctionRequest().withFunctionName(lambdaName));
+                // the listing holds unqualified functions by name, versions and aliases are looked up
+                String functionArn = functionArns != null && !isQualified(lambdaName)
+                        ? functionArns.get(functionName(lambdaName))
+                        : lambdaClient.getFunctionConfiguration(new GetFunctionConfigurationRequest().withFunctionName(lambdaName)).getFunctionArn();
+                if (functionArn == null) {
+                    resourceSink.onMissing(lambdaName, "!!! Lambda resource not exists: " + lambdaName);
+                    LOGGER.warn("Lambda resource not exists: " + lambdaName);
+                    return;
+                }
 
                 // dynamodb triggers
-                List<EventSourceMappingConfiguration> eventSourceMappings = lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withFunctionName(lambdaName)).getEventSourceMappings();
+                List<EventSourceMappingConfiguration> eventSourceMappings = eventSourceMappingIndex.getByFunctionArn(functionArn);
                 eventSourceMappings.stream().map(EventSourceMappingConfiguration::getUUID).forEach(eventSourceMappingsToDelete::add);
 
-                // sns & cw triggers
+                // sns triggers
                 try {
-                    Policy policy = Policy.fromJson(lambdaClient.getPolicy(new GetPolicyRequest().withFunctionName(lambdaName)).getPolicy());
-                    policy.getStatements().forEach(s -> {
-                        String sourceArn = s.getConditions().get(0).getValues().get(0);
+                    String policy = lambdaClient.getPolicy(new GetPolicyRequest().withFunctionName(lambdaName)).getPolicy();
+                    for (String sourceArn : LambdaPolicyParser.getSourceArns(policy)) {
                         if (sourceArn.startsWith("arn:aws:sns:")) {
-                            snsClient.listSubscriptionsByTopic(sourceArn).getSubscriptions().stream()
-                                    .filter(subs -> subs.getEndpoint().equals(function.getConfiguration().getFunctionArn()))
-                                    .findFirst().ifPresent(subs -> snsTriggersToDelete.add(subs.getSubscriptionArn()));
-
-                        } else if (sourceArn.startsWith("arn:aws:events:")) {
-                            String ruleName = sourceArn.split("/")[1];
-                            List<Target> targets = cloudWatchEventsClient.listTargetsByRule(new ListTargetsByRuleRequest().withRule(ruleName)).getTargets();
-                            targets.stream()
-                                    .filter(t -> t.getArn().equals(function.getConfiguration().getFunctionArn()))
-                                    .forEach(t -> cloudwatchRuleTargetsToDelete.add(ruleName + ":" + t.getId()));
-                            if (targets.size() == 1) {
-                                cloudwatchRulesToDelete.add(ruleName);
-                            }
-
-                        } else {
+                            subscriptionIndex.getSubscriptions(functionArn, sourceArn)
+                                    .forEach(subs -> snsTriggersToDelete.add(subs.getSubscriptionArn()));
+
+                        } else if (!sourceArn.startsWith("arn:aws:events:")) {
                             // unexpected trigger received
                             LOGGER.warn("Unsupported trigger found: " + sourceArn);
                         }
-                    });
+                    }
                 } catch (ResourceNotFoundException ex) {
                     LOGGER.info("Lambda policy not exists: " + lambdaName);
                 } catch (Exception ex) {
                     LOGGER.warn("ex.getMessage()" + ex.getMessage());
                 }
 
+                // cw rules
+                for (String ruleName : ruleTargetCache.getRuleNames(functionArn)) {
+                    List<Target> targets = ruleTargetCache.getTargets(ruleName);
+                    targets.stream()
+                            .filter(t -> t.getArn().equals(functionArn))
+                            .forEach(t -> cloudwatchRuleTargetsToDelete.add(ruleName + ":" + t.getId()));
+                    if (targets.size() == 1) {
+                        cloudwatchRulesToDelete.add(ruleName);
+                    }
+                }
+
                 // Cloudwatch alarms
-                cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix(region + " " + lambdaName + " Lambda "))
-                        .getMetricAlarms().stream().map(MetricAlarm::getAlarmName)
-                        .forEach(cloudwatchAlarmsToDelete::add);
+                alarmCatalog.findAlarms(region + " " + lambdaName + " Lambda ").forEach(cloudwatchAlarmsToDelete::add);
                 // Add to delete list at last step if gathering the subscriptions fail
                 LambdaResource lambdaResource = new LambdaResource()
                         .setCloudwatchAlarms(cloudwatchAlarmsToDelete)
@@ -107,34 +125,79 @@ public class LambdaResourceFetcher extends ResourceFetcherWithProvider implement
                         .setEventSourceMappings(eventSourceMappingsToDelete)
                         .setResourceName(lambdaName);
 
-                lambdaResourceList.add(lambdaResource);
-                details.add(String.format("Resources info for: [%s], sns triggers: %s, event source mappings: %s, cw rules: %s, cw rule targets: %s, cw alarms: %s",
+                resourceSink.onResource(lambdaResource);
+                resourceSink.onDetail(lambdaName, String.format("Resources info for: [%s], sns triggers: %s, event source mappings: %s, cw rules: %s, cw rule targets: %s, cw alarms: %s",
                         lambdaName, snsTriggersToDelete, eventSourceMappingsToDelete, cloudwatchRulesToDelete, cloudwatchRuleTargetsToDelete, cloudwatchAlarmsToDelete));
 
                 LOGGER.info("Process successfully completed for lambda: [" + lambdaName + "]");
             } catch (ResourceNotFoundException ex) {
-                details.add("!!! Lambda resource not exists: " + lambdaName);
+                resourceSink.onMissing(lambdaName, "!!! Lambda resource not exists: " + lambdaName);
                 LOGGER.warn("Lambda resource not exists: " + lambdaName);
                 LOGGER.warn("ex.getMessage()" + ex.getMessage());
             }
-        }
+        });
 
         LOGGER.info("Succeed.");
-
-        return lambdaResourceList;
+        sink.onComplete();
     }
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
-        consume((String nextMarker) -> {
-            List<String> lambdaResourceNameList = new ArrayList<>();
-            ListFunctionsResult listFunctionsResult = AWSClientProvider.getInstance(getConfiguration()).getAmazonLambda().listFunctions(new ListFunctionsRequest().withMarker(nextMarker));
+        AWSLambda lambdaClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonLambda();
+        consumePages(nextMarker -> listPage(lambdaClient, nextMarker), consumer);
+    }
+
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonLambda(), nextMarker);
+    }
+
+    private Map<String, String> listFunctionArns(AWSLambda lambdaClient) {
+        long start = System.currentTimeMillis();
+        Map<String, String> functionArns = new HashMap<>();
+        String nextMarker = null;
+        do {
+            ListFunctionsResult listFunctionsResult = lambdaClient.listFunctions(new ListFunctionsRequest().withMarker(nextMarker));
             for (FunctionConfiguration functionConfiguration : listFunctionsResult.getFunctions()) {
-                lambdaResourceNameList.add(functionConfiguration.getFunctionName());
+                functionArns.put(functionConfiguration.getFunctionName(), functionConfiguration.getFunctionArn());
             }
+            nextMarker = listFunctionsResult.getNextMarker();
+        } while (nextMarker != null);
+        LOGGER.info("Listed " + functionArns.size() + " lambda function(s) in " + (System.currentTimeMillis() - start) + " ms");
+        return functionArns;
+    }
 
-            consumer.accept(lambdaResourceNameList);
-            return listFunctionsResult.getNextMarker();
-        });
+    /**
+     * @param function function name, partial ARN (account:function:name) or ARN, optionally with a version or alias
+     * @return the function name without version or alias
+     */
+    static String functionName(String function) {
+        String[] parts = function.split(":");
+        return parts[nameIndex(parts)];
+    }
+
+    static boolean isQualified(String function) {
+        String[] parts = function.split(":");
+        return parts.length > nameIndex(parts) + 1;
+    }
+
+    private static int nameIndex(String[] parts) {
+        if (parts.length >= 7 && "arn".equals(parts[0]) && "function".equals(parts[5])) {
+            return 6;
+        }
+        if (parts.length >= 3 && "function".equals(parts[1])) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private ResourcePage listPage(AWSLambda lambdaClient, String nextMarker) {
+        List<String> lambdaResourceNameList = new ArrayList<>();
+        ListFunctionsResult listFunctionsResult = lambdaClient.listFunctions(new ListFunctionsRequest().withMarker(nextMarker));
+        for (FunctionConfiguration functionConfiguration : listFunctionsResult.getFunctions()) {
+            lambdaResourceNameList.add(functionConfiguration.getFunctionName());
+        }
+
+        return new ResourcePage(lambdaResourceNameList, listFunctionsResult.getNextMarker());
     }
 }
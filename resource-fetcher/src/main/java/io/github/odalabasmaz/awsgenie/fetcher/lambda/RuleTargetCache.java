@@ -0,0 +1,132 @@
+package io.github.odalabasmaz.awsgenie.fetcher.lambda;
+
+import com.amazonaws.services.cloudwatchevents.AmazonCloudWatchEvents;
+import com.amazonaws.services.cloudwatchevents.model.ListRuleNamesByTargetRequest;
+import com.amazonaws.services.cloudwatchevents.model.ListRuleNamesByTargetResult;
+import com.amazonaws.services.cloudwatchevents.model.ListRulesRequest;
+import com.amazonaws.services.cloudwatchevents.model.ListRulesResult;
+import com.amazonaws.services.cloudwatchevents.model.ListTargetsByRuleRequest;
+import com.amazonaws.services.cloudwatchevents.model.ListTargetsByRuleResult;
+import com.amazonaws.services.cloudwatchevents.model.Rule;
+import com.amazonaws.services.cloudwatchevents.model.Target;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.ClientScopedCache;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Finds the EventBridge rules targeting a function and the targets of those rules. The targets of each rule are
+ * listed once per fetch, however many of the fetched functions the rule targets.
+ * <p>
+ * Large runs list the rules of the default event bus and their targets once, instead of asking for the rules of
+ * every function. Small runs ask for the rules of each function.
+ */
+public class RuleTargetCache {
+    private final AmazonCloudWatchEvents cloudWatchEventsClient;
+    private final boolean bulkLookup;
+    private final ConcurrentMap<String, FutureTask<List<Target>>> targetsByRule = new ConcurrentHashMap<>();
+    private Map<String, List<String>> ruleNamesByTarget;
+
+    public RuleTargetCache(AmazonCloudWatchEvents cloudWatchEventsClient) {
+        this(cloudWatchEventsClient, false);
+    }
+
+    private RuleTargetCache(AmazonCloudWatchEvents cloudWatchEventsClient, boolean bulkLookup) {
+        this.cloudWatchEventsClient = cloudWatchEventsClient;
+        this.bulkLookup = bulkLookup;
+    }
+
+    /**
+     * @param resourceCount       number of resources the fetcher is about to resolve
+     * @param bulkLookupThreshold resource count from which all rules are listed, 0 or less never lists them
+     */
+    public static RuleTargetCache of(AmazonCloudWatchEvents cloudWatchEventsClient, int resourceCount, int bulkLookupThreshold) {
+        return new RuleTargetCache(cloudWatchEventsClient, ClientScopedCache.isBulkLookup(resourceCount, bulkLookupThreshold));
+    }
+
+    /**
+     * @return names of the rules of the default event bus targeting the resource
+     */
+    public List<String> getRuleNames(String targetArn) {
+        if (bulkLookup) {
+            return getRuleNamesByTarget().getOrDefault(targetArn, Collections.emptyList());
+        }
+        List<String> ruleNames = new ArrayList<>();
+        String nextToken = null;
+        do {
+            ListRuleNamesByTargetResult result = cloudWatchEventsClient.listRuleNamesByTarget(
+                    new ListRuleNamesByTargetRequest().withTargetArn(targetArn).withNextToken(nextToken));
+            ruleNames.addAll(result.getRuleNames());
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return ruleNames;
+    }
+
+    /**
+     * Concurrent callers of the same rule wait for one listing, which runs outside the map so other rules are not
+     * held up by it.
+     */
+    public List<Target> getTargets(String ruleName) {
+        FutureTask<List<Target>> task = targetsByRule.get(ruleName);
+        if (task == null) {
+            FutureTask<List<Target>> newTask = new FutureTask<>(() -> listTargets(ruleName));
+            task = targetsByRule.putIfAbsent(ruleName, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing targets of rule: " + ruleName, e);
+        } catch (ExecutionException e) {
+            // a failed listing is not kept, the next caller lists the rule again
+            targetsByRule.remove(ruleName, task);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not list targets of rule: " + ruleName, e.getCause());
+        }
+    }
+
+    private synchronized Map<String, List<String>> getRuleNamesByTarget() {
+        if (ruleNamesByTarget == null) {
+            Map<String, List<String>> ruleNames = new HashMap<>();
+            for (String ruleName : listRules()) {
+                for (Target target : getTargets(ruleName)) {
+                    ruleNames.computeIfAbsent(target.getArn(), arn -> new ArrayList<>()).add(ruleName);
+                }
+            }
+            ruleNamesByTarget = ruleNames;
+        }
+        return ruleNamesByTarget;
+    }
+
+    private List<String> listRules() {
+        List<String> ruleNames = new ArrayList<>();
+        String nextToken = null;
+        do {
+            ListRulesResult result = cloudWatchEventsClient.listRules(new ListRulesRequest().withNextToken(nextToken));
+            result.getRules().stream().map(Rule::getName).forEach(ruleNames::add);
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return ruleNames;
+    }
+
+    private List<Target> listTargets(String ruleName) {
+        List<Target> targets = new ArrayList<>();
+        String nextToken = null;
+        do {
+            ListTargetsByRuleResult result = cloudWatchEventsClient.listTargetsByRule(
+                    new ListTargetsByRuleRequest().withRule(ruleName).withNextToken(nextToken));
+            targets.addAll(result.getTargets());
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return targets;
+    }
+}
@@ -2,20 +2,25 @@ package io.github.odalabasmaz.awsgenie.fetcher.sns;
 
 import com.amazonaws.arn.Arn;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
-import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.ResourceNotFoundException;
 import com.amazonaws.services.sns.model.*;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.AlarmCatalog;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.MetricQueryEngine;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.UsageMetrics;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +30,11 @@ import java.util.stream.Collectors;
 
 public class SNSResourceFetcher extends ResourceFetcherWithProvider implements ResourceFetcher<SNSResource> {
     private static final Logger LOGGER = LogManager.getLogger(SNSResourceFetcher.class);
+    private static final String WILDCARD = "*";
+    // SNS rejects other names with InvalidParameterException instead of NotFoundException
+    private static final Pattern TOPIC_NAME = Pattern.compile("[A-Za-z0-9_-]{1,256}(\\.fifo)?");
+    private static final UsageMetrics USAGE_METRICS = new UsageMetrics("AWS/SNS", "TopicName",
+            topicArn -> Arn.fromString(topicArn).getResource().getResource(), "NumberOfMessagesPublished");
 
     public SNSResourceFetcher(ResourceFetcherConfiguration configuration) {
         super(configuration);
@@ -32,73 +42,52 @@ public class SNSResourceFetcher extends ResourceFetcherWithProvider implements R
 
     @Override
     public Object getUsage(String region, String resource, int lastDays) {
-        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
-
-        Date endDate = new Date();
-        Date startDate = new Date(endDate.getTime() - TimeUnit.DAYS.toMillis(lastDays));
-        Integer period = ((Long) TimeUnit.DAYS.toSeconds(lastDays)).intValue();
-
-        String topicName = getResourceFromArn(resource);
-
-        // check usages for last week
-        GetMetricDataResult result = cloudWatchClient.getMetricData(new GetMetricDataRequest()
-                .withStartTime(startDate)
-                .withEndTime(endDate)
-                .withMaxDatapoints(100)
-                .withMetricDataQueries(
-                        new MetricDataQuery()
-                                .withId("m1")
-                                .withMetricStat(new MetricStat()
-                                        .withStat("Sum")
-                                        .withMetric(new Metric()
-                                                .withMetricName("NumberOfMessagesPublished")
-                                                .withDimensions(new Dimension()
-                                                        .withName("TopicName")
-                                                        .withValue(topicName)
-                                                )
-                                                .withNamespace("AWS/SNS")
-                                        )
-                                        .withPeriod(period)
-                                )
-                )
-        );
-
-        double totalUsage = 0;
-
-        if (result.getMetricDataResults().get(0).getValues().size() > 0) {
-            totalUsage = result.getMetricDataResults().get(0).getValues().get(0);
-        } else {
-            LOGGER.warn("No metric found for topic: [" + topicName + "]");
-        }
+        return getUsage(region, Collections.singletonList(resource), lastDays).get(resource);
+    }
 
-        return totalUsage;
+    @Override
+    public Map<String, Object> getUsage(String region, List<String> resources, int lastDays) {
+        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        return new LinkedHashMap<>(new MetricQueryEngine(cloudWatchClient).getUsage(resources, USAGE_METRICS, lastDays));
     }
 
     @Override
     public Set<SNSResource> fetchResources(String region, List<String> resources, List<String> details) {
-        AmazonSNS snsClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonSNS();
-        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        CollectingResourceSink<SNSResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
 
-        Set<SNSResource> snsResourceList = new LinkedHashSet<>();
-        Map<String, String> topics = new LinkedHashMap<>();
-        String nextToken = null;
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<SNSResource> sink) {
+        AWSClientProvider clientProvider = AWSClientProvider.getInstance(getConfiguration());
+        AmazonSNS snsClient = clientProvider.getAmazonSNS();
+        AmazonCloudWatch cloudWatchClient = clientProvider.getAmazonCloudWatch();
 
-        do {
-            ListTopicsResult listTopicsResult = snsClient.listTopics(new ListTopicsRequest().withNextToken(nextToken));
-            listTopicsResult.getTopics()
-                    .stream()
-                    .map(Topic::getTopicArn)
-                    .filter(topicArn -> resources.contains(getResourceFromArn(topicArn)))
-                    .forEach(topicArn -> topics.put(getResourceFromArn(topicArn), topicArn));
-            nextToken = listTopicsResult.getNextToken();
-        } while (nextToken != null);
+        // topics listed for wildcard selections, the others are looked up by their ARN
+        Map<String, String> listedTopics = new HashMap<>();
+        List<String> topicNames = expandWildcards(snsClient, resources, listedTopics);
+        String topicArnPrefix = "arn:" + clientProvider.getPartition() + ":sns:" + region + ":" + clientProvider.getAccountId() + ":";
+
+        AlarmCatalog alarmCatalog = AlarmCatalog.of(cloudWatchClient, topicNames.size(), getConfiguration().getBulkLookupThreshold());
 
-        for (String topicName : resources) {
-            String topicArn = topics.get(topicName);
+        resolveEach(topicNames, sink, (topicName, resourceSink) -> {
             LinkedHashSet<String> cloudwatchAlarms = new LinkedHashSet<>();
 
             try {
+                String topicArn = listedTopics.get(topicName);
+                if (topicArn == null) {
+                    if (!TOPIC_NAME.matcher(topicName).matches()) {
+                        resourceSink.onMissing(topicName, "!!! Topic not exists: " + topicName);
+                        LOGGER.warn("Topic not exists, invalid topic name: " + topicName);
+                        return;
+                    }
+                    topicArn = topicArnPrefix + topicName;
+                    snsClient.getTopicAttributes(new GetTopicAttributesRequest(topicArn));
+                }
+
                 List<String> subscriptions = new LinkedList<>();
+                String nextToken = null;
 
                 do {
                     ListSubscriptionsByTopicResult listSubscriptionsByTopicResult = snsClient
@@ -112,34 +101,87 @@ public class SNSResourceFetcher extends ResourceFetcherWithProvider implements R
                 } while (nextToken != null);
 
                 // Cloudwatch alarms
-                cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("SNS Notification Failure-" + topicName + "-" + region))
-                        .getMetricAlarms().stream().map(MetricAlarm::getAlarmName)
-                        .forEach(cloudwatchAlarms::add);
+                alarmCatalog.findAlarms("SNS Notification Failure-" + topicName + "-" + region).forEach(cloudwatchAlarms::add);
 
-                snsResourceList.add(new SNSResource().setResourceName(topicArn).setCloudwatchAlarms(cloudwatchAlarms));
+                resourceSink.onResource(new SNSResource().setResourceName(topicArn).setCloudwatchAlarms(cloudwatchAlarms));
 
-                details.add(String.format("Resources info for: [%s], subscriptions: %s, cw alarms: %s",
+                resourceSink.onDetail(topicName, String.format("Resources info for: [%s], subscriptions: %s, cw alarms: %s",
                         topicName, subscriptions, cloudwatchAlarms));
-            } catch (ResourceNotFoundException ex) {
-                details.add("!!! Topic not exists: " + topicName);
+            } catch (NotFoundException | ResourceNotFoundException ex) {
+                resourceSink.onMissing(topicName, "!!! Topic not exists: " + topicName);
                 LOGGER.warn("Topic not exists: " + topicName);
             }
+        });
+        sink.onComplete();
+    }
+
+    /**
+     * Replaces each selection with a {@code *} by the names of the matching topics, listing the topics once and
+     * only when there is such a selection.
+     */
+    private List<String> expandWildcards(AmazonSNS snsClient, List<String> resources, Map<String, String> listedTopics) {
+        List<Pattern> patterns = resources.stream()
+                .filter(resource -> resource.contains(WILDCARD))
+                .map(SNSResourceFetcher::toPattern)
+                .collect(Collectors.toList());
+        if (patterns.isEmpty()) {
+            return resources;
+        }
+
+        Set<String> topicNames = new LinkedHashSet<>();
+        String nextToken = null;
+        do {
+            ListTopicsResult listTopicsResult = snsClient.listTopics(new ListTopicsRequest().withNextToken(nextToken));
+            for (Topic topic : listTopicsResult.getTopics()) {
+                String topicName = getResourceFromArn(topic.getTopicArn());
+                if (patterns.stream().anyMatch(pattern -> pattern.matcher(topicName).matches())) {
+                    listedTopics.put(topicName, topic.getTopicArn());
+                }
+            }
+            nextToken = listTopicsResult.getNextToken();
+        } while (nextToken != null);
+
+        for (String resource : resources) {
+            if (resource.contains(WILDCARD)) {
+                Pattern pattern = toPattern(resource);
+                listedTopics.keySet().stream()
+                        .filter(topicName -> pattern.matcher(topicName).matches())
+                        .sorted()
+                        .forEach(topicNames::add);
+            } else {
+                topicNames.add(resource);
+            }
+        }
+        return new ArrayList<>(topicNames);
+    }
+
+    private static Pattern toPattern(String wildcard) {
+        StringJoiner regex = new StringJoiner(".*");
+        for (String part : wildcard.split(Pattern.quote(WILDCARD), -1)) {
+            regex.add(Pattern.quote(part));
         }
-        return snsResourceList;
+        return Pattern.compile(regex.toString());
     }
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
-        consume((String nextMarker) -> {
-            List<String> snsResourceNameList = new ArrayList<>();
-            ListTopicsResult listTopicsResult = AWSClientProvider.getInstance(getConfiguration()).getAmazonSNS().listTopics(new ListTopicsRequest().withNextToken(nextMarker));
-            for (Topic topic : listTopicsResult.getTopics()) {
-                snsResourceNameList.add(getResourceFromArn(topic.getTopicArn()));
-            }
+        AmazonSNS snsClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonSNS();
+        consumePages(nextMarker -> listPage(snsClient, nextMarker), consumer);
+    }
 
-            consumer.accept(snsResourceNameList);
-            return listTopicsResult.getNextToken();
-        });
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonSNS(), nextMarker);
+    }
+
+    private ResourcePage listPage(AmazonSNS snsClient, String nextMarker) {
+        List<String> snsResourceNameList = new ArrayList<>();
+        ListTopicsResult listTopicsResult = snsClient.listTopics(new ListTopicsRequest().withNextToken(nextMarker));
+        for (Topic topic : listTopicsResult.getTopics()) {
+            snsResourceNameList.add(getResourceFromArn(topic.getTopicArn()));
+        }
+
+        return new ResourcePage(snsResourceNameList, listTopicsResult.getNextToken());
     }
 
     private String getResourceFromArn(String arn) {
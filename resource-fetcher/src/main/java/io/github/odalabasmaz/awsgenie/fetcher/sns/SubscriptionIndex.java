@@ -0,0 +1,177 @@
+package io.github.odalabasmaz.awsgenie.fetcher.sns;
+
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.*;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.ClientScopedCache;
+import io.github.odalabasmaz.awsgenie.fetcher.concurrent.BoundedExecutors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Collectors;
+
+/**
+ * The SNS subscriptions of an account and region by endpoint ARN, so fetchers find the subscriptions of a queue or
+ * function without listing them again.
+ * <p>
+ * Large runs share an index per SNS client, built by listing the topics and then the subscriptions of
+ * {@link #LIST_PARALLELISM} topics at a time. Small runs list the subscriptions of a known topic only, or all
+ * subscriptions once for the run.
+ */
+public final class SubscriptionIndex {
+    public static final int LIST_PARALLELISM = 8;
+
+    private static final Logger LOGGER = LogManager.getLogger(SubscriptionIndex.class);
+    private static final ClientScopedCache<AmazonSNS, SubscriptionIndex> INDEXES =
+            new ClientScopedCache<>(snsClient -> build(snsClient, LIST_PARALLELISM));
+
+    private final AmazonSNS snsClient;
+    private volatile Map<String, List<Subscription>> subscriptionsByEndpoint;
+    private final boolean built;
+
+    private SubscriptionIndex(AmazonSNS snsClient, Map<String, List<Subscription>> subscriptionsByEndpoint) {
+        this.snsClient = snsClient;
+        this.subscriptionsByEndpoint = subscriptionsByEndpoint;
+        this.built = subscriptionsByEndpoint != null;
+    }
+
+    /**
+     * @param resourceCount       number of resources the fetcher is about to resolve
+     * @param bulkLookupThreshold resource count from which the index is shared, 0 or less never shares it
+     * @return the index of the client for large runs, built when there is none or it has expired, an index listing
+     * subscriptions on demand otherwise
+     */
+    public static SubscriptionIndex of(AmazonSNS snsClient, int resourceCount, int bulkLookupThreshold) {
+        if (!ClientScopedCache.isBulkLookup(resourceCount, bulkLookupThreshold)) {
+            return new SubscriptionIndex(snsClient, null);
+        }
+        return INDEXES.get(snsClient);
+    }
+
+    /**
+     * @return subscriptions delivering to the endpoint, empty if there are none
+     */
+    public List<Subscription> getSubscriptions(String endpointArn) {
+        return getSubscriptionsByEndpoint().getOrDefault(endpointArn, Collections.emptyList());
+    }
+
+    /**
+     * @return subscriptions of the topic delivering to the endpoint, empty if there are none
+     */
+    public List<Subscription> getSubscriptions(String endpointArn, String topicArn) {
+        List<Subscription> subscriptions = subscriptionsByEndpoint != null
+                ? getSubscriptions(endpointArn)
+                : listByTopic(snsClient, topicArn);
+        return subscriptions.stream()
+                .filter(subscription -> endpointArn.equals(subscription.getEndpoint()) && topicArn.equals(subscription.getTopicArn()))
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return getSubscriptionsByEndpoint().size();
+    }
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    private synchronized Map<String, List<Subscription>> getSubscriptionsByEndpoint() {
+        if (subscriptionsByEndpoint == null) {
+            subscriptionsByEndpoint = byEndpoint(listAll(snsClient));
+        }
+        return subscriptionsByEndpoint;
+    }
+
+    static SubscriptionIndex build(AmazonSNS snsClient, int parallelism) {
+        long start = System.currentTimeMillis();
+        List<Subscription> subscriptions = parallelism > 1
+                ? listByTopic(snsClient, parallelism)
+                : listAll(snsClient);
+        Map<String, List<Subscription>> subscriptionsByEndpoint = byEndpoint(subscriptions);
+        LOGGER.info("Indexed " + subscriptions.size() + " sns subscription(s) in " + (System.currentTimeMillis() - start) + " ms");
+        return new SubscriptionIndex(snsClient, subscriptionsByEndpoint);
+    }
+
+    private static Map<String, List<Subscription>> byEndpoint(List<Subscription> subscriptions) {
+        Map<String, List<Subscription>> subscriptionsByEndpoint = new HashMap<>();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.getEndpoint() != null) {
+                subscriptionsByEndpoint.computeIfAbsent(subscription.getEndpoint(), endpoint -> new ArrayList<>())
+                        .add(subscription);
+            }
+        }
+        return subscriptionsByEndpoint;
+    }
+
+    private static List<Subscription> listAll(AmazonSNS snsClient) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        String nextToken = null;
+        do {
+            ListSubscriptionsResult result = snsClient.listSubscriptions(new ListSubscriptionsRequest().withNextToken(nextToken));
+            subscriptions.addAll(result.getSubscriptions());
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return subscriptions;
+    }
+
+    private static List<Subscription> listByTopic(AmazonSNS snsClient, int parallelism) {
+        List<String> topicArns = new ArrayList<>();
+        String nextToken = null;
+        do {
+            ListTopicsResult result = snsClient.listTopics(new ListTopicsRequest().withNextToken(nextToken));
+            result.getTopics().forEach(topic -> topicArns.add(topic.getTopicArn()));
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+
+        // at most parallelism topics in flight, so one index does not take over the shared executor
+        ExecutorService executor = BoundedExecutors.fetcherExecutor();
+        Deque<FutureTask<List<Subscription>>> inFlight = new ArrayDeque<>();
+        List<Subscription> subscriptions = new ArrayList<>();
+        try {
+            for (String topicArn : topicArns) {
+                if (inFlight.size() == parallelism) {
+                    subscriptions.addAll(next(inFlight));
+                }
+                FutureTask<List<Subscription>> task = new FutureTask<>(() -> listByTopic(snsClient, topicArn));
+                inFlight.add(task);
+                executor.execute(task);
+            }
+            while (!inFlight.isEmpty()) {
+                subscriptions.addAll(next(inFlight));
+            }
+            return subscriptions;
+        } finally {
+            inFlight.forEach(task -> task.cancel(false));
+        }
+    }
+
+    private static List<Subscription> next(Deque<FutureTask<List<Subscription>>> inFlight) {
+        FutureTask<List<Subscription>> task = inFlight.poll();
+        // lists the topic on this thread when no executor thread took it yet, so an index built on the shared
+        // executor never waits for a task queued behind it
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing sns subscriptions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not list sns subscriptions", e.getCause());
+        }
+    }
+
+    private static List<Subscription> listByTopic(AmazonSNS snsClient, String topicArn) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        String nextToken = null;
+        do {
+            ListSubscriptionsByTopicResult result = snsClient.listSubscriptionsByTopic(
+                    new ListSubscriptionsByTopicRequest().withTopicArn(topicArn).withNextToken(nextToken));
+            subscriptions.addAll(result.getSubscriptions());
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return subscriptions;
+    }
+}
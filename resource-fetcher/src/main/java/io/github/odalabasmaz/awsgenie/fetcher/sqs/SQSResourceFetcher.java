@@ -1,25 +1,28 @@
 package io.github.odalabasmaz.awsgenie.fetcher.sqs;
 
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
-import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.services.lambda.AWSLambda;
 import com.amazonaws.services.lambda.model.EventSourceMappingConfiguration;
-import com.amazonaws.services.lambda.model.ListEventSourceMappingsRequest;
 import com.amazonaws.services.sns.AmazonSNS;
-import com.amazonaws.services.sns.model.ListSubscriptionsRequest;
-import com.amazonaws.services.sns.model.ListSubscriptionsResult;
 import com.amazonaws.services.sns.model.Subscription;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.model.*;
+import io.github.odalabasmaz.awsgenie.fetcher.CollectingResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherWithProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourcePage;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.AlarmCatalog;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.MetricQueryEngine;
+import io.github.odalabasmaz.awsgenie.fetcher.cloudwatch.UsageMetrics;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
+import io.github.odalabasmaz.awsgenie.fetcher.lambda.EventSourceMappingIndex;
+import io.github.odalabasmaz.awsgenie.fetcher.sns.SubscriptionIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -30,6 +33,8 @@ import java.util.stream.Collectors;
 
 public class SQSResourceFetcher extends ResourceFetcherWithProvider implements ResourceFetcher<SQSResource> {
     private static final Logger LOGGER = LogManager.getLogger(SQSResourceFetcher.class);
+    private static final UsageMetrics USAGE_METRICS = new UsageMetrics("AWS/SQS", "QueueName",
+            "NumberOfMessagesSent", "NumberOfMessagesReceived");
 
     public SQSResourceFetcher(ResourceFetcherConfiguration configuration) {
         super(configuration);
@@ -37,6 +42,13 @@ public class SQSResourceFetcher extends ResourceFetcherWithProvider implements R
 
     @Override
     public Set<SQSResource> fetchResources(String region, List<String> resources, List<String> details) {
+        CollectingResourceSink<SQSResource> sink = new CollectingResourceSink<>(details);
+        fetchResourcesTo(region, resources, sink);
+        return sink.getResources();
+    }
+
+    @Override
+    public void fetchResourcesTo(String region, List<String> resources, ResourceSink<SQSResource> sink) {
         AmazonSQS sqsClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonSQS();
         AmazonSNS snsClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonSNS();
         AWSLambda lambdaClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonLambda();
@@ -44,42 +56,12 @@ public class SQSResourceFetcher extends ResourceFetcherWithProvider implements R
 
         // Resources to be removed
 
-        // build sns subscription - sqs name mapping
-        Map<String, List<String>> sqsSnsMapping = new HashMap<>();
-        String nextToken = null;
-        do {
-            ListSubscriptionsResult result = snsClient.listSubscriptions(
-                    new ListSubscriptionsRequest().withNextToken(nextToken));
-            nextToken = result.getNextToken();
-
-            for (Subscription subs : result.getSubscriptions()) {
-                String protocol = subs.getProtocol();
-                String endpoint = subs.getEndpoint();
-                if (!protocol.equals("sqs") || endpoint.contains("_cmd_")) {
-                    continue;
-                }
-
-                //String snsName = subs.getTopicArn().split(":")[5];
-                String queueName = endpoint.split(":")[5];
-                if (!resources.contains(queueName)) {
-                    continue;
-                }
-
-                String subscriptionArn = subs.getSubscriptionArn();
-                List<String> snsList = sqsSnsMapping.computeIfAbsent(queueName, k -> new ArrayList<>());
-                snsList.add(subscriptionArn);
-
-                if (sqsSnsMapping.size() == resources.size()) {
-                    // we found all we need
-                    nextToken = null;
-                    break;
-                }
-            }
-        } while (nextToken != null);
+        SubscriptionIndex subscriptionIndex = SubscriptionIndex.of(snsClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+        AlarmCatalog alarmCatalog = AlarmCatalog.of(cloudWatchClient, resources.size(), getConfiguration().getBulkLookupThreshold());
+        EventSourceMappingIndex eventSourceMappingIndex = EventSourceMappingIndex.of(lambdaClient, resources.size(), getConfiguration().getBulkLookupThreshold());
 
-        Set<SQSResource> sqsResourceList = new LinkedHashSet<>();
         // process each queue
-        for (String queueName : resources) {
+        resolveEach(resources, sink, (queueName, resourceSink) -> {
             try {
                 // QUEUE
                 String queueUrl = sqsClient.getQueueUrl(new GetQueueUrlRequest().withQueueName(queueName)).getQueueUrl();
@@ -89,111 +71,66 @@ public class SQSResourceFetcher extends ResourceFetcherWithProvider implements R
                 //String dlqUrlArn = attributes.get("RedrivePolicy") != null ? JSON.parse(attributes.get("RedrivePolicy")).get("deadLetterTargetArn").toString() : null;
 
                 // Cloudwatch alarms
-                List<String> cwAlarms = cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("SQS Queue " + queueName + " "))
-                        .getMetricAlarms().stream().map(MetricAlarm::getAlarmName)
-                        .collect(Collectors.toList());
+                List<String> cwAlarms = alarmCatalog.findAlarms("SQS Queue " + queueName + " ");
 
                 // SNS subscriptions
-                List<String> snsSubscriptionArns = sqsSnsMapping.get(queueName);
-                if (snsSubscriptionArns == null) snsSubscriptionArns = Collections.emptyList();
+                List<String> snsSubscriptionArns = subscriptionIndex.getSubscriptions(queueArn).stream()
+                        .filter(subs -> subs.getProtocol().equals("sqs") && !subs.getEndpoint().contains("_cmd_"))
+                        .map(Subscription::getSubscriptionArn)
+                        .collect(Collectors.toList());
 
                 // Lambda triggers
-                ListEventSourceMappingsRequest listEventSourceMappingsRequest = new ListEventSourceMappingsRequest();
-                listEventSourceMappingsRequest.putCustomQueryParameter("EventSourceArn", queueArn);
-                List<EventSourceMappingConfiguration> eventSourceMappings = lambdaClient.listEventSourceMappings(listEventSourceMappingsRequest).getEventSourceMappings();
+                List<EventSourceMappingConfiguration> eventSourceMappings = eventSourceMappingIndex.getByEventSourceArn(queueArn);
                 List<String> functions = eventSourceMappings.stream().map(EventSourceMappingConfiguration::getFunctionArn).map(arn -> arn.split(":")[6]).collect(Collectors.toList());
                 List<String> eventSourceIds = eventSourceMappings.stream().map(EventSourceMappingConfiguration::getUUID).collect(Collectors.toList());
 
-                details.add(String.format("Resources info for: [%s], there are [%s] message(s) in queue, sns subscription(s): %s, lambda trigger(s): %s, cw alarms: %s",
+                resourceSink.onDetail(queueName, String.format("Resources info for: [%s], there are [%s] message(s) in queue, sns subscription(s): %s, lambda trigger(s): %s, cw alarms: %s",
                         queueName, numberOfMessages, snsSubscriptionArns, functions, cwAlarms));
                 SQSResource sqsResource = new SQSResource().setResourceName(queueUrl);
                 sqsResource.getCloudwatchAlarms().addAll(cwAlarms);
                 sqsResource.getSnsSubscriptions().addAll(snsSubscriptionArns);
                 sqsResource.getLambdaTriggers().addAll(eventSourceIds);
 
-                sqsResourceList.add(sqsResource);
+                resourceSink.onResource(sqsResource);
             } catch (QueueDoesNotExistException ex) {
-                details.add("!!! SQS resource not exists: " + queueName);
+                resourceSink.onMissing(queueName, "!!! SQS resource not exists: " + queueName);
                 LOGGER.warn("SQS resource not exists: " + queueName);
             }
-        }
-        return sqsResourceList;
+        });
+        sink.onComplete();
     }
 
     @Override
     public void listResources(String region, Consumer<List<String>> consumer) {
-        consume((nextMarker) -> {
-            List<String> sqsResourceNameList = new ArrayList<>();
-            ListQueuesResult listQueuesResult = AWSClientProvider.getInstance(getConfiguration()).getAmazonSQS().listQueues(new ListQueuesRequest().withNextToken(nextMarker));
+        AmazonSQS sqsClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonSQS();
+        consumePages(nextMarker -> listPage(sqsClient, nextMarker), consumer);
+    }
 
-            for (String queueUrl : listQueuesResult.getQueueUrls()) {
-                sqsResourceNameList.add(getQueueNameFromURL(queueUrl));
-            }
+    @Override
+    public ResourcePage listResourcePage(String region, String nextMarker) {
+        return listPage(AWSClientProvider.getInstance(getConfiguration()).getAmazonSQS(), nextMarker);
+    }
 
-            consumer.accept(sqsResourceNameList);
-            return listQueuesResult.getNextToken();
-        });
+    private ResourcePage listPage(AmazonSQS sqsClient, String nextMarker) {
+        List<String> sqsResourceNameList = new ArrayList<>();
+        ListQueuesResult listQueuesResult = sqsClient.listQueues(new ListQueuesRequest().withNextToken(nextMarker));
+
+        for (String queueUrl : listQueuesResult.getQueueUrls()) {
+            sqsResourceNameList.add(getQueueNameFromURL(queueUrl));
+        }
+
+        return new ResourcePage(sqsResourceNameList, listQueuesResult.getNextToken());
     }
 
     @Override
     public Object getUsage(String region, String resource, int lastDays) {
-        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
-
-        Date endDate = new Date();
-        Date startDate = new Date(endDate.getTime() - TimeUnit.DAYS.toMillis(lastDays));
-        Integer period = ((Long) TimeUnit.DAYS.toSeconds(lastDays)).intValue();
-
-        // check RW usages for last week
-        GetMetricDataResult result = cloudWatchClient.getMetricData(new GetMetricDataRequest()
-                .withStartTime(startDate)
-                .withEndTime(endDate)
-                .withMaxDatapoints(100)
-                .withMetricDataQueries(
-                        new MetricDataQuery()
-                                .withId("m1")
-                                .withMetricStat(new MetricStat()
-                                        .withStat("Sum")
-                                        .withMetric(new Metric()
-                                                .withMetricName("NumberOfMessagesSent")
-                                                .withDimensions(new Dimension()
-                                                        .withName("QueueName")
-                                                        .withValue(resource)
-                                                )
-                                                .withNamespace("AWS/SQS")
-                                        )
-                                        .withPeriod(period)
-                                ),
-                        new MetricDataQuery()
-                                .withId("m2")
-                                .withMetricStat(new MetricStat()
-                                        .withStat("Sum")
-                                        .withMetric(new Metric()
-                                                .withMetricName("NumberOfMessagesReceived")
-                                                .withDimensions(new Dimension()
-                                                        .withName("QueueName")
-                                                        .withValue(resource)
-                                                )
-                                                .withNamespace("AWS/SQS")
-                                        )
-                                        .withPeriod(period)
-                                ),
-                        new MetricDataQuery()
-                                .withId("totalUsage")
-                                .withExpression("m1+m2")
-                )
-        );
-        //double totalUsage = result.getMetricDataResults().get(0).getValues().get(0);
-        Double totalUsage = 0d;
-
-        Optional<MetricDataResult> optionalMetricDataResult = result.getMetricDataResults().stream().filter(r -> r.getId().equals("totalUsage")).findFirst();
-        if (optionalMetricDataResult.isPresent() && optionalMetricDataResult.get().getValues().size() > 0) {
-            //Double totalUsage = result.getMetricDataResults().stream().filter(r -> r.getId().equals("totalUsage")).findFirst().map(u -> u.getValues().get(0)).orElse(0.0);
-            totalUsage = optionalMetricDataResult.get().getValues().get(0);
-        } else {
-            LOGGER.warn("totalUsage metric is not present for queue: " + resource);
-        }
+        return getUsage(region, Collections.singletonList(resource), lastDays).get(resource);
+    }
 
-        return totalUsage;
+    @Override
+    public Map<String, Object> getUsage(String region, List<String> resources, int lastDays) {
+        AmazonCloudWatch cloudWatchClient = AWSClientProvider.getInstance(getConfiguration()).getAmazonCloudWatch();
+        return new LinkedHashMap<>(new MetricQueryEngine(cloudWatchClient).getUsage(resources, USAGE_METRICS, lastDays));
     }
 
     private String getQueueNameFromURL(String queueURL) {
@@ -0,0 +1,124 @@
+package io.github.odalabasmaz.awsgenie.fetcher.throttling;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.RetryUtils;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientType;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.ClientConfigurationProfile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Paces every attempt, retries included, through an {@link AimdRateLimiter} per account, region, service and
+ * operation. IAM is global, so its limiters are shared by all regions of an account. Limiters are shared by all
+ * roles and credentials of an account, as AWS counts its limits per account. The account is never looked up, so
+ * pacing cannot fail a call; when it is not known, i.e. no role is assumed, limiters are shared per region only.
+ * <p>
+ * At most {@link #MAX_LIMITERS} limiters are kept, the least recently used one is dropped beyond that and starts
+ * again from its maximum rate when needed.
+ */
+public class AdaptiveThrottlingRequestHandler extends RequestHandler2 {
+    private static final Logger LOGGER = LogManager.getLogger(AdaptiveThrottlingRequestHandler.class);
+    private static final String LIMIT_EXCEEDED_ERROR_CODE = "LimitExceededException";
+    private static final String UNKNOWN_ACCOUNT = "unknown";
+    static final int MAX_LIMITERS = 4096;
+    private static final Map<String, AimdRateLimiter> limiters = Collections.synchronizedMap(
+            new LinkedHashMap<String, AimdRateLimiter>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AimdRateLimiter> eldest) {
+                    return size() > MAX_LIMITERS;
+                }
+            });
+
+    private final String scope;
+    private final AWSClientType clientType;
+    private final ClientConfigurationProfile clientConfigurationProfile;
+
+    /**
+     * @param accountId account of the credentials, null when it is not known without a call
+     */
+    public AdaptiveThrottlingRequestHandler(String accountId, String region, AWSClientType clientType,
+                                            ClientConfigurationProfile clientConfigurationProfile) {
+        String account = accountId != null ? accountId : UNKNOWN_ACCOUNT;
+        this.scope = clientType == AWSClientType.IAM ? account + "|global" : account + "|" + region;
+        this.clientType = clientType;
+        this.clientConfigurationProfile = clientConfigurationProfile;
+    }
+
+    @Override
+    public void beforeAttempt(HandlerBeforeAttemptContext context) {
+        AimdRateLimiter limiter = getLimiter(operationName(context.getRequest()), false);
+        if (limiter == null) {
+            return;
+        }
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortedException("Interrupted while waiting for rate limiter", e);
+        }
+    }
+
+    @Override
+    public void afterAttempt(HandlerAfterAttemptContext context) {
+        String operation = operationName(context.getRequest());
+        Exception exception = context.getException();
+        if (exception == null) {
+            AimdRateLimiter limiter = getLimiter(operation, false);
+            if (limiter != null) {
+                limiter.onSuccess();
+            }
+        } else if (isThrottling(exception)) {
+            AimdRateLimiter limiter = getLimiter(operation, true);
+            limiter.onThrottled();
+            LOGGER.debug("Throttled on " + clientType + ":" + operation + ", rate lowered to " + limiter.getRate() + "/s");
+        }
+    }
+
+    AimdRateLimiter getLimiter(String operation, boolean throttled) {
+        String key = scope + "|" + clientType + "|" + operation;
+        AimdRateLimiter limiter = limiters.get(key);
+        if (limiter != null) {
+            return limiter;
+        }
+        Double limit = clientConfigurationProfile.getRateLimit(clientType, operation);
+        if (limit == null) {
+            limit = RateLimits.getBuiltInLimit(clientType, operation);
+        }
+        if (limit != null) {
+            double maxRate = limit;
+            return limiters.computeIfAbsent(key, k -> new AimdRateLimiter(maxRate, RateLimits.MIN_RATE));
+        }
+        if (throttled) {
+            return limiters.computeIfAbsent(key, k -> new AimdRateLimiter(RateLimits.THROTTLED_MAX_RATE,
+                    RateLimits.MIN_RATE, RateLimits.THROTTLED_INITIAL_RATE));
+        }
+        return null;
+    }
+
+    private static String operationName(Request<?> request) {
+        String operation = request.getHandlerContext(HandlerContextKey.OPERATION_NAME);
+        if (operation != null) {
+            return operation;
+        }
+        return request.getOriginalRequest().getClass().getSimpleName().replaceAll("Request$", "");
+    }
+
+    private static boolean isThrottling(Exception exception) {
+        if (exception instanceof AmazonServiceException
+                && LIMIT_EXCEEDED_ERROR_CODE.equals(((AmazonServiceException) exception).getErrorCode())) {
+            return true;
+        }
+        return exception instanceof SdkBaseException && RetryUtils.isThrottlingException((SdkBaseException) exception);
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.odalabasmaz.awsgenie.fetcher.throttling;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter whose rate follows additive-increase / multiplicative-decrease.
+ * <p>
+ * Calls are spread evenly at the current rate. Every successful call raises the rate by a small step up to the
+ * maximum, every throttled call halves it down to the minimum. Throttled calls within a second of the last
+ * decrease only count once, as they are usually answers to the same burst.
+ */
+public class AimdRateLimiter {
+    static final double DECREASE_FACTOR = 0.5;
+    static final double INCREASE_RATIO = 0.02;
+    static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double maxRate;
+    private final double minRate;
+    private double rate;
+    private long nextPermitNanos;
+    private long lastDecreaseNanos;
+
+    public AimdRateLimiter(double maxRate, double minRate) {
+        this(maxRate, minRate, maxRate);
+    }
+
+    public AimdRateLimiter(double maxRate, double minRate, double initialRate) {
+        this.maxRate = maxRate;
+        this.minRate = minRate;
+        this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+        this.nextPermitNanos = System.nanoTime();
+        this.lastDecreaseNanos = nextPermitNanos - DECREASE_COOLDOWN_NANOS;
+    }
+
+    /**
+     * Blocks until the call may proceed at the current rate.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long permitNanos = Math.max(now, nextPermitNanos);
+            nextPermitNanos = permitNanos + intervalNanos();
+            waitNanos = permitNanos - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + maxRate * INCREASE_RATIO);
+    }
+
+    public synchronized void onThrottled() {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < DECREASE_COOLDOWN_NANOS) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        rate = Math.max(minRate, rate * DECREASE_FACTOR);
+        nextPermitNanos = Math.max(nextPermitNanos, now + intervalNanos());
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    private long intervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+}
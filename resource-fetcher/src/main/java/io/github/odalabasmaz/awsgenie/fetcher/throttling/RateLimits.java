@@ -0,0 +1,67 @@
+package io.github.odalabasmaz.awsgenie.fetcher.throttling;
+
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Built-in maximum request rates, in calls per second per account and region, of the APIs that throttle
+ * early. Operations without a limit here are not slowed down until they are throttled for the first time.
+ */
+public final class RateLimits {
+    public static final String ALL_OPERATIONS = "*";
+    public static final double MIN_RATE = 0.5;
+    /**
+     * Ceiling and starting rate of operations that have no limit but got throttled.
+     */
+    public static final double THROTTLED_MAX_RATE = 50;
+    public static final double THROTTLED_INITIAL_RATE = 10;
+
+    private static final Map<AWSClientType, Map<String, Double>> BUILT_IN_LIMITS = new EnumMap<>(AWSClientType.class);
+
+    static {
+        Map<String, Double> iam = new HashMap<>();
+        iam.put(ALL_OPERATIONS, 10d);
+        BUILT_IN_LIMITS.put(AWSClientType.IAM, iam);
+
+        Map<String, Double> cloudWatch = new HashMap<>();
+        cloudWatch.put("DescribeAlarms", 9d);
+        cloudWatch.put("DeleteAlarms", 3d);
+        cloudWatch.put("GetMetricData", 50d);
+        cloudWatch.put("ListMetrics", 25d);
+        BUILT_IN_LIMITS.put(AWSClientType.CLOUDWATCH, cloudWatch);
+
+        Map<String, Double> kinesis = new HashMap<>();
+        kinesis.put("DescribeStream", 10d);
+        kinesis.put("DescribeStreamSummary", 20d);
+        kinesis.put("ListStreams", 5d);
+        kinesis.put("ListShards", 100d);
+        kinesis.put("ListTagsForStream", 5d);
+        kinesis.put("DeleteStream", 5d);
+        BUILT_IN_LIMITS.put(AWSClientType.KINESIS, kinesis);
+
+        Map<String, Double> dynamoDB = new HashMap<>();
+        dynamoDB.put("ListTables", 10d);
+        dynamoDB.put("DescribeTable", 20d);
+        dynamoDB.put("DescribeTimeToLive", 10d);
+        dynamoDB.put("ListTagsOfResource", 10d);
+        dynamoDB.put("UpdateTable", 5d);
+        dynamoDB.put("DeleteTable", 5d);
+        BUILT_IN_LIMITS.put(AWSClientType.DYNAMODB, dynamoDB);
+    }
+
+    private RateLimits() {
+    }
+
+    /**
+     * @return built-in limit of the operation, or null if it has none
+     */
+    public static Double getBuiltInLimit(AWSClientType clientType, String operation) {
+        Map<String, Double> limits = BUILT_IN_LIMITS.getOrDefault(clientType, Collections.emptyMap());
+        Double limit = limits.get(operation);
+        return limit != null ? limit : limits.get(ALL_OPERATIONS);
+    }
+}
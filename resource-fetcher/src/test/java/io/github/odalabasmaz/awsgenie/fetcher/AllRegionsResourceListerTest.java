@@ -0,0 +1,82 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import com.amazonaws.AmazonServiceException;
+import io.github.odalabasmaz.awsgenie.fetcher.sqs.SQSResource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AllRegionsResourceListerTest {
+
+    @Mock
+    private ResourceFetcherFactory<SQSResource> resourceFetcherFactory;
+
+    @Test
+    public void discoverRegionsStaysInThePartition() {
+        List<String> regions = new AllRegionsResourceLister<>(Service.SQS, new ResourceFetcherConfiguration(null, "us-east-1"))
+                .discoverRegions();
+
+        assertThat(regions, hasItems("us-east-1", "eu-west-1", "ap-southeast-2"));
+        assertThat(regions, not(hasItem("cn-north-1")));
+        assertThat(new AllRegionsResourceLister<>(Service.IAM_ROLE, new ResourceFetcherConfiguration(null, "us-east-1")).discoverRegions(),
+                is(equalTo(Collections.singletonList("us-east-1"))));
+    }
+
+    @Test
+    public void listResourcesStreamsRegionTaggedBatchesAndSkipsDisabledRegions() throws Exception {
+        when(resourceFetcherFactory.getFetcher(eq(Service.SQS), any())).thenAnswer(invocation -> {
+            ResourceFetcherConfiguration configuration = invocation.getArgument(1);
+            return new StubFetcher(configuration.getRegion());
+        });
+        Map<String, List<String>> listed = new HashMap<>();
+
+        List<ScanResult<Integer>> results = new AllRegionsResourceLister<SQSResource>(Service.SQS, new ResourceFetcherConfiguration(null, "us-east-1"))
+                .setMaxConcurrentRegions(2)
+                .setResourceFetcherFactory(resourceFetcherFactory)
+                .listResources(Arrays.asList("us-east-1", "me-south-1", "eu-west-1"),
+                        (region, batch) -> listed.computeIfAbsent(region, r -> new ArrayList<>()).addAll(batch));
+
+        assertThat(results.size(), is(equalTo(2)));
+        assertThat(results.get(0).getRegion(), is(equalTo("us-east-1")));
+        assertThat(results.get(0).getResult(), is(equalTo(2)));
+        assertThat(results.get(1).getRegion(), is(equalTo("eu-west-1")));
+        assertThat(listed.get("us-east-1"), is(equalTo(Arrays.asList("queue1-us-east-1", "queue2-us-east-1"))));
+        assertThat(listed.get("eu-west-1"), is(equalTo(Arrays.asList("queue1-eu-west-1", "queue2-eu-west-1"))));
+        assertThat(listed.containsKey("me-south-1"), is(false));
+    }
+
+    private static class StubFetcher implements ResourceFetcher<SQSResource> {
+        private final String region;
+
+        private StubFetcher(String region) {
+            this.region = region;
+        }
+
+        @Override
+        public Set<SQSResource> fetchResources(String region, List<String> resources, List<String> details) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void listResources(String region, Consumer<List<String>> consumer) {
+            if ("me-south-1".equals(this.region)) {
+                AmazonServiceException exception = new AmazonServiceException("The security token included in the request is invalid.");
+                exception.setErrorCode("InvalidClientTokenId");
+                throw exception;
+            }
+            consumer.accept(Collections.singletonList("queue1-" + this.region));
+            consumer.accept(Collections.singletonList("queue2-" + this.region));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import io.github.odalabasmaz.awsgenie.fetcher.sqs.SQSResource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MultiAccountResourceFetcherTest {
+    private static final String ROLE_1 = "arn:aws:iam::111111111111:role/scanner";
+    private static final String ROLE_2 = "arn:aws:iam::222222222222:role/scanner";
+    private static final String FAILING_ROLE = "arn:aws:iam::333333333333:role/scanner";
+    private static final List<String> REGIONS = Arrays.asList("us-east-1", "eu-west-1", "ap-southeast-2");
+
+    @Mock
+    private ResourceFetcherFactory<SQSResource> resourceFetcherFactory;
+
+    private final Map<String, AtomicInteger> runningPerAccount = new ConcurrentHashMap<>();
+    private final AtomicInteger maxRunningPerAccount = new AtomicInteger();
+
+    @Test
+    public void listResourcesTagsResultsWithAccountAndRegion() throws Exception {
+        when(resourceFetcherFactory.getFetcher(eq(Service.SQS), any())).thenAnswer(invocation -> {
+            ResourceFetcherConfiguration configuration = invocation.getArgument(1);
+            return new StubFetcher(new ScanTarget(configuration.getAssumeRoleArn(), configuration.getRegion()));
+        });
+        MultiAccountResourceFetcher<SQSResource> fetcher = new MultiAccountResourceFetcher<SQSResource>(Service.SQS,
+                new ResourceFetcherConfiguration(null, null))
+                .setMaxParallelism(8)
+                .setMaxParallelismPerAccount(1)
+                .setResourceFetcherFactory(resourceFetcherFactory);
+
+        List<ScanResult<List<String>>> results = fetcher.listResources(Arrays.asList(ROLE_1, ROLE_2, FAILING_ROLE), REGIONS);
+
+        assertThat(results.size(), is(equalTo(9)));
+        for (ScanResult<List<String>> result : results) {
+            if (result.getAccountId().equals("333333333333")) {
+                assertThat(result.isSuccessful(), is(false));
+                assertThat(result.getError().getMessage(), is(equalTo("Access denied")));
+            } else {
+                assertThat(result.getResult(), is(equalTo(Collections.singletonList("queue-" + result.getAccountId() + "-" + result.getRegion()))));
+            }
+        }
+        assertThat(maxRunningPerAccount.get(), is(equalTo(1)));
+    }
+
+    @Test
+    public void globalServiceIsScannedInOneRegion() {
+        MultiAccountResourceFetcher<SQSResource> fetcher = new MultiAccountResourceFetcher<>(Service.IAM_ROLE,
+                new ResourceFetcherConfiguration(null, null));
+
+        List<ScanTarget> targets = fetcher.getTargets(Arrays.asList(ROLE_1, ROLE_2), REGIONS);
+
+        assertThat(targets, is(equalTo(Arrays.asList(new ScanTarget(ROLE_1, "us-east-1"), new ScanTarget(ROLE_2, "us-east-1")))));
+    }
+
+    @Test
+    public void nullRoleArnsScanTheCurrentAccount() {
+        MultiAccountResourceFetcher<SQSResource> fetcher = new MultiAccountResourceFetcher<>(Service.SQS,
+                new ResourceFetcherConfiguration(null, null));
+
+        List<ScanTarget> targets = fetcher.getTargets(null, Collections.singletonList("us-east-1"));
+
+        assertThat(targets, is(equalTo(Collections.singletonList(new ScanTarget(null, "us-east-1")))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyRegionsAreRejected() {
+        new MultiAccountResourceFetcher<SQSResource>(Service.IAM_ROLE, new ResourceFetcherConfiguration(null, null))
+                .fetchAllResources(Arrays.asList(ROLE_1, ROLE_2), Collections.emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyRoleArnsAreRejected() {
+        new MultiAccountResourceFetcher<SQSResource>(Service.SQS, new ResourceFetcherConfiguration(null, null))
+                .listResources(Collections.emptyList(), REGIONS);
+    }
+
+    private class StubFetcher implements ResourceFetcher<SQSResource> {
+        private final ScanTarget target;
+
+        private StubFetcher(ScanTarget target) {
+            this.target = target;
+        }
+
+        @Override
+        public Set<SQSResource> fetchResources(String region, List<String> resources, List<String> details) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void listResources(String region, Consumer<List<String>> consumer) throws Exception {
+            AtomicInteger running = runningPerAccount.computeIfAbsent(target.getAccountId(), a -> new AtomicInteger());
+            maxRunningPerAccount.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(20);
+                if (FAILING_ROLE.equals(target.getRoleArn())) {
+                    throw new IllegalStateException("Access denied");
+                }
+                consumer.accept(Collections.singletonList("queue-" + target.getAccountId() + "-" + region));
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
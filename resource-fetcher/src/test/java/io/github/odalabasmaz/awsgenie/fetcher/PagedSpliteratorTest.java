@@ -0,0 +1,60 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class PagedSpliteratorTest {
+    private static final int PAGES = 20;
+
+    private final AtomicInteger fetchedPages = new AtomicInteger();
+
+    @Test
+    public void shortCircuitStopsTheListing() {
+        Optional<String> found = StreamSupport.stream(new PagedSpliterator(this::page), false)
+                .filter(resource -> resource.startsWith("page3-"))
+                .findFirst();
+
+        assertThat(found.get(), is(equalTo("page3-item1")));
+        assertThat(fetchedPages.get(), is(equalTo(3)));
+    }
+
+    @Test
+    public void splitsHandOffWholePages() {
+        PagedSpliterator spliterator = new PagedSpliterator(this::page);
+
+        List<String> firstPage = new ArrayList<>();
+        spliterator.trySplit().forEachRemaining(firstPage::add);
+        List<String> secondPage = new ArrayList<>();
+        spliterator.trySplit().forEachRemaining(secondPage::add);
+
+        assertThat(firstPage, is(equalTo(Arrays.asList("page1-item1", "page1-item2"))));
+        assertThat(secondPage, is(equalTo(Arrays.asList("page2-item1", "page2-item2"))));
+        assertThat(fetchedPages.get(), is(equalTo(2)));
+    }
+
+    @Test
+    public void parallelStreamKeepsTheListingOrder() {
+        List<String> resources = StreamSupport.stream(new PagedSpliterator(this::page), true)
+                .map(String::toUpperCase)
+                .collect(Collectors.toList());
+
+        assertThat(resources.size(), is(equalTo(PAGES * 2)));
+        assertThat(resources.get(0), is(equalTo("PAGE1-ITEM1")));
+        assertThat(resources.get(PAGES * 2 - 1), is(equalTo("PAGE" + PAGES + "-ITEM2")));
+        assertThat(fetchedPages.get(), is(equalTo(PAGES)));
+    }
+
+    private ResourcePage page(String marker) {
+        int page = fetchedPages.incrementAndGet();
+        assertThat(marker, is(equalTo(page == 1 ? null : "page" + page)));
+        return new ResourcePage(Arrays.asList("page" + page + "-item1", "page" + page + "-item2"),
+                page < PAGES ? "page" + (page + 1) : null);
+    }
+}
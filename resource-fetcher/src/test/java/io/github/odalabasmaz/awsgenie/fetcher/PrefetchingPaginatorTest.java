@@ -0,0 +1,91 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import com.amazonaws.AmazonServiceException;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PrefetchingPaginatorTest {
+
+    @Test
+    public void nextPageIsFetchedWhileThePageIsConsumed() {
+        CountDownLatch secondPageRequested = new CountDownLatch(1);
+        List<String> consumed = new ArrayList<>();
+
+        PrefetchingPaginator.forEachPage(marker -> {
+            if ("page2".equals(marker)) {
+                secondPageRequested.countDown();
+            }
+            return page(marker, 3);
+        }, resources -> {
+            if (resources.contains("page1-item")) {
+                try {
+                    assertThat(secondPageRequested.await(5, TimeUnit.SECONDS), is(true));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            consumed.addAll(resources);
+        });
+
+        assertThat(consumed, is(equalTo(Arrays.asList("page1-item", "page2-item", "page3-item"))));
+    }
+
+    @Test
+    public void fetchErrorIsRethrownAfterTheEarlierPages() {
+        AmazonServiceException accessDenied = new AmazonServiceException("Access denied");
+        accessDenied.setErrorCode("AccessDenied");
+        List<String> consumed = new ArrayList<>();
+
+        try {
+            PrefetchingPaginator.forEachPage(marker -> {
+                if ("page3".equals(marker)) {
+                    throw accessDenied;
+                }
+                return page(marker, 5);
+            }, consumed::addAll);
+            fail("listing should fail");
+        } catch (AmazonServiceException e) {
+            assertThat(e, is(sameInstance(accessDenied)));
+        }
+        assertThat(consumed, is(equalTo(Arrays.asList("page1-item", "page2-item"))));
+    }
+
+    @Test
+    public void failingConsumerStopsTheFetching() throws Exception {
+        AtomicInteger fetchedPages = new AtomicInteger();
+        Function<String, ResourcePage> endlessListing = marker -> {
+            fetchedPages.incrementAndGet();
+            return page(marker, Integer.MAX_VALUE);
+        };
+
+        try {
+            PrefetchingPaginator.forEachPage(endlessListing, resources -> {
+                throw new IllegalStateException("Consumer failed");
+            });
+            fail("consumer error should be rethrown");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is(equalTo("Consumer failed")));
+        }
+        TimeUnit.MILLISECONDS.sleep(300);
+        int fetchedAfterFailure = fetchedPages.get();
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        assertThat(fetchedPages.get(), is(equalTo(fetchedAfterFailure)));
+        assertThat(fetchedAfterFailure <= PrefetchingPaginator.PREFETCHED_PAGES + 2, is(true));
+    }
+
+    private static ResourcePage page(String marker, int pageCount) {
+        int page = marker == null ? 1 : Integer.parseInt(marker.substring("page".length()));
+        return new ResourcePage(Collections.singletonList("page" + page + "-item"),
+                page < pageCount ? "page" + (page + 1) : null);
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import io.github.odalabasmaz.awsgenie.fetcher.sqs.SQSResource;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ResourceFetcherAsyncTest {
+    private static final String TEST_REGION = "us-west-2";
+
+    private final ResourceFetcher<SQSResource> fetcher = new ResourceFetcher<SQSResource>() {
+        @Override
+        public Set<SQSResource> fetchResources(String region, List<String> resources, List<String> details) {
+            if (resources.contains("broken")) {
+                throw new IllegalStateException("Access denied");
+            }
+            return resources.stream()
+                    .filter(resource -> !resource.startsWith("missing"))
+                    .map(resource -> new SQSResource().setResourceName(resource))
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public void listResources(String region, Consumer<List<String>> consumer) {
+        }
+
+        @Override
+        public Object getUsage(String region, String resource, int lastDays) {
+            return resource + ":" + lastDays;
+        }
+    };
+
+    @Test
+    public void fetchResourcesAsync() throws Exception {
+        Set<SQSResource> resources = fetcher.fetchResourcesAsync(TEST_REGION, Arrays.asList("queue1", "queue2")).get();
+
+        assertThat(resources.stream().map(SQSResource::getResourceName).collect(Collectors.toSet()),
+                is(equalTo(new HashSet<>(Arrays.asList("queue1", "queue2")))));
+        assertThat(fetcher.getUsageAsync(TEST_REGION, "queue1", 7).get(), is(equalTo("queue1:7")));
+    }
+
+    @Test
+    public void fetchEachResourceAsync() throws Exception {
+        Map<String, CompletableFuture<Optional<SQSResource>>> futures = fetcher.fetchEachResourceAsync(TEST_REGION,
+                Arrays.asList("queue1", "missing1", "broken"), Collections.synchronizedList(new ArrayList<>()));
+
+        assertThat(futures.keySet(), is(equalTo(new LinkedHashSet<>(Arrays.asList("queue1", "missing1", "broken")))));
+        assertThat(futures.get("queue1").get().get().getResourceName(), is(equalTo("queue1")));
+        assertThat(futures.get("missing1").get().isPresent(), is(false));
+        try {
+            futures.get("broken").get();
+            fail("broken resource should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is(equalTo("Access denied")));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.odalabasmaz.awsgenie.fetcher;
+
+import io.github.odalabasmaz.awsgenie.fetcher.sqs.SQSResource;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ResourceFetcherWithProviderTest {
+    private static final List<String> QUEUES = Arrays.asList("queue1", "queue2", "missing3", "broken4", "queue5", "broken6");
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Test
+    public void resolveEachSequentially() {
+        List<String> details = new ArrayList<>();
+        StubFetcher fetcher = new StubFetcher(1);
+
+        Set<SQSResource> resources = fetcher.fetchResources(Arrays.asList("queue1", "queue2", "missing3"), details);
+
+        assertThat(names(resources), is(equalTo(Arrays.asList("queue1", "queue2"))));
+        assertThat(details, is(equalTo(expectedDetails())));
+        assertThat(maxRunning.get(), is(equalTo(1)));
+    }
+
+    @Test
+    public void resolveEachInParallelKeepsTheOrder() {
+        List<String> details = new ArrayList<>();
+
+        Set<SQSResource> resources = new StubFetcher(4).fetchResources(Arrays.asList("queue1", "queue2", "missing3"), details);
+
+        assertThat(names(resources), is(equalTo(Arrays.asList("queue1", "queue2"))));
+        assertThat(details, is(equalTo(expectedDetails())));
+        assertThat(maxRunning.get() > 1, is(true));
+    }
+
+    @Test
+    public void resolveEachSequentiallyReportsAllFailuresAtTheEnd() {
+        List<String> details = new ArrayList<>();
+        StubFetcher fetcher = new StubFetcher(0);
+
+        try {
+            fetcher.fetchResources(QUEUES, details);
+            fail("the failures should fail the fetch");
+        } catch (ResourceFetchException e) {
+            assertThat(new ArrayList<>(e.getFailures().keySet()), is(equalTo(Arrays.asList("broken4", "broken6"))));
+            assertThat(e.getCause().getMessage(), is(equalTo("Access denied")));
+            assertThat(e.getSuppressed().length, is(equalTo(1)));
+        }
+        // a failing resource does not stop the ones after it
+        assertThat(details, is(equalTo(expectedDetailsWithFailures())));
+        assertThat(fetcher.started, is(equalTo(new HashSet<>(QUEUES))));
+    }
+
+    @Test
+    public void resolveEachInParallelReportsAllFailuresAtTheEnd() {
+        List<String> details = new ArrayList<>();
+        StubFetcher fetcher = new StubFetcher(4);
+
+        try {
+            fetcher.fetchResources(QUEUES, details);
+            fail("the failures should fail the fetch");
+        } catch (ResourceFetchException e) {
+            assertThat(new ArrayList<>(e.getFailures().keySet()), is(equalTo(Arrays.asList("broken4", "broken6"))));
+        }
+        assertThat(details, is(equalTo(expectedDetailsWithFailures())));
+        assertThat(fetcher.started, is(equalTo(new HashSet<>(QUEUES))));
+        assertThat(running.get(), is(equalTo(0)));
+    }
+
+    private static List<String> expectedDetailsWithFailures() {
+        List<String> details = new ArrayList<>(expectedDetails());
+        details.add("Resources info for: [queue5]");
+        return details;
+    }
+
+    private static List<String> expectedDetails() {
+        return Arrays.asList(
+                "Resources info for: [queue1]",
+                "Resources info for: [queue2]",
+                "!!! SQS resource not exists: missing3");
+    }
+
+    private static List<String> names(Set<SQSResource> resources) {
+        List<String> names = new ArrayList<>();
+        resources.forEach(resource -> names.add(resource.getResourceName()));
+        return names;
+    }
+
+    private class StubFetcher extends ResourceFetcherWithProvider {
+        private final Set<String> started = Collections.synchronizedSet(new HashSet<>());
+
+        private StubFetcher(int parallelism) {
+            super(new ResourceFetcherConfiguration(null, null).setParallelism(parallelism));
+        }
+
+        private Set<SQSResource> fetchResources(List<String> queues, List<String> details) {
+            CollectingResourceSink<SQSResource> sink = new CollectingResourceSink<>(details);
+            resolveEach(queues, sink, (queueName, resourceSink) -> {
+                started.add(queueName);
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    // earlier queues take longer, so they finish last when resolved in parallel
+                    TimeUnit.MILLISECONDS.sleep(10L * (queues.size() - queues.indexOf(queueName)));
+                    if (queueName.startsWith("broken")) {
+                        throw new IllegalStateException("Access denied");
+                    }
+                    if (queueName.startsWith("missing")) {
+                        resourceSink.onMissing(queueName, "!!! SQS resource not exists: " + queueName);
+                        return;
+                    }
+                    resourceSink.onResource(new SQSResource().setResourceName(queueName));
+                    resourceSink.onDetail(queueName, "Resources info for: [" + queueName + "]");
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+            return sink.getResources();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cache;
+
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcher;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
+import io.github.odalabasmaz.awsgenie.fetcher.Service;
+import io.github.odalabasmaz.awsgenie.fetcher.sqs.SQSResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingResourceFetcherTest {
+    private static final String TEST_REGION = "us-west-2";
+    private static final ResourceFetcherConfiguration CONFIGURATION =
+            new ResourceFetcherConfiguration("arn:aws:iam::111111111111:role/genie", TEST_REGION);
+
+    @Mock
+    private ResourceFetcher<SQSResource> sqsResourceFetcher;
+
+    private UsageCache usageCache;
+
+    @Before
+    public void setUp() {
+        usageCache = new UsageCache(60_000);
+        doReturn(new LinkedHashMap<String, Object>() {{
+            put("queue1", 0.0);
+            put("queue2", 1.0);
+        }}).when(sqsResourceFetcher).getUsage(eq(TEST_REGION), eq(Arrays.asList("queue1", "queue2")), eq(7));
+    }
+
+    @Test
+    public void reusesUsageOfDryRun() {
+        new CachingResourceFetcher<>(sqsResourceFetcher, Service.SQS, CONFIGURATION, usageCache, false)
+                .getUsage(TEST_REGION, Arrays.asList("queue1", "queue2"), 7);
+
+        Map<String, Object> usages = new CachingResourceFetcher<>(sqsResourceFetcher, Service.SQS, CONFIGURATION, usageCache, false)
+                .getUsage(TEST_REGION, Arrays.asList("queue2", "queue1"), 7);
+
+        assertThat(new ArrayList<>(usages.keySet()), is(equalTo(Arrays.asList("queue2", "queue1"))));
+        assertThat(usages.get("queue1"), is(equalTo(0.0)));
+        assertThat(usages.get("queue2"), is(equalTo(1.0)));
+        verify(sqsResourceFetcher, times(1)).getUsage(eq(TEST_REGION), anyList(), eq(7));
+        assertThat(usageCache.getHits(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void revalidatesUnusedResourcesBeforeDeleting() {
+        doReturn(Collections.singletonMap("queue1", 3.0))
+                .when(sqsResourceFetcher).getUsage(eq(TEST_REGION), eq(Collections.singletonList("queue1")), eq(7));
+        new CachingResourceFetcher<>(sqsResourceFetcher, Service.SQS, CONFIGURATION, usageCache, false)
+                .getUsage(TEST_REGION, Arrays.asList("queue1", "queue2"), 7);
+
+        Map<String, Object> usages = new CachingResourceFetcher<>(sqsResourceFetcher, Service.SQS, CONFIGURATION, usageCache, true)
+                .getUsage(TEST_REGION, Arrays.asList("queue1", "queue2"), 7);
+
+        assertThat(usages.get("queue1"), is(equalTo(3.0)));
+        assertThat(usages.get("queue2"), is(equalTo(1.0)));
+        assertThat(usageCache.getRevalidations(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void usagesOfOtherCredentialsAreNotReused() {
+        // no role is assumed, the account comes from the credentials in use
+        new CachingResourceFetcher<>(sqsResourceFetcher, Service.SQS, () -> "222222222222", usageCache, false)
+                .getUsage(TEST_REGION, Arrays.asList("queue1", "queue2"), 7);
+
+        new CachingResourceFetcher<>(sqsResourceFetcher, Service.SQS, () -> "333333333333", usageCache, false)
+                .getUsage(TEST_REGION, Arrays.asList("queue1", "queue2"), 7);
+
+        verify(sqsResourceFetcher, times(2)).getUsage(eq(TEST_REGION), anyList(), eq(7));
+        assertThat(usageCache.getHits(), is(equalTo(0L)));
+    }
+}
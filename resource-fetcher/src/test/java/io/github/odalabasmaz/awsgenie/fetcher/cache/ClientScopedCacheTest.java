@@ -0,0 +1,40 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ClientScopedCacheTest {
+
+    @Test
+    public void loadsOncePerClientWithinTtl() {
+        AtomicInteger loads = new AtomicInteger();
+        ClientScopedCache<String, String> cache = new ClientScopedCache<>(60_000, client -> client + "-" + loads.incrementAndGet());
+
+        assertThat(cache.get("client1"), is(equalTo("client1-1")));
+        assertThat(cache.get("client1"), is(equalTo("client1-1")));
+        assertThat(cache.get("client2"), is(equalTo("client2-2")));
+        assertThat(loads.get(), is(equalTo(2)));
+    }
+
+    @Test
+    public void reloadsAfterTtl() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ClientScopedCache<String, Integer> cache = new ClientScopedCache<>(50, client -> loads.incrementAndGet());
+        assertThat(cache.get("client1"), is(equalTo(1)));
+
+        Thread.sleep(100);
+
+        assertThat(cache.get("client1"), is(equalTo(2)));
+    }
+
+    @Test
+    public void bulkLookupStartsAtTheThreshold() {
+        assertThat(ClientScopedCache.isBulkLookup(1, 2), is(false));
+        assertThat(ClientScopedCache.isBulkLookup(2, 2), is(true));
+        assertThat(ClientScopedCache.isBulkLookup(1000, 0), is(false));
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cache;
+
+import io.github.odalabasmaz.awsgenie.fetcher.Service;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Date;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class UsageCacheTest {
+    private static final String TABLE_1 = UsageCache.key("111111111111", "us-west-2", Service.DYNAMODB, "table1", 7);
+    private static final String TABLE_2 = UsageCache.key("111111111111", "us-west-2", Service.DYNAMODB, "table2", 7);
+    private static final String TABLE_3 = UsageCache.key("111111111111", "us-west-2", Service.DYNAMODB, "table3", 7);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void expiresEntriesAfterTtl() throws Exception {
+        UsageCache usageCache = new UsageCache(50);
+        usageCache.put(TABLE_1, 1d);
+        assertThat(usageCache.get(TABLE_1).getUsage(), is(equalTo(1d)));
+
+        Thread.sleep(100);
+
+        assertThat(usageCache.get(TABLE_1), is(nullValue()));
+        assertThat(usageCache.getHits(), is(equalTo(1L)));
+        assertThat(usageCache.getMisses(), is(equalTo(1L)));
+        assertThat(usageCache.getHitRate(), is(equalTo(0.5)));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        UsageCache usageCache = new UsageCache(60_000, 2, null);
+        usageCache.put(TABLE_1, 1d);
+        usageCache.put(TABLE_2, 2d);
+        usageCache.get(TABLE_1);
+        usageCache.put(TABLE_3, 3d);
+
+        assertThat(usageCache.size(), is(equalTo(2)));
+        assertThat(usageCache.get(TABLE_1), is(notNullValue()));
+        assertThat(usageCache.get(TABLE_2), is(nullValue()));
+    }
+
+    @Test
+    public void countsRejectedUsageAsRevalidation() {
+        UsageCache usageCache = new UsageCache(60_000);
+        usageCache.put(TABLE_1, 0d);
+
+        assertThat(usageCache.get(TABLE_1, usage -> (Double) usage > 0), is(nullValue()));
+        assertThat(usageCache.getRevalidations(), is(equalTo(1L)));
+        assertThat(usageCache.getStatistics(), is(equalTo("hits: 0, misses: 0, revalidated: 1, hit rate: 0.0%")));
+    }
+
+    @Test
+    public void sharesEntriesThroughFile() throws Exception {
+        String file = new File(temporaryFolder.getRoot(), "usage.cache").getPath();
+        Date lastUsed = new Date(1_600_000_000_000L);
+        UsageCache usageCache = new UsageCache(60_000, UsageCache.DEFAULT_MAX_ENTRIES, file);
+        usageCache.put(TABLE_1, 1d);
+        usageCache.put(TABLE_2, lastUsed);
+        usageCache.put(TABLE_3, null);
+        usageCache.save();
+
+        UsageCache nextRun = new UsageCache(60_000, UsageCache.DEFAULT_MAX_ENTRIES, file);
+
+        assertThat(nextRun.size(), is(equalTo(3)));
+        assertThat(nextRun.get(TABLE_1).getUsage(), is(equalTo(1d)));
+        assertThat(nextRun.get(TABLE_2).getUsage(), is(equalTo(lastUsed)));
+        assertThat(nextRun.get(TABLE_3).getUsage(), is(nullValue()));
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cloudwatch;
+
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.DescribeAlarmsRequest;
+import com.amazonaws.services.cloudwatch.model.DescribeAlarmsResult;
+import com.amazonaws.services.cloudwatch.model.MetricAlarm;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AlarmCatalogTest {
+    @Mock
+    private AmazonCloudWatch cloudWatchClient;
+
+    @Test
+    public void loadsAllAlarmsOnceForLargeRuns() {
+        when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest()))
+                .thenReturn(new DescribeAlarmsResult()
+                        .withMetricAlarms(alarm("SQS Queue queue1 has messages"), alarm("SQS Queue queue10 is old"))
+                        .withNextToken("nextToken"));
+        when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withNextToken("nextToken")))
+                .thenReturn(new DescribeAlarmsResult()
+                        .withMetricAlarms(alarm("DynamoDB table table1 is throttled"), alarm("SQS Queue queue1 is old")));
+
+        AlarmCatalog alarmCatalog = AlarmCatalog.of(cloudWatchClient, 20, 20);
+
+        assertThat(alarmCatalog.isLoaded(), is(true));
+        assertThat(alarmCatalog.findAlarms("SQS Queue queue1 "),
+                is(equalTo(Arrays.asList("SQS Queue queue1 has messages", "SQS Queue queue1 is old"))));
+        assertThat(alarmCatalog.findAlarms("SQS Queue queue10 "),
+                is(equalTo(Collections.singletonList("SQS Queue queue10 is old"))));
+        assertThat(alarmCatalog.findAlarms("SQS Queue queue2 ").isEmpty(), is(true));
+
+        // other fetchers of the run share the loaded alarms
+        assertThat(AlarmCatalog.of(cloudWatchClient, 50, 20), is(sameInstance(alarmCatalog)));
+        verify(cloudWatchClient, times(2)).describeAlarms(any(DescribeAlarmsRequest.class));
+    }
+
+    @Test
+    public void describesEachPrefixForSmallRuns() {
+        when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("SQS Queue queue1 ")))
+                .thenReturn(new DescribeAlarmsResult().withMetricAlarms(alarm("SQS Queue queue1 is old")));
+
+        AlarmCatalog alarmCatalog = AlarmCatalog.of(cloudWatchClient, 19, 20);
+
+        assertThat(alarmCatalog.isLoaded(), is(false));
+        assertThat(alarmCatalog.findAlarms("SQS Queue queue1 "),
+                is(equalTo(Collections.singletonList("SQS Queue queue1 is old"))));
+        verify(cloudWatchClient).describeAlarms(any(DescribeAlarmsRequest.class));
+    }
+
+    @Test
+    public void neverLoadsAllAlarmsWhenDisabled() {
+        assertThat(AlarmCatalog.of(cloudWatchClient, 1000, 0).isLoaded(), is(false));
+        verifyZeroInteractions(cloudWatchClient);
+    }
+
+    private static MetricAlarm alarm(String alarmName) {
+        return new MetricAlarm().withAlarmName(alarmName);
+    }
+}
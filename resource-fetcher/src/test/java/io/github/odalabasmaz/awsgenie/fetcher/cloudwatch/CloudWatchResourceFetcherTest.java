@@ -16,6 +16,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -98,4 +99,18 @@ public class CloudWatchResourceFetcherTest {
         assertThat(actualAlarms, hasItem(new CloudWatchResource().setResourceName("alarm3")));
         assertThat(actualAlarms, hasItem(new CloudWatchResource().setResourceName("alarm4")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void fetchResourcesRequestsEachAlarmOnce() {
+        when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNames("alarm1", "alarm2")))
+                .thenReturn(new DescribeAlarmsResult().withMetricAlarms(
+                        new MetricAlarm().withAlarmName("alarm1"), new MetricAlarm().withAlarmName("alarm2")));
+
+        List<String> details = new ArrayList<>();
+        Set<CloudWatchResource> actualAlarms = cloudwatchResourceFetcher.fetchResources(TEST_REGION,
+                Arrays.asList("alarm1", "alarm2", "alarm1"), details);
+
+        verify(cloudWatchClient).describeAlarms(new DescribeAlarmsRequest().withAlarmNames("alarm1", "alarm2"));
+        assertThat(actualAlarms.size(), is(equalTo(2)));
+    }
+}
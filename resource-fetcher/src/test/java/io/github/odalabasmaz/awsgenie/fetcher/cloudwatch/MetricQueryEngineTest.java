@@ -0,0 +1,107 @@
+package io.github.odalabasmaz.awsgenie.fetcher.cloudwatch;
+
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.GetMetricDataRequest;
+import com.amazonaws.services.cloudwatch.model.GetMetricDataResult;
+import com.amazonaws.services.cloudwatch.model.MetricDataQuery;
+import com.amazonaws.services.cloudwatch.model.MetricDataResult;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MetricQueryEngineTest {
+    private static final UsageMetrics TABLE_USAGE = new UsageMetrics("AWS/DynamoDB", "TableName",
+            "ConsumedReadCapacityUnits", "ConsumedWriteCapacityUnits");
+
+    @Mock
+    private AmazonCloudWatch cloudWatchClient;
+
+    @Test
+    public void packsResourcesIntoFewRequests() {
+        List<String> tables = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            tables.add("table" + i);
+        }
+        when(cloudWatchClient.getMetricData(any(GetMetricDataRequest.class)))
+                .thenAnswer(invocation -> usageOfEach((GetMetricDataRequest) invocation.getArguments()[0]));
+
+        Map<String, Double> usages = new MetricQueryEngine(cloudWatchClient).getUsage(tables, TABLE_USAGE, 7);
+
+        ArgumentCaptor<GetMetricDataRequest> requests = ArgumentCaptor.forClass(GetMetricDataRequest.class);
+        verify(cloudWatchClient, times(2)).getMetricData(requests.capture());
+        GetMetricDataRequest firstRequest = requests.getAllValues().get(0);
+        assertThat(firstRequest.getMetricDataQueries().size(), is(equalTo(500)));
+        assertThat(requests.getAllValues().get(1).getMetricDataQueries().size(), is(equalTo(100)));
+        assertThat(firstRequest.getMetricDataQueries().get(0).getMetricStat().getPeriod(),
+                is(equalTo((int) TimeUnit.DAYS.toSeconds(7))));
+        assertThat(firstRequest.getEndTime().getTime() - firstRequest.getStartTime().getTime(),
+                is(equalTo(TimeUnit.DAYS.toMillis(7))));
+
+        // both metrics of a table count, each with its table index
+        assertThat(new ArrayList<>(usages.keySet()), is(equalTo(tables)));
+        assertThat(usages.get("table0"), is(equalTo(0d)));
+        assertThat(usages.get("table299"), is(equalTo(598d)));
+    }
+
+    @Test
+    public void sumsValuesAcrossPagesAndDefaultsMissingUsage() {
+        when(cloudWatchClient.getMetricData(any(GetMetricDataRequest.class)))
+                .thenReturn(new GetMetricDataResult()
+                        .withMetricDataResults(new MetricDataResult().withId("r0m1").withStatusCode("PartialData")
+                                .withValues(5d))
+                        .withNextToken("nextToken"))
+                .thenReturn(new GetMetricDataResult()
+                        .withMetricDataResults(
+                                new MetricDataResult().withId("r0m1").withStatusCode("Complete").withValues(3d),
+                                new MetricDataResult().withId("r0m2").withStatusCode("Complete").withValues(2d),
+                                new MetricDataResult().withId("r1m1").withStatusCode("Complete")));
+
+        Map<String, Double> usages = new MetricQueryEngine(cloudWatchClient)
+                .getUsage(Arrays.asList("table1", "table2"), TABLE_USAGE, 7);
+
+        ArgumentCaptor<GetMetricDataRequest> requests = ArgumentCaptor.forClass(GetMetricDataRequest.class);
+        verify(cloudWatchClient, times(2)).getMetricData(requests.capture());
+        assertThat(requests.getAllValues().get(1).getNextToken(), is(equalTo("nextToken")));
+        assertThat(usages.get("table1"), is(equalTo(10d)));
+        assertThat(usages.get("table2"), is(equalTo(0d)));
+    }
+
+    @Test
+    public void mapsResourcesToDimensionValues() {
+        when(cloudWatchClient.getMetricData(any(GetMetricDataRequest.class)))
+                .thenReturn(new GetMetricDataResult());
+        UsageMetrics topicUsage = new UsageMetrics("AWS/SNS", "TopicName",
+                topicArn -> topicArn.substring(topicArn.lastIndexOf(':') + 1), "NumberOfMessagesPublished");
+
+        Map<String, Double> usages = new MetricQueryEngine(cloudWatchClient)
+                .getUsage(Collections.singletonList("arn:aws:sns:us-west-2:111111111111:topic1"), topicUsage, 7);
+
+        ArgumentCaptor<GetMetricDataRequest> request = ArgumentCaptor.forClass(GetMetricDataRequest.class);
+        verify(cloudWatchClient).getMetricData(request.capture());
+        assertThat(request.getValue().getMetricDataQueries().get(0).getMetricStat().getMetric().getDimensions().get(0).getValue(),
+                is(equalTo("topic1")));
+        assertThat(usages.keySet(), hasItem("arn:aws:sns:us-west-2:111111111111:topic1"));
+    }
+
+    private GetMetricDataResult usageOfEach(GetMetricDataRequest request) {
+        GetMetricDataResult result = new GetMetricDataResult();
+        for (MetricDataQuery query : request.getMetricDataQueries()) {
+            String resourceIndex = query.getId().substring(1, query.getId().indexOf('m'));
+            result.withMetricDataResults(new MetricDataResult()
+                    .withId(query.getId())
+                    .withStatusCode("Complete")
+                    .withValues(Double.valueOf(resourceIndex)));
+        }
+        return result;
+    }
+}
@@ -2,20 +2,37 @@ package io.github.odalabasmaz.awsgenie.fetcher.credentials;
 
 
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.sqs.AmazonSQS;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
+import io.github.odalabasmaz.awsgenie.fetcher.Service;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotEquals;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AWSClientProviderTest {
 
 
+    private String accessKeyId;
+    private String secretKey;
+
     @Before
     public void setup() {
+        accessKeyId = System.getProperty("aws.accessKeyId");
+        secretKey = System.getProperty("aws.secretKey");
+    }
+
+    @After
+    public void tearDown() {
+        restoreProperty("aws.accessKeyId", accessKeyId);
+        restoreProperty("aws.secretKey", secretKey);
     }
 
     @Test
@@ -65,4 +82,202 @@ public class AWSClientProviderTest {
         AmazonCloudWatch amazonCloudWatchRegion2 = instanceRegion2.getAmazonCloudWatch();
         assertNotEquals(amazonCloudWatchRegion1, amazonCloudWatchRegion2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void checkClientHasChangedIfAssumeRoleIsDifferent() {
+        AWSClientProvider instanceAccount1 = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::111111111111:role/role1", "us-east-1"));
+        AWSClientProvider instanceAccount2 = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::222222222222:role/role1", "us-east-1"));
+
+        assertNotSame(instanceAccount1, instanceAccount2);
+        assertEquals("arn:aws:iam::111111111111:role/role1", instanceAccount1.getAssumeRoleArn());
+        assertEquals("arn:aws:iam::222222222222:role/role1", instanceAccount2.getAssumeRoleArn());
+        assertNotSame(instanceAccount1.getAwsCredentialsProvider(), instanceAccount2.getAwsCredentialsProvider());
+        assertNotSame(instanceAccount1.getAmazonSQS(), instanceAccount2.getAmazonSQS());
+    }
+
+    @Test
+    public void assumedRoleCredentialsAreSharedAcrossRegions() {
+        AWSClientProvider instanceRegion1 = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::666666666666:role/role1", "us-east-1"));
+        AWSClientProvider instanceRegion2 = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::666666666666:role/role1", "eu-west-1"));
+
+        assertNotSame(instanceRegion1, instanceRegion2);
+        assertSame(instanceRegion1.getAwsCredentialsProvider(), instanceRegion2.getAwsCredentialsProvider());
+    }
+
+    @Test
+    public void assumedRoleCredentialsAreNotSharedAcrossEndpoints() {
+        AWSClientProvider instance = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::888888888888:role/role1", "us-east-1"));
+        AWSClientProvider instanceEndpoint = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::888888888888:role/role1", "us-east-1", "http://localhost:4566"));
+
+        assertNotSame(instance.getAwsCredentialsProvider(), instanceEndpoint.getAwsCredentialsProvider());
+    }
+
+    @Test
+    public void assumedRoleCredentialsAreNotSharedAcrossProfiles() {
+        AWSClientProvider instance = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::999999999999:role/role1", "us-east-1"));
+        AWSClientProvider instanceLargePool = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::999999999999:role/role1", "us-east-1")
+                        .setClientConfigurationProfile(ClientConfigurationProfile.defaultProfile().setMaxConnections(512)));
+
+        assertNotSame(instance.getAwsCredentialsProvider(), instanceLargePool.getAwsCredentialsProvider());
+    }
+
+    @Test
+    public void stsRegionIsTakenFromThePartitionOfTheRole() {
+        assertEquals("us-east-1", AWSClientProvider.getStsRegion("arn:aws:iam::111111111111:role/role1"));
+        assertEquals("cn-north-1", AWSClientProvider.getStsRegion("arn:aws-cn:iam::111111111111:role/role1"));
+        assertEquals("us-gov-west-1", AWSClientProvider.getStsRegion("arn:aws-us-gov:iam::111111111111:role/role1"));
+    }
+
+    @Test
+    public void accountIsTakenFromAssumedRole() {
+        AWSClientProvider instance = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws-cn:iam::777777777777:role/role1", "cn-north-1"));
+
+        // no caller identity call is needed, the role names its account
+        assertEquals("777777777777", instance.getAccountId());
+        assertEquals("aws-cn", instance.getPartition());
+    }
+
+    @Test
+    public void checkClientHasChangedIfEndpointIsDifferent() {
+        AWSClientProvider instance = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration(null, "us-east-1"));
+        AWSClientProvider instanceWithEndpoint = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration(null, "us-east-1", "http://localhost:4566"));
+
+        assertNotSame(instance, instanceWithEndpoint);
+        assertNotSame(instance.getAmazonSQS(), instanceWithEndpoint.getAmazonSQS());
+    }
+
+    @Test
+    public void checkClientHasChangedIfProfileIsDifferent() {
+        AWSClientProvider instance = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration(null, "eu-central-1"));
+        AWSClientProvider instanceSameProfile = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration(null, "eu-central-1")
+                        .setClientConfigurationProfile(ClientConfigurationProfile.defaultProfile()));
+        ClientConfigurationProfile largePool = ClientConfigurationProfile.defaultProfile().setMaxConnections(512);
+        AWSClientProvider instanceLargePool = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration(null, "eu-central-1").setClientConfigurationProfile(largePool));
+
+        assertSame(instance, instanceSameProfile);
+        assertNotSame(instance, instanceLargePool);
+
+        // the provider keeps the profile it was created with
+        largePool.setMaxConnections(1024);
+        assertNotSame(instanceLargePool, AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration(null, "eu-central-1").setClientConfigurationProfile(largePool)));
+    }
+
+    @Test
+    public void asyncExecutorIsSharedPerAsyncSettings() {
+        ExecutorService executor = AWSClientProvider.getAsyncExecutor(ClientConfigurationProfile.defaultProfile());
+
+        assertSame(executor, AWSClientProvider.getAsyncExecutor(ClientConfigurationProfile.defaultProfile().setMaxConnections(512)));
+        assertNotSame(executor, AWSClientProvider.getAsyncExecutor(ClientConfigurationProfile.defaultProfile().setAsyncThreads(8)));
+        assertNotSame(executor, AWSClientProvider.getAsyncExecutor(ClientConfigurationProfile.defaultProfile().setAsyncQueueCapacity(16)));
+    }
+
+    @Test
+    public void checkClientHasChangedIfSessionCacheDirectoryIsDifferent() {
+        AWSClientProvider instance = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::666666666666:role/role1", "us-east-1"));
+        AWSClientProvider instanceWithSessionCache = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration("arn:aws:iam::666666666666:role/role1", "us-east-1")
+                        .setSessionCacheDirectory("/tmp/awsgenie-sessions"));
+
+        assertNotSame(instance, instanceWithSessionCache);
+        assertNotSame(instance.getAwsCredentialsProvider(), instanceWithSessionCache.getAwsCredentialsProvider());
+    }
+
+    @Test
+    public void warmUpBuildsEveryClientOfTheService() {
+        System.setProperty("aws.accessKeyId", "warmUp");
+        System.setProperty("aws.secretKey", "warmUp");
+        AWSClientProvider instance = AWSClientProvider.getInstance(
+                new ResourceFetcherConfiguration(null, "us-east-1", "http://localhost:4567"));
+
+        List<ClientWarmUpResult> results = instance.warmUp(Service.SQS.getClientTypes());
+
+        assertEquals(Service.SQS.getClientTypes().size(), results.size());
+        for (ClientWarmUpResult result : results) {
+            assertTrue(Service.SQS.getClientTypes().contains(result.getClientType()));
+            assertTrue(result.getColdNanos() > 0);
+        }
+        assertSame(instance.getAmazonSQS(), instance.getAmazonSQS());
+    }
+
+    @Test
+    public void concurrentLookupsCreateEachClientOnce() throws Exception {
+        List<String> roles = Arrays.asList(
+                "arn:aws:iam::333333333333:role/scanner",
+                "arn:aws:iam::444444444444:role/scanner",
+                "arn:aws:iam::555555555555:role/scanner");
+        List<String> regions = Arrays.asList("us-east-1", "eu-west-1", "ap-southeast-2");
+        int threadCount = 32;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        Map<String, Set<AWSClientProvider>> providersByTarget = new ConcurrentHashMap<>();
+        Map<String, Set<AmazonSQS>> sqsClientsByTarget = new ConcurrentHashMap<>();
+        Map<String, Set<AmazonCloudWatch>> cloudWatchClientsByTarget = new ConcurrentHashMap<>();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            int offset = i;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                for (int j = 0; j < roles.size() * regions.size(); j++) {
+                    int index = (j + offset) % (roles.size() * regions.size());
+                    String role = roles.get(index / regions.size());
+                    String region = regions.get(index % regions.size());
+                    String target = role + "|" + region;
+
+                    AWSClientProvider provider = AWSClientProvider.getInstance(new ResourceFetcherConfiguration(role, region));
+                    assertEquals(role, provider.getAssumeRoleArn());
+                    assertEquals(region, provider.getRegion());
+
+                    providersByTarget.computeIfAbsent(target, k -> ConcurrentHashMap.newKeySet()).add(provider);
+                    sqsClientsByTarget.computeIfAbsent(target, k -> ConcurrentHashMap.newKeySet()).add(provider.getAmazonSQS());
+                    cloudWatchClientsByTarget.computeIfAbsent(target, k -> ConcurrentHashMap.newKeySet()).add(provider.getAmazonCloudWatch());
+                }
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int targetCount = roles.size() * regions.size();
+        assertEquals(targetCount, providersByTarget.size());
+        Set<AmazonSQS> allSqsClients = new HashSet<>();
+        Set<Object> allCredentialsProviders = new HashSet<>();
+        for (String target : providersByTarget.keySet()) {
+            assertEquals("duplicate providers for " + target, 1, providersByTarget.get(target).size());
+            assertEquals("duplicate sqs clients for " + target, 1, sqsClientsByTarget.get(target).size());
+            assertEquals("duplicate cloudwatch clients for " + target, 1, cloudWatchClientsByTarget.get(target).size());
+            allSqsClients.addAll(sqsClientsByTarget.get(target));
+            allCredentialsProviders.add(providersByTarget.get(target).iterator().next().getAwsCredentialsProvider());
+        }
+        assertEquals(targetCount, allSqsClients.size());
+        assertEquals(roles.size(), allCredentialsProviders.size());
+    }
+
+    private static void restoreProperty(String key, String value) {
+        if (value == null) {
+            System.clearProperty(key);
+        } else {
+            System.setProperty(key, value);
+        }
+    }
+}
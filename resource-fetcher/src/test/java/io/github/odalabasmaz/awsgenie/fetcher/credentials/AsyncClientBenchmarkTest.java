@@ -0,0 +1,130 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
+import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
+import com.sun.net.httpserver.HttpServer;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares blocking and async clients against a local stub endpoint that answers every call after a fixed delay.
+ * Run with {@code -Dawsgenie.benchmark=true}.
+ */
+public class AsyncClientBenchmarkTest {
+    private static final int REQUESTS = 200;
+    private static final int STUB_LATENCY_MILLIS = 20;
+    private static final byte[] LIST_TABLES_RESPONSE = "{\"TableNames\":[\"table-1\"]}".getBytes(StandardCharsets.UTF_8);
+
+    private static final Logger LOGGER = LogManager.getLogger(AsyncClientBenchmarkTest.class);
+
+    private String accessKeyId;
+    private String secretKey;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AWSClientProvider clientProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        accessKeyId = System.getProperty("aws.accessKeyId");
+        secretKey = System.getProperty("aws.secretKey");
+        Assume.assumeTrue(Boolean.getBoolean("awsgenie.benchmark"));
+        System.setProperty("aws.accessKeyId", "benchmark");
+        System.setProperty("aws.secretKey", "benchmark");
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream requestBody = exchange.getRequestBody()) {
+                while (requestBody.read() != -1) {
+                    // drain the request
+                }
+                TimeUnit.MILLISECONDS.sleep(STUB_LATENCY_MILLIS);
+                exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+                exchange.sendResponseHeaders(200, LIST_TABLES_RESPONSE.length);
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(LIST_TABLES_RESPONSE);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(256);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        String endpoint = "http://localhost:" + server.getAddress().getPort();
+        clientProvider = AWSClientProvider.getInstance(new ResourceFetcherConfiguration(null, "us-east-1", endpoint));
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+        restoreProperty("aws.accessKeyId", accessKeyId);
+        restoreProperty("aws.secretKey", secretKey);
+    }
+
+    @Test
+    public void asyncClientKeepsManyRequestsInFlight() throws Exception {
+        AmazonDynamoDB blockingClient = clientProvider.getAmazonDynamoDB();
+        AmazonDynamoDBAsync asyncClient = clientProvider.getAmazonDynamoDBAsync();
+        blockingClient.listTables(new ListTablesRequest());
+        asyncClient.listTablesAsync(new ListTablesRequest()).get();
+
+        long blockingStart = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertThat(blockingClient.listTables(new ListTablesRequest()).getTableNames().size(), is(equalTo(1)));
+        }
+        long blockingNanos = System.nanoTime() - blockingStart;
+
+        long asyncStart = System.nanoTime();
+        List<Future<ListTablesResult>> futures = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(asyncClient.listTablesAsync(new ListTablesRequest()));
+        }
+        for (Future<ListTablesResult> future : futures) {
+            assertThat(future.get().getTableNames().size(), is(equalTo(1)));
+        }
+        long asyncNanos = System.nanoTime() - asyncStart;
+
+        LOGGER.info(String.format("%d requests, %d ms stub latency: blocking %.1f req/s, async %.1f req/s",
+                REQUESTS, STUB_LATENCY_MILLIS, throughput(blockingNanos), throughput(asyncNanos)));
+    }
+
+    private static double throughput(long nanos) {
+        return REQUESTS / (nanos / 1_000_000_000d);
+    }
+
+    private static void restoreProperty(String key, String value) {
+        if (value == null) {
+            System.clearProperty(key);
+        } else {
+            System.setProperty(key, value);
+        }
+    }
+}
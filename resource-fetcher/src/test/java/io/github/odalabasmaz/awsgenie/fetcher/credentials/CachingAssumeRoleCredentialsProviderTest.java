@@ -0,0 +1,126 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+import com.amazonaws.services.securitytoken.model.AWSSecurityTokenServiceException;
+import com.amazonaws.services.securitytoken.model.AssumeRoleRequest;
+import com.amazonaws.services.securitytoken.model.AssumeRoleResult;
+import com.amazonaws.services.securitytoken.model.Credentials;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingAssumeRoleCredentialsProviderTest {
+    private static final String ROLE = "arn:aws:iam::111111111111:role/role1";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private AWSSecurityTokenService stsClient;
+
+    @Test
+    public void validSessionIsReused() {
+        when(stsClient.assumeRole(any(AssumeRoleRequest.class)))
+                .thenReturn(result("key1", TimeUnit.HOURS.toMillis(1)));
+        CachingAssumeRoleCredentialsProvider provider = new CachingAssumeRoleCredentialsProvider(ROLE, stsClient, null);
+
+        provider.getCredentials();
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key1")));
+
+        verify(stsClient, times(1)).assumeRole(any(AssumeRoleRequest.class));
+    }
+
+    @Test
+    public void sessionExpiringWithinMarginIsReplaced() {
+        when(stsClient.assumeRole(any(AssumeRoleRequest.class)))
+                .thenReturn(result("key1", CachingAssumeRoleCredentialsProvider.EXPIRY_MARGIN_MILLIS / 2))
+                .thenReturn(result("key2", TimeUnit.HOURS.toMillis(1)));
+        CachingAssumeRoleCredentialsProvider provider = new CachingAssumeRoleCredentialsProvider(ROLE, stsClient, null);
+
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key1")));
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key2")));
+
+        verify(stsClient, times(2)).assumeRole(any(AssumeRoleRequest.class));
+    }
+
+    @Test
+    public void sessionIsRefreshedInTheBackgroundWhenUsedBeforeExpiry() {
+        when(stsClient.assumeRole(any(AssumeRoleRequest.class)))
+                .thenReturn(result("key1", CachingAssumeRoleCredentialsProvider.REFRESH_AHEAD_MILLIS / 2))
+                .thenReturn(result("key2", TimeUnit.HOURS.toMillis(1)));
+        CachingAssumeRoleCredentialsProvider provider = new CachingAssumeRoleCredentialsProvider(ROLE, stsClient, null);
+
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key1")));
+        // the session is still valid, the refresh does not block the caller
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key1")));
+
+        verify(stsClient, timeout(5000).times(2)).assumeRole(any(AssumeRoleRequest.class));
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key2")));
+    }
+
+    @Test
+    public void unusedSessionIsNotRefreshed() throws Exception {
+        when(stsClient.assumeRole(any(AssumeRoleRequest.class)))
+                .thenReturn(result("key1", CachingAssumeRoleCredentialsProvider.REFRESH_AHEAD_MILLIS / 2));
+        CachingAssumeRoleCredentialsProvider provider = new CachingAssumeRoleCredentialsProvider(ROLE, stsClient, null);
+
+        provider.getCredentials();
+        Thread.sleep(200);
+
+        verify(stsClient, times(1)).assumeRole(any(AssumeRoleRequest.class));
+    }
+
+    @Test
+    public void failedBackgroundRefreshIsRetriedOnALaterUse() throws Exception {
+        when(stsClient.assumeRole(any(AssumeRoleRequest.class)))
+                .thenReturn(result("key1", CachingAssumeRoleCredentialsProvider.REFRESH_AHEAD_MILLIS / 2))
+                .thenThrow(new AWSSecurityTokenServiceException("Service unavailable"))
+                .thenReturn(result("key2", TimeUnit.HOURS.toMillis(1)));
+        CachingAssumeRoleCredentialsProvider provider = new CachingAssumeRoleCredentialsProvider(ROLE, stsClient, null, 100);
+
+        provider.getCredentials();
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key1")));
+        verify(stsClient, timeout(5000).times(2)).assumeRole(any(AssumeRoleRequest.class));
+
+        Thread.sleep(300);
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key1")));
+
+        verify(stsClient, timeout(5000).times(3)).assumeRole(any(AssumeRoleRequest.class));
+        assertThat(provider.getCredentials().getAWSAccessKeyId(), is(equalTo("key2")));
+    }
+
+    @Test
+    public void sessionCacheIsReusedByANewProvider() {
+        when(stsClient.assumeRole(any(AssumeRoleRequest.class)))
+                .thenReturn(result("key1", TimeUnit.HOURS.toMillis(1)));
+        EncryptedSessionCache sessionCache = new EncryptedSessionCache(temporaryFolder.getRoot().toPath(), "passphrase");
+
+        new CachingAssumeRoleCredentialsProvider(ROLE, stsClient, sessionCache).getCredentials();
+        CachingAssumeRoleCredentialsProvider nextRun = new CachingAssumeRoleCredentialsProvider(ROLE, stsClient,
+                new EncryptedSessionCache(temporaryFolder.getRoot().toPath(), "passphrase"));
+
+        assertThat(nextRun.getCredentials().getAWSAccessKeyId(), is(equalTo("key1")));
+        verify(stsClient, times(1)).assumeRole(any(AssumeRoleRequest.class));
+    }
+
+    private static AssumeRoleResult result(String accessKeyId, long expiresInMillis) {
+        return new AssumeRoleResult().withCredentials(new Credentials()
+                .withAccessKeyId(accessKeyId)
+                .withSecretAccessKey("secretAccessKey")
+                .withSessionToken("sessionToken")
+                .withExpiration(new Date(System.currentTimeMillis() + expiresInMillis)));
+    }
+}
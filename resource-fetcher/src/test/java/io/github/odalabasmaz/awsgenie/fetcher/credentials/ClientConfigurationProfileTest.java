@@ -0,0 +1,64 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import com.amazonaws.ClientConfiguration;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class ClientConfigurationProfileTest {
+
+    @Test
+    public void defaultProfileIsAppliedToEveryClient() {
+        ClientConfiguration clientConfiguration = ClientConfigurationProfile.defaultProfile()
+                .toClientConfiguration(AWSClientType.SQS);
+
+        assertThat(clientConfiguration.getMaxConnections(), is(equalTo(ClientConfigurationProfile.DEFAULT_MAX_CONNECTIONS)));
+        assertThat(clientConfiguration.getConnectionTTL(), is(equalTo(ClientConfigurationProfile.DEFAULT_CONNECTION_TTL)));
+        assertThat(clientConfiguration.useTcpKeepAlive(), is(true));
+        assertThat(clientConfiguration.getClientExecutionTimeout(), is(equalTo(ClientConfigurationProfile.DEFAULT_CLIENT_EXECUTION_TIMEOUT)));
+        assertThat(clientConfiguration.useGzip(), is(false));
+    }
+
+    @Test
+    public void overridesOnlyReplaceTheirOwnValues() {
+        ClientConfigurationProfile profile = ClientConfigurationProfile.defaultProfile()
+                .setGzip(true)
+                .setOverride(AWSClientType.CLOUDWATCH, new ClientConfigurationProfile().setMaxConnections(256))
+                .setOverride(AWSClientType.IAM, new ClientConfigurationProfile().setMaxConnections(8).setSocketTimeout(5000));
+
+        ClientConfiguration cloudWatch = profile.toClientConfiguration(AWSClientType.CLOUDWATCH);
+        assertThat(cloudWatch.getMaxConnections(), is(equalTo(256)));
+        assertThat(cloudWatch.useGzip(), is(true));
+        assertThat(cloudWatch.useTcpKeepAlive(), is(true));
+
+        ClientConfiguration iam = profile.toClientConfiguration(AWSClientType.IAM);
+        assertThat(iam.getMaxConnections(), is(equalTo(8)));
+        assertThat(iam.getSocketTimeout(), is(equalTo(5000)));
+        assertThat(iam.useGzip(), is(true));
+
+        ClientConfiguration sqs = profile.toClientConfiguration(AWSClientType.SQS);
+        assertThat(sqs.getMaxConnections(), is(equalTo(ClientConfigurationProfile.DEFAULT_MAX_CONNECTIONS)));
+    }
+
+    @Test
+    public void profilesWithTheSameSettingsAreEqual() {
+        ClientConfigurationProfile profile = ClientConfigurationProfile.defaultProfile()
+                .setRateLimit(AWSClientType.IAM, "GetRole", 5)
+                .setOverride(AWSClientType.CLOUDWATCH, new ClientConfigurationProfile().setMaxConnections(256));
+        ClientConfigurationProfile sameSettings = ClientConfigurationProfile.defaultProfile()
+                .setRateLimit(AWSClientType.IAM, "GetRole", 5)
+                .setOverride(AWSClientType.CLOUDWATCH, new ClientConfigurationProfile().setMaxConnections(256));
+
+        assertThat(sameSettings, is(equalTo(profile)));
+        assertThat(sameSettings.hashCode(), is(equalTo(profile.hashCode())));
+        assertThat(profile.copy(), is(equalTo(profile)));
+
+        sameSettings.getOverride(AWSClientType.CLOUDWATCH).setMaxConnections(512);
+        assertThat(sameSettings, is(not(equalTo(profile))));
+        assertThat(ClientConfigurationProfile.defaultProfile().setRateLimit(AWSClientType.IAM, "GetRole", 10),
+                is(not(equalTo(profile))));
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.odalabasmaz.awsgenie.fetcher.credentials;
+
+import com.amazonaws.services.securitytoken.model.Credentials;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class EncryptedSessionCacheTest {
+    private static final String ROLE_1 = "arn:aws:iam::111111111111:role/role1";
+    private static final String ROLE_2 = "arn:aws:iam::222222222222:role/role2";
+    private static final long MARGIN = TimeUnit.MINUTES.toMillis(1);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void storedSessionIsReadBackByANewInstance() {
+        Path directory = temporaryFolder.getRoot().toPath().resolve("sessions");
+        new EncryptedSessionCache(directory, null).store(ROLE_1, credentials(TimeUnit.HOURS.toMillis(1)));
+
+        Credentials loaded = new EncryptedSessionCache(directory, null).load(ROLE_1, MARGIN);
+
+        assertThat(loaded.getAccessKeyId(), is(equalTo("accessKeyId")));
+        assertThat(loaded.getSecretAccessKey(), is(equalTo("secretAccessKey")));
+        assertThat(loaded.getSessionToken(), is(equalTo("sessionToken")));
+        assertThat(new EncryptedSessionCache(directory, null).load(ROLE_2, MARGIN), is(nullValue()));
+    }
+
+    @Test
+    public void sessionsAreNotStoredInPlainText() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        new EncryptedSessionCache(directory, "passphrase").store(ROLE_1, credentials(TimeUnit.HOURS.toMillis(1)));
+
+        List<Path> files = Files.list(directory).collect(Collectors.toList());
+        assertThat(files.size(), is(equalTo(1)));
+        String content = new String(Files.readAllBytes(files.get(0)), StandardCharsets.ISO_8859_1);
+        assertFalse(content.contains("secretAccessKey"));
+        assertFalse(content.contains(ROLE_1));
+    }
+
+    @Test
+    public void sessionIsNotReadWithAnotherPassphrase() {
+        Path directory = temporaryFolder.getRoot().toPath();
+        new EncryptedSessionCache(directory, "passphrase").store(ROLE_1, credentials(TimeUnit.HOURS.toMillis(1)));
+
+        assertThat(new EncryptedSessionCache(directory, "other").load(ROLE_1, MARGIN), is(nullValue()));
+        assertThat(new EncryptedSessionCache(directory, "passphrase").load(ROLE_1, MARGIN).getAccessKeyId(), is(equalTo("accessKeyId")));
+    }
+
+    @Test
+    public void sessionExpiringWithinMarginIsIgnored() {
+        Path directory = temporaryFolder.getRoot().toPath();
+        EncryptedSessionCache cache = new EncryptedSessionCache(directory, null);
+        cache.store(ROLE_1, credentials(TimeUnit.SECONDS.toMillis(30)));
+
+        assertThat(cache.load(ROLE_1, MARGIN), is(nullValue()));
+    }
+
+    private static Credentials credentials(long validForMillis) {
+        return new Credentials()
+                .withAccessKeyId("accessKeyId")
+                .withSecretAccessKey("secretAccessKey")
+                .withSessionToken("sessionToken")
+                .withExpiration(new Date(System.currentTimeMillis() + validForMillis));
+    }
+}
@@ -5,7 +5,12 @@ import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.*;
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.model.EventSourceMappingConfiguration;
+import com.amazonaws.services.lambda.model.ListEventSourceMappingsRequest;
+import com.amazonaws.services.lambda.model.ListEventSourceMappingsResult;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceSink;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
 import org.junit.Before;
 import org.junit.Test;
@@ -49,6 +54,9 @@ public class DynamoDBResourceFetcherTest {
     @Mock
     private AmazonDynamoDB dynamoDBClient;
 
+    @Mock
+    private AWSLambda lambdaClient;
+
     @Mock
     private AWSClientProvider awsClientProvider;
 
@@ -63,6 +71,8 @@ public class DynamoDBResourceFetcherTest {
                 .thenReturn(cloudWatchClient);
         when(awsClientProvider.getAmazonDynamoDB())
                 .thenReturn(dynamoDBClient);
+        when(awsClientProvider.getAmazonLambda())
+                .thenReturn(lambdaClient);
 
         this.dynamodbResourceFetcher = new DynamoDBResourceFetcher(resourceFetcherConfiguration);
     }
@@ -88,8 +98,15 @@ public class DynamoDBResourceFetcherTest {
 
     @Test
     public void fetchResources() {
+        String streamArn = "arn:aws:dynamodb:" + TEST_REGION + ":111111111111:table/table1/stream/2021-04-12T00:00:00.000";
         when(dynamoDBClient.describeTable("table1"))
-                .thenReturn(new DescribeTableResult().withTable(new TableDescription().withItemCount(10L)));
+                .thenReturn(new DescribeTableResult().withTable(new TableDescription().withItemCount(10L)
+                        .withLatestStreamArn(streamArn)));
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withEventSourceArn(streamArn)))
+                .thenReturn(new ListEventSourceMappingsResult().withEventSourceMappings(
+                        new EventSourceMappingConfiguration()
+                                .withEventSourceArn(streamArn)
+                                .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":111111111111:function:lambda1")));
         when(dynamoDBClient.describeTable("table2"))
                 .thenThrow(new ResourceNotFoundException("table2 not found"));
 
@@ -114,15 +131,62 @@ public class DynamoDBResourceFetcherTest {
                     add("alarm1");
                 }})));
         assertThat(details.size(), is(equalTo(2)));
-        assertThat(details, hasItem("Resources info for: [table1], [10] items on table, cw alarms: [alarm1]"));
+        assertThat(details, hasItem("Resources info for: [table1], [10] items on table, lambda trigger(s): [lambda1], cw alarms: [alarm1]"));
         assertThat(details, hasItem("!!! DynamoDB table not exists: table2"));
     }
 
+    @Test
+    public void fetchResourcesTo() {
+        when(dynamoDBClient.describeTable("table1"))
+                .thenReturn(new DescribeTableResult().withTable(new TableDescription().withItemCount(10L)));
+        when(dynamoDBClient.describeTable("table2"))
+                .thenThrow(new ResourceNotFoundException("table2 not found"));
+        when(dynamoDBClient.describeTable("table3"))
+                .thenReturn(new DescribeTableResult().withTable(new TableDescription().withItemCount(0L)));
+        when(cloudWatchClient.describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class)))
+                .thenReturn(new DescribeAlarmsResult());
+
+        List<String> events = new ArrayList<>();
+        dynamodbResourceFetcher.fetchResourcesTo(TEST_REGION, Arrays.asList("table1", "table2", "table3"), new ResourceSink<DynamoDBResource>() {
+            @Override
+            public void onResource(DynamoDBResource resource) {
+                if (resource.getResourceName().equals("table1")) {
+                    // later tables are not described before the sink is done with this one
+                    verify(dynamoDBClient, never()).describeTable("table3");
+                }
+                events.add("resource:" + resource.getResourceName());
+            }
+
+            @Override
+            public void onDetail(String resource, String detail) {
+                events.add("detail:" + resource);
+            }
+
+            @Override
+            public void onMissing(String resource, String detail) {
+                events.add("missing:" + resource + ":" + detail);
+            }
+
+            @Override
+            public void onComplete() {
+                events.add("complete");
+            }
+        });
+
+        assertThat(events, is(equalTo(Arrays.asList(
+                "resource:table1", "detail:table1",
+                "missing:table2:!!! DynamoDB table not exists: table2",
+                "resource:table3", "detail:table3",
+                "complete"))));
+    }
+
     @Test
     public void getUsage() {
         when(cloudWatchClient.getMetricData(org.mockito.Mockito.any(GetMetricDataRequest.class)))
                 .thenReturn(new GetMetricDataResult()
-                        .withMetricDataResults(new MetricDataResult().withId("totalUsage").withValues(4.13)));
+                        .withMetricDataResults(
+                                new MetricDataResult().withId("r0m1").withValues(4.0),
+                                new MetricDataResult().withId("r0m2").withValues(0.13)));
         Object usage = dynamodbResourceFetcher.getUsage(TEST_REGION, "table1", 7);
         assertThat(usage, is(equalTo(4.13)));
 
@@ -134,10 +198,10 @@ public class DynamoDBResourceFetcherTest {
         Integer period = ((Long) TimeUnit.DAYS.toSeconds(7)).intValue();
 
         assertThat(startTime, is(equalTo(new Date(endTime.getTime() - TimeUnit.DAYS.toMillis(7)))));
-        assertThat(actualRequest.getMaxDatapoints(), is(equalTo(100)));
-        assertThat(actualRequest.getMetricDataQueries().size(), is(equalTo(3)));
+        assertThat(actualRequest.getMaxDatapoints(), is(nullValue()));
+        assertThat(actualRequest.getMetricDataQueries().size(), is(equalTo(2)));
         assertThat(actualRequest.getMetricDataQueries(), hasItem(new MetricDataQuery()
-                .withId("m1")
+                .withId("r0m1")
                 .withMetricStat(new MetricStat()
                         .withStat("Sum")
                         .withMetric(new Metric()
@@ -151,7 +215,7 @@ public class DynamoDBResourceFetcherTest {
                         .withPeriod(period)
                 )));
         assertThat(actualRequest.getMetricDataQueries(), hasItem(new MetricDataQuery()
-                .withId("m2")
+                .withId("r0m2")
                 .withMetricStat(new MetricStat()
                         .withStat("Sum")
                         .withMetric(new Metric()
@@ -164,8 +228,5 @@ public class DynamoDBResourceFetcherTest {
                         )
                         .withPeriod(period)
                 )));
-        assertThat(actualRequest.getMetricDataQueries(), hasItem(new MetricDataQuery()
-                .withId("totalUsage")
-                .withExpression("m1+m2")));
     }
 }
\ No newline at end of file
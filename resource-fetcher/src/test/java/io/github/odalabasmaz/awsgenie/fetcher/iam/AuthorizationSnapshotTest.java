@@ -0,0 +1,78 @@
+package io.github.odalabasmaz.awsgenie.fetcher.iam;
+
+import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
+import com.amazonaws.services.identitymanagement.model.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuthorizationSnapshotTest {
+    private static final String POLICY_ARN = "arn:aws:iam::111111111111:policy/policy1";
+
+    @Mock
+    private AmazonIdentityManagement iamClient;
+
+    @Test
+    public void snapshotsAllPagesForLargeRuns() {
+        when(iamClient.getAccountAuthorizationDetails(new GetAccountAuthorizationDetailsRequest()
+                .withFilter(EntityType.Role, EntityType.LocalManagedPolicy)))
+                .thenReturn(new GetAccountAuthorizationDetailsResult()
+                        .withRoleDetailList(new RoleDetail().withRoleName("role1")
+                                .withRolePolicyList(new PolicyDetail().withPolicyName("inline1")))
+                        .withPolicies(new ManagedPolicyDetail().withArn(POLICY_ARN))
+                        .withIsTruncated(true)
+                        .withMarker("marker"));
+        when(iamClient.getAccountAuthorizationDetails(new GetAccountAuthorizationDetailsRequest()
+                .withFilter(EntityType.Role, EntityType.LocalManagedPolicy).withMarker("marker")))
+                .thenReturn(new GetAccountAuthorizationDetailsResult()
+                        .withRoleDetailList(new RoleDetail().withRoleName("role2")));
+
+        AuthorizationSnapshot snapshot = AuthorizationSnapshot.of(iamClient, 20, 20);
+
+        assertThat(snapshot.isTaken(), is(true));
+        assertThat(snapshot.findRole("role1").getRolePolicyList().get(0).getPolicyName(), is(equalTo("inline1")));
+        assertThat(snapshot.findRole("role2").getRoleName(), is(equalTo("role2")));
+        assertThat(snapshot.findRole("role3"), is(nullValue()));
+        assertThat(snapshot.hasPolicy(POLICY_ARN), is(true));
+        assertThat(snapshot.hasPolicy("arn:aws:iam::111111111111:policy/policy2"), is(false));
+
+        // other fetchers of the run share the snapshot
+        assertThat(AuthorizationSnapshot.of(iamClient, 50, 20), is(sameInstance(snapshot)));
+        verify(iamClient, times(2)).getAccountAuthorizationDetails(any(GetAccountAuthorizationDetailsRequest.class));
+        verify(iamClient, never()).getRole(any(GetRoleRequest.class));
+    }
+
+    @Test
+    public void pagesEachRoleForSmallRuns() {
+        when(iamClient.getRole(new GetRoleRequest().withRoleName("role1")))
+                .thenReturn(new GetRoleResult().withRole(new Role().withRoleName("role1")));
+        when(iamClient.listRolePolicies(new ListRolePoliciesRequest().withRoleName("role1")))
+                .thenReturn(new ListRolePoliciesResult().withPolicyNames("inline1").withIsTruncated(true).withMarker("marker"));
+        when(iamClient.listRolePolicies(new ListRolePoliciesRequest().withRoleName("role1").withMarker("marker")))
+                .thenReturn(new ListRolePoliciesResult().withPolicyNames("inline2"));
+        when(iamClient.listInstanceProfilesForRole(new ListInstanceProfilesForRoleRequest().withRoleName("role1")))
+                .thenReturn(new ListInstanceProfilesForRoleResult());
+        when(iamClient.listAttachedRolePolicies(new ListAttachedRolePoliciesRequest().withRoleName("role1")))
+                .thenReturn(new ListAttachedRolePoliciesResult().withAttachedPolicies(new AttachedPolicy().withPolicyArn(POLICY_ARN)));
+        when(iamClient.getRole(new GetRoleRequest().withRoleName("role2")))
+                .thenThrow(new NoSuchEntityException("role2 does not exist"));
+
+        AuthorizationSnapshot snapshot = AuthorizationSnapshot.of(iamClient, 1, 20);
+
+        assertThat(snapshot.isTaken(), is(false));
+        RoleDetail role = snapshot.findRole("role1");
+        assertThat(role.getRolePolicyList().size(), is(equalTo(2)));
+        assertThat(role.getRolePolicyList().get(1).getPolicyName(), is(equalTo("inline2")));
+        assertThat(role.getAttachedManagedPolicies().get(0).getPolicyArn(), is(equalTo(POLICY_ARN)));
+        assertThat(snapshot.findRole("role2"), is(nullValue()));
+        verify(iamClient, times(2)).listRolePolicies(any(ListRolePoliciesRequest.class));
+        verify(iamClient, never()).getAccountAuthorizationDetails(any(GetAccountAuthorizationDetailsRequest.class));
+    }
+}
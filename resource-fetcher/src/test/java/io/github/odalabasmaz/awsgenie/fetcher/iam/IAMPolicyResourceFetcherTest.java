@@ -2,10 +2,6 @@ package io.github.odalabasmaz.awsgenie.fetcher.iam;
 
 import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
 import com.amazonaws.services.identitymanagement.model.*;
-import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
-import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
-import com.amazonaws.services.securitytoken.model.GetCallerIdentityRequest;
-import com.amazonaws.services.securitytoken.model.GetCallerIdentityResult;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
 import org.junit.Before;
@@ -18,6 +14,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -34,8 +31,7 @@ import static org.mockito.Mockito.*;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({
-        AWSClientProvider.class,
-        AWSSecurityTokenServiceClientBuilder.class
+        AWSClientProvider.class
 })
 @PowerMockIgnore({
         "javax.management.*", "javax.script.*"
@@ -52,12 +48,6 @@ public class IAMPolicyResourceFetcherTest {
     @Mock
     private AWSClientProvider awsClientProvider;
 
-    @Mock
-    private AWSSecurityTokenServiceClientBuilder stsClientBuilder;
-
-    @Mock
-    private AWSSecurityTokenServiceClient stsClient;
-
     private IAMPolicyResourceFetcher IAMPolicyResourceFetcher;
 
     @Before
@@ -68,11 +58,8 @@ public class IAMPolicyResourceFetcherTest {
         when(awsClientProvider.getAmazonIAM())
                 .thenReturn(iamClient);
 
-        PowerMockito.mockStatic(AWSSecurityTokenServiceClientBuilder.class);
-        when(AWSSecurityTokenServiceClientBuilder.standard()).thenReturn(stsClientBuilder);
-        when(stsClientBuilder.build()).thenReturn(stsClient);
-        when(stsClient.getCallerIdentity(org.mockito.Mockito.any(GetCallerIdentityRequest.class)))
-                .thenReturn(new GetCallerIdentityResult().withAccount("acc1"));
+        when(awsClientProvider.getAccountId())
+                .thenReturn("acc1");
 
         this.IAMPolicyResourceFetcher = new IAMPolicyResourceFetcher(resourceFetcherConfiguration);
     }
@@ -122,13 +109,32 @@ public class IAMPolicyResourceFetcherTest {
         verify(iamClient, times(3)).getPolicy(org.mockito.Mockito.any(GetPolicyRequest.class));
 
         assertThat(actualResources.size(), is(equalTo(2)));
-        assertThat(actualResources, hasItem(new IAMPolicyResource().setResourceName("arn1")));
-        assertThat(actualResources, hasItem(new IAMPolicyResource().setResourceName("arn2")));
+        assertThat(actualResources, hasItem(new IAMPolicyResource().setResourceName("arn:aws:iam::acc1:policy/policy1")));
+        assertThat(actualResources, hasItem(new IAMPolicyResource().setResourceName("arn:aws:iam::acc1:policy/policy2")));
 
         assertThat(details.size(), is(equalTo(1)));
         assertThat(details, hasItem("!!! IAM Policy not exists: [policy3]"));
     }
 
+    @Test
+    public void fetchResourcesFromSnapshotForLargeRuns() {
+        when(resourceFetcherConfiguration.getBulkLookupThreshold()).thenReturn(2);
+        when(iamClient.getAccountAuthorizationDetails(new GetAccountAuthorizationDetailsRequest()
+                .withFilter(EntityType.Role, EntityType.LocalManagedPolicy)))
+                .thenReturn(new GetAccountAuthorizationDetailsResult().withPolicies(
+                        new ManagedPolicyDetail().withArn("arn:aws:iam::acc1:policy/policy1"),
+                        new ManagedPolicyDetail().withArn("arn:aws:iam::acc1:policy/policy2")));
+
+        List<String> details = new ArrayList<>();
+        Set<IAMPolicyResource> actualResources = IAMPolicyResourceFetcher.fetchResources(TEST_REGION,
+                Arrays.asList("policy1", "policy3"), details);
+
+        assertThat(actualResources.size(), is(equalTo(1)));
+        assertThat(actualResources, hasItem(new IAMPolicyResource().setResourceName("arn:aws:iam::acc1:policy/policy1")));
+        assertThat(details, hasItem("!!! IAM Policy not exists: [policy3]"));
+        verify(iamClient, never()).getPolicy(org.mockito.Mockito.any(GetPolicyRequest.class));
+    }
+
     @Test
     public void getUsage() {
         Date lastAccessed = new Date(1618253487000L);
@@ -7,6 +7,7 @@ import com.amazonaws.services.kinesis.model.ResourceNotFoundException;
 import com.amazonaws.services.kinesis.model.*;
 import com.amazonaws.services.lambda.AWSLambda;
 import com.amazonaws.services.lambda.model.EventSourceMappingConfiguration;
+import com.amazonaws.services.lambda.model.ListEventSourceMappingsRequest;
 import com.amazonaws.services.lambda.model.ListEventSourceMappingsResult;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
@@ -101,27 +102,40 @@ public class KinesisResourceFetcherTest {
 
     @Test
     public void fetchResources() {
-        when(lambdaClient.listEventSourceMappings())
+        String stream1Arn = "arn:aws:kinesis:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":stream/stream1";
+        String stream2Arn = "arn:aws:kinesis:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":stream/stream2";
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withEventSourceArn(stream1Arn)))
                 .thenReturn(new ListEventSourceMappingsResult()
                         .withEventSourceMappings(
                                 new EventSourceMappingConfiguration()
-                                        .withEventSourceArn("arn:aws:kinesis:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":stream/stream1")
-                                        .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1"),
+                                        .withEventSourceArn(stream1Arn)
+                                        .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1"))
+                        .withNextMarker("nextMarker"));
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withEventSourceArn(stream1Arn).withMarker("nextMarker")))
+                .thenReturn(new ListEventSourceMappingsResult()
+                        .withEventSourceMappings(
+                                new EventSourceMappingConfiguration()
+                                        .withEventSourceArn(stream1Arn)
+                                        .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda3")));
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withEventSourceArn(stream2Arn)))
+                .thenReturn(new ListEventSourceMappingsResult()
+                        .withEventSourceMappings(
                                 new EventSourceMappingConfiguration()
-                                        .withEventSourceArn("arn:aws:kinesis:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":stream/stream2")
-                                        .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda2")
-                        ));
+                                        .withEventSourceArn(stream2Arn)
+                                        .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda2")));
         when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("Kinesis stream stream1 is")))
                 .thenReturn(new DescribeAlarmsResult().withMetricAlarms(new MetricAlarm().withAlarmName("alarm1")));
         when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("Kinesis stream stream2 is")))
                 .thenReturn(new DescribeAlarmsResult().withMetricAlarms(new MetricAlarm().withAlarmName("alarm2")));
-        when(kinesisClient.describeStream("stream1"))
-                .thenReturn(new DescribeStreamResult().withStreamDescription(new StreamDescription()
-                        .withStreamName("stream1")));
-        when(kinesisClient.describeStream("stream2"))
-                .thenReturn(new DescribeStreamResult().withStreamDescription(new StreamDescription()
-                        .withStreamName("stream2")));
-        when(kinesisClient.describeStream("stream3"))
+        when(kinesisClient.describeStreamSummary(new DescribeStreamSummaryRequest().withStreamName("stream1")))
+                .thenReturn(new DescribeStreamSummaryResult().withStreamDescriptionSummary(new StreamDescriptionSummary()
+                        .withStreamName("stream1")
+                        .withStreamARN(stream1Arn)));
+        when(kinesisClient.describeStreamSummary(new DescribeStreamSummaryRequest().withStreamName("stream2")))
+                .thenReturn(new DescribeStreamSummaryResult().withStreamDescriptionSummary(new StreamDescriptionSummary()
+                        .withStreamName("stream2")
+                        .withStreamARN(stream2Arn)));
+        when(kinesisClient.describeStreamSummary(new DescribeStreamSummaryRequest().withStreamName("stream3")))
                 .thenThrow(new ResourceNotFoundException("stream3 not found"));
 
         List<String> resources = new ArrayList<>();
@@ -131,9 +145,11 @@ public class KinesisResourceFetcherTest {
         List<String> details = new ArrayList<>();
         Set<KinesisResource> actualResources = kinesisResourceFetcher.fetchResources(TEST_REGION, resources, details);
 
-        verify(kinesisClient).describeStream("stream1");
-        verify(kinesisClient).describeStream("stream2");
-        verify(kinesisClient).describeStream("stream3");
+        verify(kinesisClient).describeStreamSummary(new DescribeStreamSummaryRequest().withStreamName("stream1"));
+        verify(kinesisClient).describeStreamSummary(new DescribeStreamSummaryRequest().withStreamName("stream2"));
+        verify(kinesisClient).describeStreamSummary(new DescribeStreamSummaryRequest().withStreamName("stream3"));
+        verify(kinesisClient, never()).describeStream(org.mockito.Mockito.anyString());
+        verify(lambdaClient, times(3)).listEventSourceMappings(org.mockito.Mockito.any(ListEventSourceMappingsRequest.class));
 
         assertThat(actualResources.size(), is(equalTo(2)));
         assertThat(actualResources, hasItem(new KinesisResource()
@@ -148,7 +164,7 @@ public class KinesisResourceFetcherTest {
                 }})));
 
         assertThat(details.size(), is(equalTo(3)));
-        assertThat(details, hasItem("Resources info for: [stream1], lambdas this stream triggers: [lambda1], cw alarms: [alarm1]"));
+        assertThat(details, hasItem("Resources info for: [stream1], lambdas this stream triggers: [lambda1, lambda3], cw alarms: [alarm1]"));
         assertThat(details, hasItem("Resources info for: [stream2], lambdas this stream triggers: [lambda2], cw alarms: [alarm2]"));
         assertThat(details, hasItem("!!! Kinesis stream not exists: stream3"));
     }
@@ -157,7 +173,9 @@ public class KinesisResourceFetcherTest {
     public void getUsage() throws Exception {
         when(cloudWatchClient.getMetricData(org.mockito.Mockito.any(GetMetricDataRequest.class)))
                 .thenReturn(new GetMetricDataResult()
-                        .withMetricDataResults(new MetricDataResult().withId("totalUsage").withValues(4.13)));
+                        .withMetricDataResults(
+                                new MetricDataResult().withId("r0m1").withValues(4.0),
+                                new MetricDataResult().withId("r0m2").withValues(0.13)));
         Object usage = kinesisResourceFetcher.getUsage(TEST_REGION, "stream1", 7);
         assertThat(usage, is(equalTo(4.13)));
 
@@ -169,10 +187,10 @@ public class KinesisResourceFetcherTest {
         Integer period = ((Long) TimeUnit.DAYS.toSeconds(7)).intValue();
 
         assertThat(startTime, is(equalTo(new Date(endTime.getTime() - TimeUnit.DAYS.toMillis(7)))));
-        assertThat(actualRequest.getMaxDatapoints(), is(equalTo(100)));
-        assertThat(actualRequest.getMetricDataQueries().size(), is(equalTo(3)));
+        assertThat(actualRequest.getMaxDatapoints(), is(nullValue()));
+        assertThat(actualRequest.getMetricDataQueries().size(), is(equalTo(2)));
         assertThat(actualRequest.getMetricDataQueries(), hasItem(new MetricDataQuery()
-                .withId("m1")
+                .withId("r0m1")
                 .withMetricStat(new MetricStat()
                         .withStat("Sum")
                         .withMetric(new Metric()
@@ -186,7 +204,7 @@ public class KinesisResourceFetcherTest {
                         .withPeriod(period)
                 )));
         assertThat(actualRequest.getMetricDataQueries(), hasItem(new MetricDataQuery()
-                .withId("m2")
+                .withId("r0m2")
                 .withMetricStat(new MetricStat()
                         .withStat("Sum")
                         .withMetric(new Metric()
@@ -199,8 +217,5 @@ public class KinesisResourceFetcherTest {
                         )
                         .withPeriod(period)
                 )));
-        assertThat(actualRequest.getMetricDataQueries(), hasItem(new MetricDataQuery()
-                .withId("totalUsage")
-                .withExpression("m1+m2")));
     }
 }
\ No newline at end of file
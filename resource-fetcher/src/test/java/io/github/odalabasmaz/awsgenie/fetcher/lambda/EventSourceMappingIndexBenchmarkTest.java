@@ -0,0 +1,164 @@
+package io.github.odalabasmaz.awsgenie.fetcher.lambda;
+
+import com.amazonaws.services.lambda.AWSLambda;
+import com.sun.net.httpserver.HttpServer;
+import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares looking up the event source mappings of each queue with one indexed listing of all mappings, against
+ * a local stub endpoint holding {@link #MAPPINGS} mappings. Run with {@code -Dawsgenie.benchmark=true}.
+ */
+public class EventSourceMappingIndexBenchmarkTest {
+    private static final int MAPPINGS = 10_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int LOOKUPS = 1_000;
+    private static final int STUB_LATENCY_MILLIS = 5;
+
+    private static final Logger LOGGER = LogManager.getLogger(EventSourceMappingIndexBenchmarkTest.class);
+
+    private String accessKeyId;
+    private String secretKey;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AWSLambda lambdaClient;
+
+    @Before
+    public void setUp() throws Exception {
+        accessKeyId = System.getProperty("aws.accessKeyId");
+        secretKey = System.getProperty("aws.secretKey");
+        Assume.assumeTrue(Boolean.getBoolean("awsgenie.benchmark"));
+        System.setProperty("aws.accessKeyId", "benchmark");
+        System.setProperty("aws.secretKey", "benchmark");
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                byte[] response = listEventSourceMappings(query(exchange.getRequestURI().getRawQuery()))
+                        .getBytes(StandardCharsets.UTF_8);
+                TimeUnit.MILLISECONDS.sleep(STUB_LATENCY_MILLIS);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(response);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        String endpoint = "http://localhost:" + server.getAddress().getPort();
+        lambdaClient = AWSClientProvider.getInstance(new ResourceFetcherConfiguration(null, "us-east-1", endpoint))
+                .getAmazonLambda();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+        restoreProperty("aws.accessKeyId", accessKeyId);
+        restoreProperty("aws.secretKey", secretKey);
+    }
+
+    @Test
+    public void indexAnswersLookupsFromMemory() {
+        EventSourceMappingIndex perLookup = EventSourceMappingIndex.of(lambdaClient, 1, 0);
+        long perLookupStart = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertThat(perLookup.getByEventSourceArn(queueArn(i)).size(), is(equalTo(1)));
+        }
+        long perLookupNanos = System.nanoTime() - perLookupStart;
+
+        long indexedStart = System.nanoTime();
+        EventSourceMappingIndex indexed = EventSourceMappingIndex.of(lambdaClient, LOOKUPS, 1);
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertThat(indexed.getByEventSourceArn(queueArn(i)).size(), is(equalTo(1)));
+        }
+        long indexedNanos = System.nanoTime() - indexedStart;
+
+        LOGGER.info(String.format("%d lookups over %d mappings, %d ms stub latency: per lookup %d ms, indexed %d ms",
+                LOOKUPS, MAPPINGS, STUB_LATENCY_MILLIS,
+                TimeUnit.NANOSECONDS.toMillis(perLookupNanos), TimeUnit.NANOSECONDS.toMillis(indexedNanos)));
+    }
+
+    private static String listEventSourceMappings(Map<String, String> query) {
+        StringBuilder json = new StringBuilder("{\"EventSourceMappings\":[");
+        String eventSourceArn = query.get("EventSourceArn");
+        if (eventSourceArn != null) {
+            appendMapping(json, Integer.parseInt(eventSourceArn.substring(eventSourceArn.lastIndexOf('-') + 1)));
+            return json.append("]}").toString();
+        }
+        int from = query.containsKey("Marker") ? Integer.parseInt(query.get("Marker")) : 0;
+        int to = Math.min(from + PAGE_SIZE, MAPPINGS);
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                json.append(',');
+            }
+            appendMapping(json, i);
+        }
+        json.append(']');
+        if (to < MAPPINGS) {
+            json.append(",\"NextMarker\":\"").append(to).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendMapping(StringBuilder json, int i) {
+        json.append("{\"UUID\":\"uuid-").append(i)
+                .append("\",\"EventSourceArn\":\"").append(queueArn(i))
+                .append("\",\"FunctionArn\":\"arn:aws:lambda:us-east-1:111111111111:function:function-").append(i)
+                .append("\"}");
+    }
+
+    private static String queueArn(int i) {
+        return "arn:aws:sqs:us-east-1:111111111111:queue-" + i;
+    }
+
+    private static Map<String, String> query(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int separator = parameter.indexOf('=');
+                query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static void restoreProperty(String key, String value) {
+        if (value == null) {
+            System.clearProperty(key);
+        } else {
+            System.setProperty(key, value);
+        }
+    }
+}
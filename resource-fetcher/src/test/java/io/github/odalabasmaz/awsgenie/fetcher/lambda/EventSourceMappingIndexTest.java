@@ -0,0 +1,96 @@
+package io.github.odalabasmaz.awsgenie.fetcher.lambda;
+
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.model.EventSourceMappingConfiguration;
+import com.amazonaws.services.lambda.model.ListEventSourceMappingsRequest;
+import com.amazonaws.services.lambda.model.ListEventSourceMappingsResult;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventSourceMappingIndexTest {
+    private static final String QUEUE_ARN = "arn:aws:sqs:us-west-2:111111111111:queue1";
+    private static final String STREAM_ARN = "arn:aws:kinesis:us-west-2:111111111111:stream/stream1";
+    private static final String FUNCTION_ARN = "arn:aws:lambda:us-west-2:111111111111:function:lambda1";
+
+    @Mock
+    private AWSLambda lambdaClient;
+
+    @Test
+    public void indexesAllPagesForLargeRuns() {
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest()))
+                .thenReturn(new ListEventSourceMappingsResult()
+                        .withEventSourceMappings(mapping("uuid1", QUEUE_ARN, FUNCTION_ARN))
+                        .withNextMarker("nextMarker"));
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withMarker("nextMarker")))
+                .thenReturn(new ListEventSourceMappingsResult()
+                        .withEventSourceMappings(mapping("uuid2", STREAM_ARN, FUNCTION_ARN + ":live")));
+
+        EventSourceMappingIndex index = EventSourceMappingIndex.of(lambdaClient, 20, 20);
+
+        assertThat(index.isBuilt(), is(true));
+        assertThat(index.getByEventSourceArn(QUEUE_ARN).get(0).getUUID(), is(equalTo("uuid1")));
+        assertThat(index.getByEventSourceArn(STREAM_ARN).get(0).getUUID(), is(equalTo("uuid2")));
+        assertThat(index.getByEventSourceArn("arn:aws:sqs:us-west-2:111111111111:queue2").isEmpty(), is(true));
+        assertThat(index.getByFunctionArn(FUNCTION_ARN).size(), is(equalTo(1)));
+
+        // other fetchers of the run share the index
+        assertThat(EventSourceMappingIndex.of(lambdaClient, 50, 20), is(sameInstance(index)));
+        verify(lambdaClient, times(2)).listEventSourceMappings(any(ListEventSourceMappingsRequest.class));
+    }
+
+    @Test
+    public void listsEachLookupForSmallRuns() {
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withEventSourceArn(QUEUE_ARN)))
+                .thenReturn(new ListEventSourceMappingsResult()
+                        .withEventSourceMappings(mapping("uuid1", QUEUE_ARN, FUNCTION_ARN))
+                        .withNextMarker("nextMarker"));
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withEventSourceArn(QUEUE_ARN).withMarker("nextMarker")))
+                .thenReturn(new ListEventSourceMappingsResult()
+                        .withEventSourceMappings(mapping("uuid2", QUEUE_ARN, FUNCTION_ARN)));
+
+        EventSourceMappingIndex index = EventSourceMappingIndex.of(lambdaClient, 1, 20);
+
+        assertThat(index.isBuilt(), is(false));
+        assertThat(index.getByEventSourceArn(QUEUE_ARN).size(), is(equalTo(2)));
+        verify(lambdaClient, times(2)).listEventSourceMappings(any(ListEventSourceMappingsRequest.class));
+    }
+
+    @Test
+    public void qualifiedMappingsAreFoundTheSameWayInBothModes() {
+        EventSourceMappingConfiguration unqualified = mapping("uuid1", QUEUE_ARN, FUNCTION_ARN);
+        EventSourceMappingConfiguration alias = mapping("uuid2", STREAM_ARN, FUNCTION_ARN + ":live");
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest()))
+                .thenReturn(new ListEventSourceMappingsResult().withEventSourceMappings(unqualified, alias));
+        // the api matches the function arn exactly
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withFunctionName(FUNCTION_ARN)))
+                .thenReturn(new ListEventSourceMappingsResult().withEventSourceMappings(unqualified));
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withFunctionName(FUNCTION_ARN + ":live")))
+                .thenReturn(new ListEventSourceMappingsResult().withEventSourceMappings(alias));
+
+        EventSourceMappingIndex built = EventSourceMappingIndex.build(lambdaClient);
+        EventSourceMappingIndex perLookup = EventSourceMappingIndex.of(lambdaClient, 1, 20);
+
+        for (EventSourceMappingIndex index : Arrays.asList(built, perLookup)) {
+            assertThat(index.getByFunctionArn(FUNCTION_ARN), is(equalTo(Collections.singletonList(unqualified))));
+            assertThat(index.getByFunctionArn(FUNCTION_ARN + ":live"), is(equalTo(Collections.singletonList(alias))));
+        }
+    }
+
+    private static EventSourceMappingConfiguration mapping(String uuid, String eventSourceArn, String functionArn) {
+        return new EventSourceMappingConfiguration()
+                .withUUID(uuid)
+                .withEventSourceArn(eventSourceArn)
+                .withFunctionArn(functionArn);
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.odalabasmaz.awsgenie.fetcher.lambda;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LambdaPolicyParserTest {
+
+    @Test
+    public void readsSourceArnOfEachStatement() throws Exception {
+        String policy = "{\"Version\":\"2012-10-17\",\"Id\":\"default\",\"Statement\":["
+                + "{\"Sid\":\"sns\",\"Effect\":\"Allow\",\"Principal\":{\"Service\":\"sns.amazonaws.com\"},"
+                + "\"Action\":\"lambda:InvokeFunction\",\"Resource\":\"arn:aws:lambda:us-west-2:111111111111:function:lambda1\","
+                + "\"Condition\":{\"ArnLike\":{\"AWS:SourceArn\":\"arn:aws:sns:us-west-2:111111111111:topic1\"}}},"
+                + "{\"Sid\":\"events\",\"Effect\":\"Allow\",\"Principal\":{\"Service\":\"events.amazonaws.com\"},"
+                + "\"Action\":[\"lambda:InvokeFunction\"],\"Resource\":\"arn:aws:lambda:us-west-2:111111111111:function:lambda1\","
+                + "\"Condition\":{\"StringEquals\":{\"AWS:SourceAccount\":\"111111111111\"},"
+                + "\"ArnLike\":{\"AWS:SourceArn\":[\"arn:aws:events:us-west-2:111111111111:rule/rule1\"]}}},"
+                + "{\"Sid\":\"any\",\"Effect\":\"Allow\",\"Principal\":\"*\",\"Action\":\"lambda:InvokeFunction\","
+                + "\"Resource\":\"arn:aws:lambda:us-west-2:111111111111:function:lambda1\"}]}";
+
+        assertThat(LambdaPolicyParser.getSourceArns(policy), is(equalTo(Arrays.asList(
+                "arn:aws:sns:us-west-2:111111111111:topic1",
+                "arn:aws:events:us-west-2:111111111111:rule/rule1"))));
+    }
+
+    @Test
+    public void readsSingleStatement() throws Exception {
+        String policy = "{\"Statement\":{\"Effect\":\"Allow\","
+                + "\"Condition\":{\"ArnEquals\":{\"aws:arn\":\"arn:aws:sns:us-west-2:111111111111:topic1\"}}}}";
+
+        assertThat(LambdaPolicyParser.getSourceArns(policy),
+                is(equalTo(Collections.singletonList("arn:aws:sns:us-west-2:111111111111:topic1"))));
+    }
+}
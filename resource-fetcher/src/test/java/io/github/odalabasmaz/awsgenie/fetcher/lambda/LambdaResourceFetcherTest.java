@@ -9,13 +9,23 @@ import com.amazonaws.services.cloudwatch.model.DescribeAlarmsRequest;
 import com.amazonaws.services.cloudwatch.model.DescribeAlarmsResult;
 import com.amazonaws.services.cloudwatch.model.MetricAlarm;
 import com.amazonaws.services.cloudwatchevents.AmazonCloudWatchEvents;
+import com.amazonaws.services.cloudwatchevents.model.ListRuleNamesByTargetRequest;
+import com.amazonaws.services.cloudwatchevents.model.ListRuleNamesByTargetResult;
+import com.amazonaws.services.cloudwatchevents.model.ListRulesRequest;
+import com.amazonaws.services.cloudwatchevents.model.ListRulesResult;
 import com.amazonaws.services.cloudwatchevents.model.ListTargetsByRuleRequest;
 import com.amazonaws.services.cloudwatchevents.model.ListTargetsByRuleResult;
+import com.amazonaws.services.cloudwatchevents.model.Rule;
 import com.amazonaws.services.cloudwatchevents.model.Target;
 import com.amazonaws.services.lambda.AWSLambda;
 import com.amazonaws.services.lambda.model.*;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.ListSubscriptionsByTopicRequest;
 import com.amazonaws.services.sns.model.ListSubscriptionsByTopicResult;
+import com.amazonaws.services.sns.model.ListSubscriptionsRequest;
+import com.amazonaws.services.sns.model.ListSubscriptionsResult;
+import com.amazonaws.services.sns.model.ListTopicsRequest;
+import com.amazonaws.services.sns.model.ListTopicsResult;
 import com.amazonaws.services.sns.model.Subscription;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
@@ -29,6 +39,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -118,11 +129,11 @@ public class LambdaResourceFetcherTest {
 
     @Test
     public void fetchResources() {
-        when(lambdaClient.getFunction(new GetFunctionRequest().withFunctionName("lambda1")))
-                .thenReturn(new GetFunctionResult().withConfiguration(new FunctionConfiguration().withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1")));
-        when(lambdaClient.getFunction(new GetFunctionRequest().withFunctionName("lambda2")))
+        when(lambdaClient.getFunctionConfiguration(new GetFunctionConfigurationRequest().withFunctionName("lambda1")))
+                .thenReturn(new GetFunctionConfigurationResult().withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1"));
+        when(lambdaClient.getFunctionConfiguration(new GetFunctionConfigurationRequest().withFunctionName("lambda2")))
                 .thenThrow(new ResourceNotFoundException("lambda2 not found"));
-        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withFunctionName("lambda1")))
+        when(lambdaClient.listEventSourceMappings(new ListEventSourceMappingsRequest().withFunctionName("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1")))
                 .thenReturn(new ListEventSourceMappingsResult().withEventSourceMappings(
                         new EventSourceMappingConfiguration()
                                 .withEventSourceArn("arn:aws:kinesis:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":stream/stream1")
@@ -134,12 +145,17 @@ public class LambdaResourceFetcherTest {
                                 .withUUID("uuid2")
                 ));
 
-        when(snsClient.listSubscriptionsByTopic("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1"))
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest().withTopicArn("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1")))
                 .thenReturn(new ListSubscriptionsByTopicResult().withSubscriptions(
                         new Subscription().withEndpoint("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1")
+                                .withTopicArn("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1")
                                 .withSubscriptionArn("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1:subs1"),
                         new Subscription().withEndpoint("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda2")
+                                .withTopicArn("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1")
                 ));
+        when(cloudWatchEventsClient.listRuleNamesByTarget(new ListRuleNamesByTargetRequest()
+                .withTargetArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1")))
+                .thenReturn(new ListRuleNamesByTargetResult().withRuleNames("rule1"));
         when(cloudWatchEventsClient.listTargetsByRule(new ListTargetsByRuleRequest().withRule("rule1")))
                 .thenReturn(new ListTargetsByRuleResult().withTargets(
                         new Target()
@@ -203,11 +219,181 @@ public class LambdaResourceFetcherTest {
         assertThat(lambdaResource.getSnsTriggers().size(), is(equalTo(1)));
         assertThat(lambdaResource.getSnsTriggers(), hasItem("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1:subs1"));
 
-        verify(lambdaClient, times(2)).getFunction(org.mockito.Mockito.any(GetFunctionRequest.class));
+        verify(lambdaClient, times(2)).getFunctionConfiguration(org.mockito.Mockito.any(GetFunctionConfigurationRequest.class));
         verify(lambdaClient).listEventSourceMappings(org.mockito.Mockito.any(ListEventSourceMappingsRequest.class));
         verify(lambdaClient).getPolicy(org.mockito.Mockito.any(GetPolicyRequest.class));
-        verify(snsClient).listSubscriptionsByTopic(org.mockito.Mockito.any(String.class));
+        verify(snsClient).listSubscriptionsByTopic(org.mockito.Mockito.any(ListSubscriptionsByTopicRequest.class));
+        verify(snsClient, never()).listSubscriptions(org.mockito.Mockito.any(ListSubscriptionsRequest.class));
+        verify(cloudWatchEventsClient).listRuleNamesByTarget(org.mockito.Mockito.any(ListRuleNamesByTargetRequest.class));
         verify(cloudWatchEventsClient).listTargetsByRule(org.mockito.Mockito.any(ListTargetsByRuleRequest.class));
         verify(cloudWatchClient).describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void fetchResourcesListsSharedRuleOnce() {
+        String lambda1Arn = "arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1";
+        String lambda2Arn = "arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda2";
+        when(lambdaClient.getFunctionConfiguration(new GetFunctionConfigurationRequest().withFunctionName("lambda1")))
+                .thenReturn(new GetFunctionConfigurationResult().withFunctionArn(lambda1Arn));
+        when(lambdaClient.getFunctionConfiguration(new GetFunctionConfigurationRequest().withFunctionName("lambda2")))
+                .thenReturn(new GetFunctionConfigurationResult().withFunctionArn(lambda2Arn));
+        when(lambdaClient.listEventSourceMappings(org.mockito.Mockito.any(ListEventSourceMappingsRequest.class)))
+                .thenReturn(new ListEventSourceMappingsResult());
+        when(lambdaClient.getPolicy(org.mockito.Mockito.any(GetPolicyRequest.class)))
+                .thenThrow(new ResourceNotFoundException("policy not found"));
+        when(snsClient.listSubscriptions(org.mockito.Mockito.any(ListSubscriptionsRequest.class)))
+                .thenReturn(new ListSubscriptionsResult());
+        when(cloudWatchEventsClient.listRuleNamesByTarget(new ListRuleNamesByTargetRequest().withTargetArn(lambda1Arn)))
+                .thenReturn(new ListRuleNamesByTargetResult().withRuleNames("rule1"));
+        when(cloudWatchEventsClient.listRuleNamesByTarget(new ListRuleNamesByTargetRequest().withTargetArn(lambda2Arn)))
+                .thenReturn(new ListRuleNamesByTargetResult().withRuleNames("rule1"));
+        when(cloudWatchEventsClient.listTargetsByRule(new ListTargetsByRuleRequest().withRule("rule1")))
+                .thenReturn(new ListTargetsByRuleResult().withTargets(
+                        new Target().withId("target1").withArn(lambda1Arn),
+                        new Target().withId("target2").withArn(lambda2Arn)));
+        when(cloudWatchClient.describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class)))
+                .thenReturn(new DescribeAlarmsResult());
+
+        List<String> resources = new ArrayList<>();
+        resources.add("lambda1");
+        resources.add("lambda2");
+        List<String> details = new ArrayList<>();
+
+        Set<LambdaResource> actualResources = lambdaResourceFetcher.fetchResources(TEST_REGION, resources, details);
+
+        assertThat(actualResources.size(), is(equalTo(2)));
+        for (LambdaResource lambdaResource : actualResources) {
+            // the rule still targets the other function, so only the target is removed
+            assertThat(lambdaResource.getCloudwatchRules().isEmpty(), is(true));
+            assertThat(lambdaResource.getCloudwatchRuleTargets().size(), is(equalTo(1)));
+        }
+        verify(cloudWatchEventsClient, times(2)).listRuleNamesByTarget(org.mockito.Mockito.any(ListRuleNamesByTargetRequest.class));
+        verify(cloudWatchEventsClient).listTargetsByRule(org.mockito.Mockito.any(ListTargetsByRuleRequest.class));
+    }
+
+    @Test
+    public void fetchResourcesListsRulesOnceForLargeRuns() {
+        String lambda1Arn = "arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1";
+        String lambda2Arn = "arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda2";
+        when(resourceFetcherConfiguration.getBulkLookupThreshold()).thenReturn(2);
+        when(lambdaClient.listFunctions(new ListFunctionsRequest()))
+                .thenReturn(new ListFunctionsResult().withFunctions(
+                        new FunctionConfiguration().withFunctionName("lambda1").withFunctionArn(lambda1Arn),
+                        new FunctionConfiguration().withFunctionName("lambda2").withFunctionArn(lambda2Arn)));
+        when(lambdaClient.listEventSourceMappings(org.mockito.Mockito.any(ListEventSourceMappingsRequest.class)))
+                .thenReturn(new ListEventSourceMappingsResult());
+        when(lambdaClient.getPolicy(org.mockito.Mockito.any(GetPolicyRequest.class)))
+                .thenThrow(new ResourceNotFoundException("policy not found"));
+        when(snsClient.listTopics(org.mockito.Mockito.any(ListTopicsRequest.class)))
+                .thenReturn(new ListTopicsResult());
+        when(cloudWatchEventsClient.listRules(new ListRulesRequest()))
+                .thenReturn(new ListRulesResult().withRules(new Rule().withName("rule1"), new Rule().withName("rule2")));
+        when(cloudWatchEventsClient.listTargetsByRule(new ListTargetsByRuleRequest().withRule("rule1")))
+                .thenReturn(new ListTargetsByRuleResult().withTargets(
+                        new Target().withId("target1").withArn(lambda1Arn),
+                        new Target().withId("target2").withArn(lambda2Arn)));
+        when(cloudWatchEventsClient.listTargetsByRule(new ListTargetsByRuleRequest().withRule("rule2")))
+                .thenReturn(new ListTargetsByRuleResult().withTargets(new Target().withId("target1").withArn(lambda1Arn)));
+        when(cloudWatchClient.describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class)))
+                .thenReturn(new DescribeAlarmsResult());
+
+        List<String> resources = new ArrayList<>();
+        resources.add("lambda1");
+        resources.add("lambda2");
+        List<String> details = new ArrayList<>();
+
+        Set<LambdaResource> actualResources = lambdaResourceFetcher.fetchResources(TEST_REGION, resources, details);
+
+        assertThat(actualResources.size(), is(equalTo(2)));
+        for (LambdaResource lambdaResource : actualResources) {
+            if (lambdaResource.getResourceName().equals("lambda1")) {
+                assertThat(lambdaResource.getCloudwatchRules(), is(equalTo(Collections.singleton("rule2"))));
+                assertThat(lambdaResource.getCloudwatchRuleTargets().size(), is(equalTo(2)));
+            } else {
+                assertThat(lambdaResource.getCloudwatchRules().isEmpty(), is(true));
+                assertThat(lambdaResource.getCloudwatchRuleTargets(), is(equalTo(Collections.singleton("rule1:target2"))));
+            }
+        }
+        verify(cloudWatchEventsClient, never()).listRuleNamesByTarget(org.mockito.Mockito.any(ListRuleNamesByTargetRequest.class));
+        verify(cloudWatchEventsClient, times(2)).listTargetsByRule(org.mockito.Mockito.any(ListTargetsByRuleRequest.class));
+    }
+
+    @Test
+    public void fetchResourcesListsFunctionsForLargeRuns() {
+        when(resourceFetcherConfiguration.getBulkLookupThreshold()).thenReturn(2);
+        when(lambdaClient.listFunctions(new ListFunctionsRequest()))
+                .thenReturn(new ListFunctionsResult()
+                        .withFunctions(new FunctionConfiguration().withFunctionName("lambda0")
+                                .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda0"))
+                        .withNextMarker("nextMarker"));
+        when(lambdaClient.listFunctions(new ListFunctionsRequest().withMarker("nextMarker")))
+                .thenReturn(new ListFunctionsResult()
+                        .withFunctions(new FunctionConfiguration().withFunctionName("lambda1")
+                                .withFunctionArn("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1")));
+        when(lambdaClient.listEventSourceMappings(org.mockito.Mockito.any(ListEventSourceMappingsRequest.class)))
+                .thenReturn(new ListEventSourceMappingsResult());
+        when(lambdaClient.getPolicy(org.mockito.Mockito.any(GetPolicyRequest.class)))
+                .thenThrow(new ResourceNotFoundException("policy not found"));
+        when(snsClient.listTopics(org.mockito.Mockito.any(ListTopicsRequest.class)))
+                .thenReturn(new ListTopicsResult());
+        when(cloudWatchEventsClient.listRules(org.mockito.Mockito.any(ListRulesRequest.class)))
+                .thenReturn(new ListRulesResult());
+        when(cloudWatchClient.describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class)))
+                .thenReturn(new DescribeAlarmsResult());
+
+        List<String> resources = new ArrayList<>();
+        resources.add("lambda1");
+        resources.add("lambda2");
+        List<String> details = new ArrayList<>();
+
+        Set<LambdaResource> actualResources = lambdaResourceFetcher.fetchResources(TEST_REGION, resources, details);
+
+        assertThat(actualResources.size(), is(equalTo(1)));
+        assertThat(actualResources.iterator().next().getResourceName(), is(equalTo("lambda1")));
+        assertThat(details, hasItem("!!! Lambda resource not exists: lambda2"));
+        verify(lambdaClient, times(2)).listFunctions(org.mockito.Mockito.any(ListFunctionsRequest.class));
+        verify(lambdaClient, never()).getFunctionConfiguration(org.mockito.Mockito.any(GetFunctionConfigurationRequest.class));
+        verify(lambdaClient, never()).getFunction(org.mockito.Mockito.any(GetFunctionRequest.class));
+    }
+
+    @Test
+    public void fetchResourcesFindsFunctionsByArnForLargeRuns() {
+        String functionArn = "arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1";
+        when(resourceFetcherConfiguration.getBulkLookupThreshold()).thenReturn(2);
+        when(lambdaClient.listFunctions(new ListFunctionsRequest()))
+                .thenReturn(new ListFunctionsResult()
+                        .withFunctions(new FunctionConfiguration().withFunctionName("lambda1").withFunctionArn(functionArn)));
+        when(lambdaClient.listEventSourceMappings(org.mockito.Mockito.any(ListEventSourceMappingsRequest.class)))
+                .thenReturn(new ListEventSourceMappingsResult());
+        when(lambdaClient.getPolicy(org.mockito.Mockito.any(GetPolicyRequest.class)))
+                .thenThrow(new ResourceNotFoundException("policy not found"));
+        when(snsClient.listTopics(org.mockito.Mockito.any(ListTopicsRequest.class)))
+                .thenReturn(new ListTopicsResult());
+        when(cloudWatchEventsClient.listRules(org.mockito.Mockito.any(ListRulesRequest.class)))
+                .thenReturn(new ListRulesResult());
+        when(cloudWatchClient.describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class)))
+                .thenReturn(new DescribeAlarmsResult());
+
+        List<String> resources = new ArrayList<>();
+        resources.add(functionArn);
+        resources.add(TEST_ACCOUNT_ID + ":function:lambda1");
+        List<String> details = new ArrayList<>();
+
+        Set<LambdaResource> actualResources = lambdaResourceFetcher.fetchResources(TEST_REGION, resources, details);
+
+        assertThat(actualResources.size(), is(equalTo(2)));
+        assertThat(details.stream().noneMatch(detail -> detail.startsWith("!!!")), is(true));
+        verify(lambdaClient, never()).getFunctionConfiguration(org.mockito.Mockito.any(GetFunctionConfigurationRequest.class));
+    }
+
+    @Test
+    public void functionNameIsTakenFromArns() {
+        assertThat(LambdaResourceFetcher.functionName("lambda1"), is(equalTo("lambda1")));
+        assertThat(LambdaResourceFetcher.functionName("lambda1:live"), is(equalTo("lambda1")));
+        assertThat(LambdaResourceFetcher.functionName(TEST_ACCOUNT_ID + ":function:lambda1"), is(equalTo("lambda1")));
+        assertThat(LambdaResourceFetcher.functionName("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1:7"), is(equalTo("lambda1")));
+        assertThat(LambdaResourceFetcher.isQualified("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1"), is(false));
+        assertThat(LambdaResourceFetcher.isQualified(TEST_ACCOUNT_ID + ":function:lambda1:live"), is(true));
+        assertThat(LambdaResourceFetcher.isQualified("lambda1"), is(false));
+    }
+}
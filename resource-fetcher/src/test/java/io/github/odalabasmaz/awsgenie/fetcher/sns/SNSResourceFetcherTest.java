@@ -3,7 +3,6 @@ package io.github.odalabasmaz.awsgenie.fetcher.sns;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
 import com.amazonaws.services.cloudwatch.model.*;
 import com.amazonaws.services.sns.AmazonSNS;
-import com.amazonaws.services.sns.model.ResourceNotFoundException;
 import com.amazonaws.services.sns.model.*;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherConfiguration;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
@@ -64,6 +63,10 @@ public class SNSResourceFetcherTest {
                 .thenReturn(cloudWatchClient);
         when(awsClientProvider.getAmazonSNS())
                 .thenReturn(snsClient);
+        when(awsClientProvider.getPartition())
+                .thenReturn("aws");
+        when(awsClientProvider.getAccountId())
+                .thenReturn(TEST_ACCOUNT_ID);
 
         this.SNSResourceFetcher = new SNSResourceFetcher(resourceFetcherConfiguration);
 
@@ -110,8 +113,12 @@ public class SNSResourceFetcherTest {
                         new Subscription().withEndpoint("arn:aws:lambda:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":function:lambda1")
                                 .withSubscriptionArn("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic2:subs1")
                 ));
-        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest(topicArn3, null)))
-                .thenThrow(new ResourceNotFoundException("topic3 not found"));
+        when(snsClient.getTopicAttributes(new GetTopicAttributesRequest(topicArn1)))
+                .thenReturn(new GetTopicAttributesResult());
+        when(snsClient.getTopicAttributes(new GetTopicAttributesRequest(topicArn2)))
+                .thenReturn(new GetTopicAttributesResult());
+        when(snsClient.getTopicAttributes(new GetTopicAttributesRequest(topicArn3)))
+                .thenThrow(new NotFoundException("topic3 not found"));
 
         when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("SNS Notification Failure-topic1-" + TEST_REGION)))
                 .thenReturn(new DescribeAlarmsResult().withMetricAlarms(
@@ -147,17 +154,61 @@ public class SNSResourceFetcherTest {
                 + ":" + TEST_ACCOUNT_ID + ":topic2:subs1], cw alarms: [alarm2]"));
         assertThat(details, hasItem("!!! Topic not exists: topic3"));
 
-        verify(snsClient, times(2)).listTopics(org.mockito.Mockito.any(ListTopicsRequest.class));
-        verify(snsClient, times(3)).listSubscriptionsByTopic(org.mockito.Mockito.any(ListSubscriptionsByTopicRequest.class));
+        verify(snsClient, never()).listTopics(org.mockito.Mockito.any(ListTopicsRequest.class));
+        verify(snsClient, times(3)).getTopicAttributes(org.mockito.Mockito.any(GetTopicAttributesRequest.class));
+        verify(snsClient, times(2)).listSubscriptionsByTopic(org.mockito.Mockito.any(ListSubscriptionsByTopicRequest.class));
         verify(cloudWatchClient, times(2)).describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class));
     }
 
+    @Test
+    public void fetchResourcesListsTopicsForWildcards() {
+        String topicArn1 = "arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1";
+        String topicArn3 = "arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic3";
+        String topicArn4 = "arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic4";
+
+        when(snsClient.getTopicAttributes(new GetTopicAttributesRequest(topicArn1)))
+                .thenReturn(new GetTopicAttributesResult());
+        // real SNS rejects such a name with InvalidParameterException
+        when(snsClient.getTopicAttributes(new GetTopicAttributesRequest("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic[3-4]")))
+                .thenThrow(new InvalidParameterException("Invalid parameter: TopicArn"));
+        when(snsClient.listSubscriptionsByTopic(org.mockito.Mockito.any(ListSubscriptionsByTopicRequest.class)))
+                .thenReturn(new ListSubscriptionsByTopicResult());
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest(topicArn3, null)))
+                .thenReturn(new ListSubscriptionsByTopicResult().withSubscriptions(
+                        new Subscription().withSubscriptionArn(topicArn3 + ":subs1")
+                ).withNextToken("nextToken"));
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest(topicArn3, "nextToken")))
+                .thenReturn(new ListSubscriptionsByTopicResult().withSubscriptions(
+                        new Subscription().withSubscriptionArn(topicArn3 + ":subs2")
+                ));
+        when(cloudWatchClient.describeAlarms(org.mockito.Mockito.any(DescribeAlarmsRequest.class)))
+                .thenReturn(new DescribeAlarmsResult());
+
+        List<String> details = new ArrayList<>();
+        Set<SNSResource> actualResources = SNSResourceFetcher.fetchResources(TEST_REGION,
+                Arrays.asList("topic1", "topic[3-4]", "*c3", "t*4"), details);
+
+        assertThat(actualResources.size(), is(equalTo(3)));
+        assertThat(actualResources, hasItem(new SNSResource().setResourceName(topicArn1).setCloudwatchAlarms(new LinkedHashSet<>())));
+        assertThat(actualResources, hasItem(new SNSResource().setResourceName(topicArn3).setCloudwatchAlarms(new LinkedHashSet<>())));
+        assertThat(actualResources, hasItem(new SNSResource().setResourceName(topicArn4).setCloudwatchAlarms(new LinkedHashSet<>())));
+        assertThat(details, hasItem("Resources info for: [topic3], subscriptions: [" + topicArn3 + ":subs1, "
+                + topicArn3 + ":subs2], cw alarms: []"));
+        // brackets are not wildcards, such a topic cannot exist and is not looked up
+        assertThat(details, hasItem("!!! Topic not exists: topic[3-4]"));
+        verify(snsClient, never()).getTopicAttributes(new GetTopicAttributesRequest("arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic[3-4]"));
+
+        verify(snsClient, times(2)).listTopics(org.mockito.Mockito.any(ListTopicsRequest.class));
+        verify(snsClient).getTopicAttributes(new GetTopicAttributesRequest(topicArn1));
+        verify(snsClient, never()).getTopicAttributes(new GetTopicAttributesRequest(topicArn3));
+    }
+
     @Test
     public void getUsage() throws Exception {
         String topicArn1 = "arn:aws:sns:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":topic1";
         when(cloudWatchClient.getMetricData(org.mockito.Mockito.any(GetMetricDataRequest.class)))
                 .thenReturn(new GetMetricDataResult()
-                        .withMetricDataResults(new MetricDataResult().withId("m1").withValues(4.13)));
+                        .withMetricDataResults(new MetricDataResult().withId("r0m1").withValues(4.13)));
         Object usage = SNSResourceFetcher.getUsage(TEST_REGION, topicArn1, 7);
         assertThat(usage, is(equalTo(4.13)));
 
@@ -169,10 +220,10 @@ public class SNSResourceFetcherTest {
         Integer period = ((Long) TimeUnit.DAYS.toSeconds(7)).intValue();
 
         assertThat(startTime, is(equalTo(new Date(endTime.getTime() - TimeUnit.DAYS.toMillis(7)))));
-        assertThat(actualRequest.getMaxDatapoints(), is(equalTo(100)));
+        assertThat(actualRequest.getMaxDatapoints(), is(nullValue()));
         assertThat(actualRequest.getMetricDataQueries().size(), is(equalTo(1)));
         assertThat(actualRequest.getMetricDataQueries(), hasItem(new MetricDataQuery()
-                .withId("m1")
+                .withId("r0m1")
                 .withMetricStat(new MetricStat()
                         .withStat("Sum")
                         .withMetric(new Metric()
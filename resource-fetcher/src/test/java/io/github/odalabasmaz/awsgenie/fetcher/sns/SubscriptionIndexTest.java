@@ -0,0 +1,110 @@
+package io.github.odalabasmaz.awsgenie.fetcher.sns;
+
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SubscriptionIndexTest {
+    private static final String QUEUE_ARN = "arn:aws:sqs:us-west-2:111111111111:queue1";
+    private static final String FUNCTION_ARN = "arn:aws:lambda:us-west-2:111111111111:function:lambda1";
+
+    @Mock
+    private AmazonSNS snsClient;
+
+    @Test
+    public void indexesAllPagesByEndpoint() {
+        when(snsClient.listSubscriptions(new ListSubscriptionsRequest()))
+                .thenReturn(new ListSubscriptionsResult()
+                        .withSubscriptions(subscription("topic1", QUEUE_ARN), subscription("topic1", FUNCTION_ARN))
+                        .withNextToken("nextToken"));
+        when(snsClient.listSubscriptions(new ListSubscriptionsRequest().withNextToken("nextToken")))
+                .thenReturn(new ListSubscriptionsResult()
+                        .withSubscriptions(subscription("topic2", QUEUE_ARN)));
+
+        SubscriptionIndex index = SubscriptionIndex.build(snsClient, 1);
+
+        assertThat(index.size(), is(equalTo(2)));
+        assertThat(index.getSubscriptions(QUEUE_ARN).size(), is(equalTo(2)));
+        assertThat(index.getSubscriptions(FUNCTION_ARN).get(0).getSubscriptionArn(), is(equalTo("topic1:" + FUNCTION_ARN)));
+        assertThat(index.getSubscriptions("arn:aws:sqs:us-west-2:111111111111:queue2").isEmpty(), is(true));
+
+        verify(snsClient, times(2)).listSubscriptions(any(ListSubscriptionsRequest.class));
+    }
+
+    @Test
+    public void largeRunsShareAnIndexListedByTopic() {
+        when(snsClient.listTopics(new ListTopicsRequest()))
+                .thenReturn(new ListTopicsResult().withTopics(new Topic().withTopicArn("topic1"), new Topic().withTopicArn("topic2")));
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest().withTopicArn("topic1")))
+                .thenReturn(new ListSubscriptionsByTopicResult()
+                        .withSubscriptions(subscription("topic1", QUEUE_ARN))
+                        .withNextToken("nextToken"));
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest().withTopicArn("topic1").withNextToken("nextToken")))
+                .thenReturn(new ListSubscriptionsByTopicResult()
+                        .withSubscriptions(subscription("topic1", FUNCTION_ARN)));
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest().withTopicArn("topic2")))
+                .thenReturn(new ListSubscriptionsByTopicResult()
+                        .withSubscriptions(subscription("topic2", QUEUE_ARN)));
+
+        SubscriptionIndex index = SubscriptionIndex.of(snsClient, 2, 2);
+
+        assertThat(index.getSubscriptions(QUEUE_ARN).size(), is(equalTo(2)));
+        assertThat(index.getSubscriptions(FUNCTION_ARN).size(), is(equalTo(1)));
+        // the index of the client is reused within its ttl
+        assertThat(SubscriptionIndex.of(snsClient, 2, 2), is(sameInstance(index)));
+        verify(snsClient, times(1)).listTopics(any(ListTopicsRequest.class));
+        verify(snsClient, never()).listSubscriptions(any(ListSubscriptionsRequest.class));
+    }
+
+    @Test
+    public void smallRunsListTheSubscriptionsOfTheTopic() {
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest().withTopicArn("topic1")))
+                .thenReturn(new ListSubscriptionsByTopicResult()
+                        .withSubscriptions(subscription("topic1", QUEUE_ARN))
+                        .withNextToken("nextToken"));
+        when(snsClient.listSubscriptionsByTopic(new ListSubscriptionsByTopicRequest().withTopicArn("topic1").withNextToken("nextToken")))
+                .thenReturn(new ListSubscriptionsByTopicResult()
+                        .withSubscriptions(subscription("topic1", FUNCTION_ARN)));
+
+        SubscriptionIndex index = SubscriptionIndex.of(snsClient, 1, 2);
+
+        assertThat(index.isBuilt(), is(false));
+        assertThat(index.getSubscriptions(FUNCTION_ARN, "topic1").size(), is(equalTo(1)));
+        assertThat(index.getSubscriptions(FUNCTION_ARN, "topic1").get(0).getSubscriptionArn(), is(equalTo("topic1:" + FUNCTION_ARN)));
+        verify(snsClient, never()).listTopics(any(ListTopicsRequest.class));
+        verify(snsClient, never()).listSubscriptions(any(ListSubscriptionsRequest.class));
+    }
+
+    @Test
+    public void smallRunsListAllSubscriptionsOnce() {
+        when(snsClient.listSubscriptions(new ListSubscriptionsRequest()))
+                .thenReturn(new ListSubscriptionsResult()
+                        .withSubscriptions(subscription("topic1", QUEUE_ARN), subscription("topic2", QUEUE_ARN)));
+
+        SubscriptionIndex index = SubscriptionIndex.of(snsClient, 1, 2);
+
+        assertThat(index.getSubscriptions(QUEUE_ARN).size(), is(equalTo(2)));
+        assertThat(index.getSubscriptions(QUEUE_ARN, "topic2").size(), is(equalTo(1)));
+        // nothing is shared with other runs
+        assertThat(SubscriptionIndex.of(snsClient, 1, 2), is(not(sameInstance(index))));
+        verify(snsClient, times(1)).listSubscriptions(any(ListSubscriptionsRequest.class));
+        verify(snsClient, never()).listTopics(any(ListTopicsRequest.class));
+        verify(snsClient, never()).listSubscriptionsByTopic(any(ListSubscriptionsByTopicRequest.class));
+    }
+
+    private static Subscription subscription(String topicArn, String endpoint) {
+        return new Subscription()
+                .withTopicArn(topicArn)
+                .withEndpoint(endpoint)
+                .withSubscriptionArn(topicArn + ":" + endpoint);
+    }
+}
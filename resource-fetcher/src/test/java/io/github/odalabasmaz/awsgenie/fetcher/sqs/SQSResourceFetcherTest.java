@@ -26,6 +26,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
@@ -105,6 +106,16 @@ public class SQSResourceFetcherTest {
         assertThat(actualQueues, hasItem("queue4"));
     }
 
+    @Test
+    public void streamResources() {
+        assertThat(SQSResourceFetcher.streamResources(TEST_REGION).anyMatch("queue2"::equals), is(true));
+        verify(sqsClient, times(1)).listQueues(org.mockito.Mockito.any(ListQueuesRequest.class));
+
+        assertThat(SQSResourceFetcher.streamResources(TEST_REGION).collect(Collectors.toList()),
+                is(equalTo(Arrays.asList("queue1", "queue2", "queue3", "queue4"))));
+        verify(sqsClient, times(3)).listQueues(org.mockito.Mockito.any(ListQueuesRequest.class));
+    }
+
     @Test
     public void fetchResources() {
         when(snsClient.listSubscriptions(new ListSubscriptionsRequest()))
@@ -127,12 +138,12 @@ public class SQSResourceFetcherTest {
         when(sqsClient.getQueueAttributes(new GetQueueAttributesRequest().withQueueUrl("queue1").withAttributeNames("All")))
                 .thenReturn(new GetQueueAttributesResult().withAttributes(new HashMap<String, String>() {{
                     put("ApproximateNumberOfMessages", "10");
-                    put("QueueArn", "queueArn1");
+                    put("QueueArn", "arn:aws:sqs:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":queue1");
                 }}));
         when(sqsClient.getQueueAttributes(new GetQueueAttributesRequest().withQueueUrl("queue2").withAttributeNames("All")))
                 .thenReturn(new GetQueueAttributesResult().withAttributes(new HashMap<String, String>() {{
                     put("ApproximateNumberOfMessages", "20");
-                    put("QueueArn", "queueArn2");
+                    put("QueueArn", "arn:aws:sqs:" + TEST_REGION + ":" + TEST_ACCOUNT_ID + ":queue2");
                 }}));
 
         when(cloudWatchClient.describeAlarms(new DescribeAlarmsRequest().withAlarmNamePrefix("SQS Queue queue1 ")))
@@ -0,0 +1,92 @@
+package io.github.odalabasmaz.awsgenie.fetcher.throttling;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientType;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.ClientConfigurationProfile;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveThrottlingRequestHandlerTest {
+    private static final double DELTA = 0.0001;
+
+    // limiters are shared by the JVM, each test uses accounts of its own
+
+    @Test
+    public void pacesCallsAtTheRateLimit() {
+        ClientConfigurationProfile profile = ClientConfigurationProfile.defaultProfile()
+                .setRateLimit(AWSClientType.SQS, "ListQueues", 20);
+        AdaptiveThrottlingRequestHandler handler = handler("100000000001", "us-east-1", AWSClientType.SQS, profile);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            handler.beforeAttempt(HandlerBeforeAttemptContext.builder().withRequest(request("ListQueues")).build());
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("10 intervals of 50 ms expected, took " + elapsedMillis + " ms", elapsedMillis >= 450);
+        // operations without a limit are not paced
+        assertNull(handler.getLimiter("GetQueueUrl", false));
+    }
+
+    @Test
+    public void throttlingHalvesTheRate() {
+        ClientConfigurationProfile profile = ClientConfigurationProfile.defaultProfile()
+                .setRateLimit(AWSClientType.SQS, "ListQueues", 20);
+        AdaptiveThrottlingRequestHandler handler = handler("100000000002", "us-east-1", AWSClientType.SQS, profile);
+        AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("Throttling");
+
+        handler.afterAttempt(HandlerAfterAttemptContext.builder()
+                .withRequest(request("ListQueues")).withException(throttled).build());
+        assertEquals(10, handler.getLimiter("ListQueues", false).getRate(), DELTA);
+
+        // an operation without a limit gets one once throttled
+        handler.afterAttempt(HandlerAfterAttemptContext.builder()
+                .withRequest(request("GetQueueUrl")).withException(throttled).build());
+        assertNotNull(handler.getLimiter("GetQueueUrl", false));
+    }
+
+    @Test
+    public void limitersArePerAccountAndIamIsGlobal() {
+        ClientConfigurationProfile profile = ClientConfigurationProfile.defaultProfile();
+
+        AimdRateLimiter iamUsEast = handler("100000000003", "us-east-1", AWSClientType.IAM, profile).getLimiter("GetRole", false);
+        AimdRateLimiter iamEuWest = handler("100000000003", "eu-west-1", AWSClientType.IAM, profile).getLimiter("GetRole", false);
+        AimdRateLimiter iamOtherAccount = handler("100000000004", "us-east-1", AWSClientType.IAM, profile).getLimiter("GetRole", false);
+        assertSame(iamUsEast, iamEuWest);
+        assertNotSame(iamUsEast, iamOtherAccount);
+
+        AimdRateLimiter kinesisUsEast = handler("100000000003", "us-east-1", AWSClientType.KINESIS, profile).getLimiter("ListStreams", false);
+        AimdRateLimiter kinesisEuWest = handler("100000000003", "eu-west-1", AWSClientType.KINESIS, profile).getLimiter("ListStreams", false);
+        assertNotSame(kinesisUsEast, kinesisEuWest);
+    }
+
+    @Test
+    public void unknownAccountIsPacedPerRegion() {
+        ClientConfigurationProfile profile = ClientConfigurationProfile.defaultProfile();
+
+        // no account lookup is made, the limiters of the region are shared instead
+        AimdRateLimiter apSouth = handler(null, "ap-south-1", AWSClientType.KINESIS, profile).getLimiter("ListStreams", false);
+        AimdRateLimiter sameRegion = handler(null, "ap-south-1", AWSClientType.KINESIS, profile).getLimiter("ListStreams", false);
+        AimdRateLimiter otherRegion = handler(null, "ap-east-1", AWSClientType.KINESIS, profile).getLimiter("ListStreams", false);
+        assertSame(apSouth, sameRegion);
+        assertNotSame(apSouth, otherRegion);
+    }
+
+    private static AdaptiveThrottlingRequestHandler handler(String accountId, String region, AWSClientType clientType,
+                                                            ClientConfigurationProfile profile) {
+        return new AdaptiveThrottlingRequestHandler(accountId, region, clientType, profile);
+    }
+
+    private static Request<?> request(String operation) {
+        Request<?> request = new DefaultRequest<>("test");
+        request.addHandlerContext(HandlerContextKey.OPERATION_NAME, operation);
+        return request;
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.odalabasmaz.awsgenie.fetcher.throttling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AimdRateLimiterTest {
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void throttlingHalvesTheRateOncePerBurst() {
+        AimdRateLimiter limiter = new AimdRateLimiter(10, 1);
+
+        limiter.onThrottled();
+        limiter.onThrottled();
+        limiter.onThrottled();
+
+        assertEquals(5, limiter.getRate(), DELTA);
+    }
+
+    @Test
+    public void successRaisesTheRateUpToTheMaximum() {
+        AimdRateLimiter limiter = new AimdRateLimiter(10, 1, 4);
+
+        limiter.onSuccess();
+        assertEquals(4.2, limiter.getRate(), DELTA);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(10, limiter.getRate(), DELTA);
+    }
+
+    @Test
+    public void rateNeverDropsBelowTheMinimum() {
+        AimdRateLimiter limiter = new AimdRateLimiter(1, 0.8);
+
+        limiter.onThrottled();
+
+        assertEquals(0.8, limiter.getRate(), DELTA);
+    }
+
+    @Test
+    public void acquireSpreadsCallsAtTheCurrentRate() throws Exception {
+        AimdRateLimiter limiter = new AimdRateLimiter(20, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            limiter.acquire();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("10 intervals of 50 ms expected, took " + elapsedMillis + " ms", elapsedMillis >= 450);
+    }
+}
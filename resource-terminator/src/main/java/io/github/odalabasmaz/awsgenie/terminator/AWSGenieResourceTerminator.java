@@ -1,6 +1,8 @@
 package io.github.odalabasmaz.awsgenie.terminator;
 
 import io.github.odalabasmaz.awsgenie.fetcher.Service;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.UsageCache;
+import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientProvider;
 import io.github.odalabasmaz.awsgenie.terminator.configuration.Configuration;
 import io.github.odalabasmaz.awsgenie.terminator.configuration.ConfigurationReader;
 import io.github.odalabasmaz.awsgenie.terminator.configuration.ParameterConfiguration;
@@ -9,6 +11,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Orhun Dalabasmaz
@@ -48,8 +51,26 @@ public class AWSGenieResourceTerminator {
         LOGGER.info("Terminating resources for service: {}, resources: {}, description: {}, dry-run: {}, region: {}",
                 service, resources, description, !apply, region);
 
+        if (configuration.isWarmUp()) {
+            AWSClientProvider.getInstance(configuration).warmUp(service.getClientTypes());
+        }
+
         ResourceTerminatorFactory factory = new ResourceTerminatorFactory();
         ResourceTerminator terminator = factory.getTerminator(service, configuration);
-        terminator.terminateResource(configuration, apply);
+        if (configuration.getUsageCacheTtl() <= 0) {
+            terminator.terminateResource(configuration, apply);
+            return;
+        }
+
+        // usage only informs the report when forced, otherwise an apply checks cached unused resources again
+        UsageCache usageCache = new UsageCache(TimeUnit.MINUTES.toMillis(configuration.getUsageCacheTtl()),
+                UsageCache.DEFAULT_MAX_ENTRIES, configuration.getUsageCacheFile());
+        terminator.setUsageCache(usageCache, apply && !configuration.isForce());
+        try {
+            terminator.terminateResource(configuration, apply);
+        } finally {
+            usageCache.save();
+            LOGGER.info("Usage cache {}", usageCache.getStatistics());
+        }
     }
 }
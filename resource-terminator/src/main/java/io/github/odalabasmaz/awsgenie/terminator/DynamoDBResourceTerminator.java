@@ -17,6 +17,7 @@ import org.apache.logging.log4j.Logger;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -53,9 +54,11 @@ public class DynamoDBResourceTerminator extends ResourceTerminator<DynamoDBResou
         ResourceFetcher<DynamoDBResource> fetcher = getFetchResourceFactory().getFetcher(service, new ResourceFetcherConfiguration(getConfiguration()));
         Set<DynamoDBResource> dynamoDBResourceList = fetcher.fetchResources(region, resources, details);
 
+        Map<String, Object> usages = fetcher.getUsage(region,
+                dynamoDBResourceList.stream().map(DynamoDBResource::getResourceName).collect(Collectors.toList()), lastUsage);
         for (DynamoDBResource dynamodbResource : dynamoDBResourceList) {
             String tableName = dynamodbResource.getResourceName();
-            Double totalUsage = (Double) fetcher.getUsage(region, tableName, lastUsage);
+            Double totalUsage = usageOf(usages, tableName);
             if (totalUsage > 0) {
                 if (force) {
                     details.add("DynamoDB table seems in use, but still deleting with force: [" + tableName + "], totalUsage: [" + totalUsage + "]");
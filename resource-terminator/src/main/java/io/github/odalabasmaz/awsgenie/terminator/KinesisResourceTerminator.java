@@ -50,9 +50,11 @@ public class KinesisResourceTerminator extends ResourceTerminator<KinesisResourc
         ResourceFetcher<KinesisResource> fetcher = getFetchResourceFactory().getFetcher(service, new ResourceFetcherConfiguration(getConfiguration()));
         Set<KinesisResource> kinesisResourceList = fetcher.fetchResources(region, resources, details);
 
+        Map<String, Object> usages = fetcher.getUsage(region,
+                kinesisResourceList.stream().map(KinesisResource::getResourceName).collect(Collectors.toList()), lastUsage);
         for (KinesisResource kinesisResource : kinesisResourceList) {
             String streamName = kinesisResource.getResourceName();
-            Double totalUsage = (Double) fetcher.getUsage(region, streamName, lastUsage);
+            Double totalUsage = usageOf(usages, streamName);
             if (totalUsage > 0) {
                 if (force) {
                     details.add("Kinesis stream seems in use, but still deleting with force: [" + streamName + "], totalUsage: [" + totalUsage + "]");
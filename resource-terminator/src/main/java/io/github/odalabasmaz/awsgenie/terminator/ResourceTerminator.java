@@ -3,11 +3,13 @@ package io.github.odalabasmaz.awsgenie.terminator;
 import io.github.odalabasmaz.awsgenie.fetcher.Resource;
 import io.github.odalabasmaz.awsgenie.fetcher.ResourceFetcherFactory;
 import io.github.odalabasmaz.awsgenie.fetcher.Service;
+import io.github.odalabasmaz.awsgenie.fetcher.cache.UsageCache;
 import io.github.odalabasmaz.awsgenie.fetcher.credentials.AWSClientConfiguration;
 import io.github.odalabasmaz.awsgenie.terminator.configuration.Configuration;
 import io.github.odalabasmaz.awsgenie.terminator.interceptor.InterceptorRegistry;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -19,6 +21,8 @@ import java.util.Set;
 public abstract class ResourceTerminator<R extends Resource> {
     private final AWSClientConfiguration configuration;
     protected ResourceFetcherFactory<R> resourceFetcherFactory;
+    private UsageCache usageCache;
+    private boolean revalidateUnusedUsage;
 
     public ResourceTerminator(AWSClientConfiguration configuration) {
         this.configuration = configuration;
@@ -28,6 +32,17 @@ public abstract class ResourceTerminator<R extends Resource> {
         return configuration;
     }
 
+    /**
+     * Answers usage lookups of this terminator from the given cache.
+     *
+     * @param revalidateUnused fetch cached usages that would allow deleting a resource again
+     */
+    public ResourceTerminator<R> setUsageCache(UsageCache usageCache, boolean revalidateUnused) {
+        this.usageCache = usageCache;
+        this.revalidateUnusedUsage = revalidateUnused;
+        return this;
+    }
+
     public void terminateResource(Configuration conf, boolean apply) throws Exception {
         Service service = Service.fromValue(conf.getService());
         Set<R> resourcesToDelete = beforeApply(conf, apply);
@@ -60,6 +75,14 @@ public abstract class ResourceTerminator<R extends Resource> {
         afterApply(resourcesToDelete);
     }
 
+    /**
+     * @return usage of the resource in a batch usage lookup, 0 when the lookup has no usage for it
+     */
+    protected static Double usageOf(Map<String, Object> usages, String resource) {
+        Object usage = usages.get(resource);
+        return usage instanceof Number ? ((Number) usage).doubleValue() : 0d;
+    }
+
     protected abstract Set<R> beforeApply(Configuration conf, boolean apply) throws Exception;
 
     protected abstract Set<R> beforeApply(String region, Service service, List<String> resources, String ticket, boolean apply) throws Exception;
@@ -74,7 +97,7 @@ public abstract class ResourceTerminator<R extends Resource> {
         if (this.resourceFetcherFactory != null) {
             return this.resourceFetcherFactory;
         } else {
-            return new ResourceFetcherFactory<>();
+            return new ResourceFetcherFactory<R>().setUsageCache(usageCache, revalidateUnusedUsage);
         }
     }
 }
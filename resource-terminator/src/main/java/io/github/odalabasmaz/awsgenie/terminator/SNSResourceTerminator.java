@@ -50,9 +50,11 @@ public class SNSResourceTerminator extends ResourceTerminator<SNSResource> {
         ResourceFetcher<SNSResource> fetcher = getFetchResourceFactory().getFetcher(service, new ResourceFetcherConfiguration(getConfiguration()));
         Set<SNSResource> snsResourceList = fetcher.fetchResources(region, resources, details);
 
+        Map<String, Object> usages = fetcher.getUsage(region,
+                snsResourceList.stream().map(SNSResource::getResourceName).collect(Collectors.toList()), lastUsage);
         for (SNSResource snsResource : snsResourceList) {
             String topicName = snsResource.getResourceName();
-            Double publishCountInLastWeek = (Double) fetcher.getUsage(region, topicName, lastUsage);
+            Double publishCountInLastWeek = usageOf(usages, topicName);
             if (publishCountInLastWeek > 0) {
                 if (force) {
                     details.add("Topic seems in use, but still deleting with force: [" + topicName + "], totalUsage: [" + publishCountInLastWeek + "]");
@@ -18,6 +18,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * @author Orhun Dalabasmaz
@@ -50,9 +51,11 @@ public class SQSResourceTerminator extends ResourceTerminator<SQSResource> {
 
         ResourceFetcher<SQSResource> fetcher = getFetchResourceFactory().getFetcher(service, new ResourceFetcherConfiguration(getConfiguration()));
         Set<SQSResource> sqsResourceList = fetcher.fetchResources(region, resources, details);
+        Map<String, Object> usages = fetcher.getUsage(region,
+                sqsResourceList.stream().map(SQSResource::getResourceName).collect(Collectors.toList()), lastUsage);
         for (SQSResource sqsResource : sqsResourceList) {
             String queueName = sqsResource.getResourceName();
-            Double totalUsage = (Double) fetcher.getUsage(region, queueName, lastUsage);
+            Double totalUsage = usageOf(usages, queueName);
             if (totalUsage > 0) {
                 if (force) {
                     details.add("SQS queue seems in use, but still deleting with force: [" + queueName + "], totalUsage: [" + totalUsage + "]");
@@ -48,10 +48,26 @@ public interface Configuration extends AWSClientConfiguration {
 
     Configuration setAssumeRoleArn(String assumeRoleArn);
 
+    String getSessionCacheDirectory();
+
+    Configuration setSessionCacheDirectory(String sessionCacheDirectory);
+
+    int getUsageCacheTtl();
+
+    Configuration setUsageCacheTtl(int usageCacheTtl);
+
+    String getUsageCacheFile();
+
+    Configuration setUsageCacheFile(String usageCacheFile);
+
     boolean isForce();
 
     Configuration setForce(boolean force);
 
+    boolean isWarmUp();
+
+    Configuration setWarmUp(boolean warmUp);
+
     Configuration cloneMe();
 
     default void validate() throws ConfigurationValidationException {
@@ -65,5 +65,21 @@ public class ConfigurationReader {
         if (StringUtils.isNotEmpty(source.getAssumeRoleArn())) {
             destination.setAssumeRoleArn(source.getAssumeRoleArn());
         }
+
+        if (StringUtils.isNotEmpty(source.getSessionCacheDirectory())) {
+            destination.setSessionCacheDirectory(source.getSessionCacheDirectory());
+        }
+
+        if (source.getUsageCacheTtl() > 0) {
+            destination.setUsageCacheTtl(source.getUsageCacheTtl());
+        }
+
+        if (StringUtils.isNotEmpty(source.getUsageCacheFile())) {
+            destination.setUsageCacheFile(source.getUsageCacheFile());
+        }
+
+        if (source.isWarmUp()) {
+            destination.setWarmUp(true);
+        }
     }
 }
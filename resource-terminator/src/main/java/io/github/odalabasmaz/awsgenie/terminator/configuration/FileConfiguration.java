@@ -41,11 +41,31 @@ public class FileConfiguration implements Configuration {
      */
     private String assumeRoleArn;
 
+    /**
+     * Optional directory to cache the assumed role session in, encrypted, for the following runs.
+     */
+    private String sessionCacheDirectory;
+
+    /**
+     * Minutes to reuse usage lookups for, disabled by default.
+     */
+    private int usageCacheTtl;
+
+    /**
+     * Optional file to keep usage lookups in for the following runs.
+     */
+    private String usageCacheFile;
+
     /**
      * Delete resource even if it's in use.
      */
     private boolean force;
 
+    /**
+     * Build the service clients in parallel before the run starts.
+     */
+    private boolean warmUp;
+
     @Override
     public FileConfiguration cloneMe() {
         return new FileConfiguration()
@@ -55,7 +75,11 @@ public class FileConfiguration implements Configuration {
                 .setLastUsage(this.lastUsage)
                 .setDescription(this.description)
                 .setAssumeRoleArn(this.assumeRoleArn)
-                .setForce(this.force);
+                .setSessionCacheDirectory(this.sessionCacheDirectory)
+                .setUsageCacheTtl(this.usageCacheTtl)
+                .setUsageCacheFile(this.usageCacheFile)
+                .setForce(this.force)
+                .setWarmUp(this.warmUp);
     }
 
     @Override
@@ -113,6 +137,28 @@ public class FileConfiguration implements Configuration {
         return this;
     }
 
+    @Override
+    public int getUsageCacheTtl() {
+        return usageCacheTtl;
+    }
+
+    @Override
+    public FileConfiguration setUsageCacheTtl(int usageCacheTtl) {
+        this.usageCacheTtl = usageCacheTtl;
+        return this;
+    }
+
+    @Override
+    public String getUsageCacheFile() {
+        return usageCacheFile;
+    }
+
+    @Override
+    public FileConfiguration setUsageCacheFile(String usageCacheFile) {
+        this.usageCacheFile = usageCacheFile;
+        return this;
+    }
+
     @Override
     public boolean isForce() {
         return force;
@@ -124,6 +170,16 @@ public class FileConfiguration implements Configuration {
         return this;
     }
 
+    @Override
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    @Override
+    public FileConfiguration setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
 
     @Override
     public String getAssumeRoleArn() {
@@ -136,6 +192,17 @@ public class FileConfiguration implements Configuration {
         return this;
     }
 
+    @Override
+    public String getSessionCacheDirectory() {
+        return sessionCacheDirectory;
+    }
+
+    @Override
+    public FileConfiguration setSessionCacheDirectory(String sessionCacheDirectory) {
+        this.sessionCacheDirectory = sessionCacheDirectory;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -147,12 +214,16 @@ public class FileConfiguration implements Configuration {
                 && Objects.equals(lastUsage, that.lastUsage)
                 && Objects.equals(description, that.description)
                 && Objects.equals(assumeRoleArn, that.assumeRoleArn)
-                && Objects.equals(force, that.force);
+                && Objects.equals(sessionCacheDirectory, that.sessionCacheDirectory)
+                && Objects.equals(usageCacheTtl, that.usageCacheTtl)
+                && Objects.equals(usageCacheFile, that.usageCacheFile)
+                && Objects.equals(force, that.force)
+                && Objects.equals(warmUp, that.warmUp);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(region, service, resources, lastUsage, description, assumeRoleArn, force);
+        return Objects.hash(region, service, resources, lastUsage, description, assumeRoleArn, sessionCacheDirectory, usageCacheTtl, usageCacheFile, force, warmUp);
     }
 
     @Override
@@ -164,7 +235,11 @@ public class FileConfiguration implements Configuration {
                 .append("lastUsage", lastUsage)
                 .append("ticket", description)
                 .append("assumeRoleArn", assumeRoleArn)
+                .append("sessionCacheDirectory", sessionCacheDirectory)
+                .append("usageCacheTtl", usageCacheTtl)
+                .append("usageCacheFile", usageCacheFile)
                 .append("force", force)
+                .append("warmUp", warmUp)
                 .toString();
     }
 }
@@ -39,6 +39,18 @@ public class ParameterConfiguration implements Configuration {
     @Parameter(names = {"--assume-role-arn", "-ara"}, description = "IAM Role ARN to assume")
     private String assumeRoleArn;
 
+    /** Optional directory to cache the assumed role session in, encrypted, for the following runs. */
+    @Parameter(names = {"--session-cache-dir"}, description = "Directory of the encrypted assumed role session cache, disabled by default")
+    private String sessionCacheDirectory;
+
+    /** Minutes to reuse usage lookups for, disabled by default. */
+    @Parameter(names = {"--usage-cache-ttl"}, description = "Minutes to reuse resource usage lookups for, 0 (disabled) by default")
+    private int usageCacheTtl;
+
+    /** Optional file to keep usage lookups in for the following runs. */
+    @Parameter(names = {"--usage-cache-file"}, description = "File of the usage cache to share with the following runs, in-memory by default")
+    private String usageCacheFile;
+
     /** Dry-run or actually apply the delete operation. */
     @Parameter(names = {"--apply"}, description = "Apply the changes, dry-run by default")
     private boolean apply = false;
@@ -47,6 +59,10 @@ public class ParameterConfiguration implements Configuration {
     @Parameter(names = {"--force"}, description = "Force applying the changes, even the usage confirmed")
     private boolean force = false;
 
+    /** Build the service clients in parallel before the run starts. */
+    @Parameter(names = {"--warm-up"}, description = "Build the service clients in parallel at startup and report their timings")
+    private boolean warmUp = false;
+
     /** Check last x days for the resource to determine if it's in use. Default 7 days. */
     @Parameter(names = {"--last-usage"}, description = "Check usage for the last 7 days by default")
     private int lastUsage = 7;
@@ -67,8 +83,12 @@ public class ParameterConfiguration implements Configuration {
                 .setResources(this.resources)
                 .setDescription(this.description)
                 .setAssumeRoleArn(this.assumeRoleArn)
+                .setSessionCacheDirectory(this.sessionCacheDirectory)
+                .setUsageCacheTtl(this.usageCacheTtl)
+                .setUsageCacheFile(this.usageCacheFile)
                 .setApply(this.apply)
                 .setForce(this.force)
+                .setWarmUp(this.warmUp)
                 .setLastUsage(this.lastUsage)
                 .setConfigurationFile(this.configurationFile);
     }
@@ -128,6 +148,39 @@ public class ParameterConfiguration implements Configuration {
         return this;
     }
 
+    @Override
+    public String getSessionCacheDirectory() {
+        return sessionCacheDirectory;
+    }
+
+    @Override
+    public ParameterConfiguration setSessionCacheDirectory(String sessionCacheDirectory) {
+        this.sessionCacheDirectory = sessionCacheDirectory;
+        return this;
+    }
+
+    @Override
+    public int getUsageCacheTtl() {
+        return usageCacheTtl;
+    }
+
+    @Override
+    public ParameterConfiguration setUsageCacheTtl(int usageCacheTtl) {
+        this.usageCacheTtl = usageCacheTtl;
+        return this;
+    }
+
+    @Override
+    public String getUsageCacheFile() {
+        return usageCacheFile;
+    }
+
+    @Override
+    public ParameterConfiguration setUsageCacheFile(String usageCacheFile) {
+        this.usageCacheFile = usageCacheFile;
+        return this;
+    }
+
     @Override
     public boolean isForce() {
         return force;
@@ -139,6 +192,17 @@ public class ParameterConfiguration implements Configuration {
         return this;
     }
 
+    @Override
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    @Override
+    public ParameterConfiguration setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
+
     public int getLastUsage() {
         return lastUsage;
     }
@@ -173,18 +237,22 @@ public class ParameterConfiguration implements Configuration {
         ParameterConfiguration that = (ParameterConfiguration) o;
         return apply == that.apply
                 && force == that.force
+                && warmUp == that.warmUp
                 && Objects.equals(region, that.region)
                 && Objects.equals(service, that.service)
                 && Objects.equals(resources, that.resources)
                 && Objects.equals(description, that.description)
                 && Objects.equals(assumeRoleArn, that.assumeRoleArn)
+                && Objects.equals(sessionCacheDirectory, that.sessionCacheDirectory)
+                && usageCacheTtl == that.usageCacheTtl
+                && Objects.equals(usageCacheFile, that.usageCacheFile)
                 && Objects.equals(lastUsage, that.lastUsage)
                 && Objects.equals(configurationFile, that.configurationFile);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(region, service, resources, description, assumeRoleArn, apply, configurationFile);
+        return Objects.hash(region, service, resources, description, assumeRoleArn, sessionCacheDirectory, usageCacheTtl, usageCacheFile, apply, warmUp, configurationFile);
     }
 
     @Override
@@ -195,8 +263,12 @@ public class ParameterConfiguration implements Configuration {
                 .append("resources", resources)
                 .append("ticket", description)
                 .append("assumeRoleArn", assumeRoleArn)
+                .append("sessionCacheDirectory", sessionCacheDirectory)
+                .append("usageCacheTtl", usageCacheTtl)
+                .append("usageCacheFile", usageCacheFile)
                 .append("apply", apply)
                 .append("force", force)
+                .append("warmUp", warmUp)
                 .append("lastUsage", lastUsage)
                 .append("configurationFile", configurationFile)
                 .toString();
@@ -13,6 +13,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -73,12 +75,11 @@ public class DynamoDBResourceTerminatorTest extends TerminatorTest {
         dynamoDBResourceTerminator.setFetchResourceFactory(getFetchResourceFactory());
         doReturn(TEST_FETCHED_RESOURCES)
                 .when(getFetchResources()).fetchResources(eq(TEST_REGION), eq(TEST_RESOURCES), org.mockito.Mockito.any(List.class));
-        doReturn(0.0)
-                .when(getFetchResources()).getUsage(eq(TEST_REGION), eq(TABLE_1), eq(7));
-        doReturn(1.0)
-                .when(getFetchResources()).getUsage(eq(TEST_REGION), eq(TABLE_2), eq(7));
-        doReturn(0.0)
-                .when(getFetchResources()).getUsage(eq(TEST_REGION), eq(TABLE_3), eq(7));
+        doReturn(new LinkedHashMap<String, Object>() {{
+            put(TABLE_1, 0.0);
+            put(TABLE_2, 1.0);
+            put(TABLE_3, 0.0);
+        }}).when(getFetchResources()).getUsage(eq(TEST_REGION), eq(Arrays.asList(TABLE_1, TABLE_2, TABLE_3)), eq(7));
     }
 
     @Test
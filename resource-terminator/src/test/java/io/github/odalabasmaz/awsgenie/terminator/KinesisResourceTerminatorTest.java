@@ -16,6 +16,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -86,12 +88,11 @@ public class KinesisResourceTerminatorTest extends TerminatorTest {
         ResourceFetcher resourceFetcher = getFetchResources();
         doReturn(TEST_FETCHED_RESOURCES)
                 .when(resourceFetcher).fetchResources(eq(TEST_REGION), eq(TEST_RESOURCES), org.mockito.Mockito.any(List.class));
-        doReturn(0.0)
-                .when(resourceFetcher).getUsage(eq(TEST_REGION), eq(STREAM_1), eq(7));
-        doReturn(0.0)
-                .when(resourceFetcher).getUsage(eq(TEST_REGION), eq(STREAM_2), eq(7));
-        doReturn(1.0)
-                .when(resourceFetcher).getUsage(eq(TEST_REGION), eq(STREAM_3), eq(7));
+        doReturn(new LinkedHashMap<String, Object>() {{
+            put(STREAM_1, 0.0);
+            put(STREAM_2, 0.0);
+            put(STREAM_3, 1.0);
+        }}).when(resourceFetcher).getUsage(eq(TEST_REGION), eq(Arrays.asList(STREAM_1, STREAM_2, STREAM_3)), eq(7));
     }
 
     @Test
@@ -15,6 +15,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -75,10 +77,10 @@ public class SNSResourceTerminatorTest extends TerminatorTest {
         ResourceFetcher resourceFetcher = getFetchResources();
         doReturn(TEST_FETCHED_RESOURCES)
                 .when(resourceFetcher).fetchResources(eq(TEST_REGION), eq(TEST_RESOURCES), org.mockito.Mockito.any(List.class));
-        doReturn(0.0)
-                .when(resourceFetcher).getUsage(eq(TEST_REGION), eq(TOPIC_1), eq(7));
-        doReturn(1.0)
-                .when(resourceFetcher).getUsage(eq(TEST_REGION), eq(TOPIC_2), eq(7));
+        doReturn(new LinkedHashMap<String, Object>() {{
+            put(TOPIC_1, 0.0);
+            put(TOPIC_2, 1.0);
+        }}).when(resourceFetcher).getUsage(eq(TEST_REGION), eq(Arrays.asList(TOPIC_1, TOPIC_2)), eq(7));
     }
 
     @Test
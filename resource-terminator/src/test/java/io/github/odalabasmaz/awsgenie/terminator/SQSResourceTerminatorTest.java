@@ -18,6 +18,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -89,12 +91,11 @@ public class SQSResourceTerminatorTest extends TerminatorTest {
         sqsResourceTerminator.setFetchResourceFactory(getFetchResourceFactory());
         doReturn(TEST_FETCHED_RESOURCES)
                 .when(getFetchResources()).fetchResources(eq(TEST_REGION), eq(TEST_RESOURCES), any(List.class));
-        doReturn(0.0)
-                .when(getFetchResources()).getUsage(eq(TEST_REGION), eq(QUEUE_1), eq(7));
-        doReturn(1.0)
-                .when(getFetchResources()).getUsage(eq(TEST_REGION), eq(QUEUE_2), eq(7));
-        doReturn(0.0)
-                .when(getFetchResources()).getUsage(eq(TEST_REGION), eq(QUEUE_3), eq(7));
+        doReturn(new LinkedHashMap<String, Object>() {{
+            put(QUEUE_1, 0.0);
+            put(QUEUE_2, 1.0);
+            put(QUEUE_3, 0.0);
+        }}).when(getFetchResources()).getUsage(eq(TEST_REGION), eq(Arrays.asList(QUEUE_1, QUEUE_2, QUEUE_3)), eq(7));
     }
 
     @Test
@@ -121,6 +122,20 @@ public class SQSResourceTerminatorTest extends TerminatorTest {
         assertThat(actualCWRequest.getAlarmNames(), hasItem("SQS Queue queue3"));
     }
 
+    @Test
+    public void resourceWithoutUsageIsTreatedAsUnused() throws Exception {
+        doReturn(new LinkedHashMap<String, Object>() {{
+            put(QUEUE_1, 0.0);
+            put(QUEUE_2, 1.0);
+        }}).when(getFetchResources()).getUsage(eq(TEST_REGION), eq(Arrays.asList(QUEUE_1, QUEUE_2, QUEUE_3)), eq(7));
+
+        sqsResourceTerminator.terminateResource(TEST_REGION, service, TEST_RESOURCES, TEST_TICKET, true);
+        AmazonSQS sqsClient = getAmazonSQS();
+        verify(sqsClient).deleteQueue(QUEUE_1);
+        verify(sqsClient).deleteQueue(QUEUE_3);
+        verifyNoMoreInteractions(sqsClient);
+    }
+
     @Test
     public void terminateResourcesWithoutApply() throws Exception {
         sqsResourceTerminator.terminateResource(TEST_REGION, service, TEST_RESOURCES, TEST_TICKET, false);